@@ -0,0 +1,43 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.benchmark;
+
+import java.security.ProtectionDomain;
+
+import org.hotswap.agent.annotation.LoadEvent;
+import org.hotswap.agent.annotation.OnClassLoadEvent;
+import org.hotswap.agent.annotation.Plugin;
+import org.hotswap.agent.javassist.CtClass;
+
+/**
+ * Plugin definition used by PluginClassFileTransformerBenchmark. It is not in plugin package, hence
+ * it is never discovered by plugin scanner.
+ */
+@Plugin(name = "Benchmark", testedVersions = {})
+public class BenchmarkPlugin {
+
+    @OnClassLoadEvent(classNameRegexp = "org.hotswap.agent.benchmark.BenchmarkPlugin")
+    public static void simpleArguments(ClassLoader classLoader, String className, Class<?> clazz,
+                                       ProtectionDomain protectionDomain, byte[] bytes, LoadEvent loadEvent) {
+    }
+
+    @OnClassLoadEvent(classNameRegexp = "org.hotswap.agent.benchmark.BenchmarkPlugin")
+    public static void ctClassArgument(CtClass ctClass) {
+    }
+}
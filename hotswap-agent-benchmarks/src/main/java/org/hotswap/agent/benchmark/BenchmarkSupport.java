@@ -0,0 +1,94 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.instrument.Instrumentation;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import org.hotswap.agent.config.PluginManager;
+import org.hotswap.agent.logging.AgentLogger;
+
+/**
+ * Shared setup of benchmarks - plugin manager initialized with no-op instrumentation.
+ */
+public class BenchmarkSupport {
+
+    private static boolean initialized;
+
+    /**
+     * Initialize plugin manager singleton (scheduler, watcher, plugin scan) once per JVM.
+     */
+    public static synchronized PluginManager initPluginManager() {
+        if (!initialized) {
+            AgentLogger.setLevel(AgentLogger.Level.WARNING);
+            PluginManager.getInstance().init(noopInstrumentation());
+            initialized = true;
+        }
+        return PluginManager.getInstance();
+    }
+
+    /**
+     * Instrumentation proxy returning default values - benchmarks never redefine classes.
+     */
+    public static Instrumentation noopInstrumentation() {
+        return (Instrumentation) Proxy.newProxyInstance(BenchmarkSupport.class.getClassLoader(),
+                new Class<?>[]{Instrumentation.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        Class<?> returnType = method.getReturnType();
+                        if (returnType == boolean.class) {
+                            return false;
+                        } else if (returnType == long.class) {
+                            return 0L;
+                        } else if (returnType == Class[].class) {
+                            return new Class[0];
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    /**
+     * Read bytecode of a class from its classloader.
+     */
+    public static byte[] classBytes(Class<?> clazz) throws IOException {
+        String resource = clazz.getName().replace('.', '/') + ".class";
+        ClassLoader classLoader = clazz.getClassLoader() != null ? clazz.getClassLoader() : ClassLoader.getSystemClassLoader();
+        InputStream is = classLoader.getResourceAsStream(resource);
+        if (is == null) {
+            throw new IOException("Class file not found " + resource);
+        }
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = is.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            is.close();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.hotswap.agent.util.scanner.ClassPathScanner;
+import org.hotswap.agent.util.scanner.ScannerVisitor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ClassPathScanner on a big generated JAR file - all class entries are visited and read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClassPathScannerBenchmark {
+
+    static final String SCAN_PATH = "org/hotswap/benchmark/scan";
+
+    @Param({"1000", "10000"})
+    int entries;
+
+    File jarFile;
+    URLClassLoader classLoader;
+    ClassPathScanner scanner = new ClassPathScanner();
+
+    @Setup
+    public void setup() throws IOException {
+        byte[] classBytes = BenchmarkSupport.classBytes(ClassPathScanner.class);
+        jarFile = File.createTempFile("hotswap-benchmark", ".jar");
+        JarOutputStream jar = new JarOutputStream(new FileOutputStream(jarFile));
+        try {
+            jar.putNextEntry(new JarEntry(SCAN_PATH + "/"));
+            jar.closeEntry();
+            for (int i = 0; i < entries; i++) {
+                jar.putNextEntry(new JarEntry(SCAN_PATH + "/Class" + i + ".class"));
+                jar.write(classBytes);
+                jar.closeEntry();
+            }
+        } finally {
+            jar.close();
+        }
+        classLoader = new URLClassLoader(new URL[]{jarFile.toURI().toURL()}, null);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        classLoader.close();
+        jarFile.delete();
+    }
+
+    @Benchmark
+    public long scanJar() throws IOException {
+        final long[] bytes = new long[1];
+        final byte[] buffer = new byte[4096];
+        scanner.scan(classLoader, SCAN_PATH, new ScannerVisitor() {
+            @Override
+            public void visit(InputStream file) throws IOException {
+                int n;
+                while ((n = file.read(buffer)) != -1) {
+                    bytes[0] += n;
+                }
+                file.close();
+            }
+        });
+        return bytes[0];
+    }
+}
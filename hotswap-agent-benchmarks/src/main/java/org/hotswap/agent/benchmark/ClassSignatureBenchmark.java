@@ -0,0 +1,81 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hotswap.agent.javassist.ClassPool;
+import org.hotswap.agent.javassist.CtClass;
+import org.hotswap.agent.util.signature.ClassSignatureComparerHelper;
+import org.hotswap.agent.util.signature.ClassSignatureElement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ClassSignatureComparerHelper on large classes - signature of loaded class (reflection) and of CtClass,
+ * compared with all signature elements.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClassSignatureBenchmark {
+
+    static final ClassSignatureElement[] ELEMENTS = ClassSignatureElement.values();
+
+    @Param({"java.util.ArrayList", "java.util.concurrent.ConcurrentHashMap", "org.hotswap.agent.javassist.CtClass"})
+    String className;
+
+    Class<?> clazz;
+    CtClass ctClass;
+
+    @Setup
+    public void setup() throws Exception {
+        clazz = Class.forName(className);
+        ClassPool classPool = new ClassPool();
+        classPool.appendSystemPath();
+        ctClass = classPool.makeClass(new java.io.ByteArrayInputStream(BenchmarkSupport.classBytes(clazz)));
+    }
+
+    @Benchmark
+    public String javaClassSignature() throws Exception {
+        return ClassSignatureComparerHelper.getJavaClassSignature(clazz, ELEMENTS);
+    }
+
+    @Benchmark
+    public String ctClassSignature() throws Exception {
+        return ClassSignatureComparerHelper.getCtClassSignature(ctClass, ELEMENTS);
+    }
+
+    @Benchmark
+    public boolean isDifferent() {
+        return ClassSignatureComparerHelper.isDifferent(ctClass, clazz, ELEMENTS);
+    }
+}
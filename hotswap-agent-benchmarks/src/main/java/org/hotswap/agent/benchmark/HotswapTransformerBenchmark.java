@@ -0,0 +1,103 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.benchmark;
+
+import java.lang.instrument.IllegalClassFormatException;
+import java.security.ProtectionDomain;
+import java.util.concurrent.TimeUnit;
+
+import org.hotswap.agent.util.HaClassFileTransformer;
+import org.hotswap.agent.util.HotswapTransformer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * HotswapTransformer.transform() called by JVM for every class definition - with N registered class name
+ * patterns and P plugin transformers per pattern.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HotswapTransformerBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int patterns;
+
+    @Param({"1", "10"})
+    int plugins;
+
+    HotswapTransformer hotswapTransformer;
+    ClassLoader classLoader;
+    byte[] bytes = new byte[1024];
+
+    static class NoopTransformer implements HaClassFileTransformer {
+        @Override
+        public boolean isForRedefinitionOnly() {
+            return false;
+        }
+
+        @Override
+        public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined,
+                                ProtectionDomain protectionDomain, byte[] classfileBuffer) throws IllegalClassFormatException {
+            return classfileBuffer;
+        }
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkSupport.initPluginManager();
+        classLoader = getClass().getClassLoader();
+        hotswapTransformer = new HotswapTransformer();
+        for (int i = 0; i < patterns; i++) {
+            for (int j = 0; j < plugins; j++) {
+                hotswapTransformer.registerTransformer(null, "org.example.package" + i + ".Type.*", new NoopTransformer());
+            }
+        }
+        // classloader initialization is done on first transformation
+        hotswapTransformer.transform(classLoader, "org/example/Init", null, null, bytes);
+    }
+
+    /**
+     * Typical case - no transformer registered for the class.
+     */
+    @Benchmark
+    public byte[] transformNotMatching() throws Exception {
+        return hotswapTransformer.transform(classLoader, "org/example/other/SomeClass", null, null, bytes);
+    }
+
+    /**
+     * Class matches one pattern and all its transformers are applied.
+     */
+    @Benchmark
+    public byte[] transformMatching() throws Exception {
+        return hotswapTransformer.transform(classLoader, "org/example/package0/TypeA", null, null, bytes);
+    }
+}
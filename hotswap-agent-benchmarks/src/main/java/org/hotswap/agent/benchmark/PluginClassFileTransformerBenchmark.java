@@ -0,0 +1,91 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.benchmark;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.hotswap.agent.annotation.OnClassLoadEvent;
+import org.hotswap.agent.annotation.handler.PluginAnnotation;
+import org.hotswap.agent.annotation.handler.PluginClassFileTransformer;
+import org.hotswap.agent.config.PluginManager;
+import org.hotswap.agent.javassist.CtClass;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * PluginClassFileTransformer - resolution of @OnClassLoadEvent method arguments and the method call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PluginClassFileTransformerBenchmark {
+
+    static final String CLASS_NAME = BenchmarkPlugin.class.getName().replace('.', '/');
+
+    PluginClassFileTransformer simpleArgumentsTransformer;
+    PluginClassFileTransformer ctClassArgumentTransformer;
+    ClassLoader classLoader;
+    byte[] bytes;
+
+    @Setup
+    public void setup() throws Exception {
+        PluginManager pluginManager = BenchmarkSupport.initPluginManager();
+        classLoader = getClass().getClassLoader();
+        bytes = BenchmarkSupport.classBytes(BenchmarkPlugin.class);
+        simpleArgumentsTransformer = createTransformer(pluginManager,
+                BenchmarkPlugin.class.getMethod("simpleArguments", ClassLoader.class, String.class, Class.class,
+                        java.security.ProtectionDomain.class, byte[].class, org.hotswap.agent.annotation.LoadEvent.class));
+        ctClassArgumentTransformer = createTransformer(pluginManager,
+                BenchmarkPlugin.class.getMethod("ctClassArgument", CtClass.class));
+    }
+
+    private static PluginClassFileTransformer createTransformer(PluginManager pluginManager, Method method) {
+        PluginAnnotation<OnClassLoadEvent> pluginAnnotation = new PluginAnnotation<>(BenchmarkPlugin.class, null,
+                method.getAnnotation(OnClassLoadEvent.class), method);
+        return new PluginClassFileTransformer(pluginManager, pluginAnnotation);
+    }
+
+    /**
+     * Plain arguments (classloader, name, bytes, ...) - resolution and reflection call only.
+     */
+    @Benchmark
+    public byte[] simpleArguments() throws Exception {
+        return simpleArgumentsTransformer.transform(classLoader, CLASS_NAME, null, null, bytes);
+    }
+
+    /**
+     * CtClass argument - includes ClassPool creation, class parsing and toBytecode().
+     */
+    @Benchmark
+    public byte[] ctClassArgument() throws Exception {
+        return ctClassArgumentTransformer.transform(classLoader, CLASS_NAME, null, null, bytes);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.benchmark;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.hotswap.agent.util.ReflectionHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ReflectionHelper method invoke and field get with cached members compared to resolving the member
+ * on each call (previous implementation).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReflectionHelperBenchmark {
+
+    static class Base {
+        private String name = "base";
+    }
+
+    static class Target extends Base {
+        private int count;
+
+        private int increment(Integer delta) {
+            return count += delta;
+        }
+    }
+
+    final Target target = new Target();
+    final Integer delta = 1;
+    final Class<?>[] parameterTypes = {Integer.class};
+
+    @Benchmark
+    public Object invoke() {
+        return ReflectionHelper.invoke(target, Target.class, "increment", parameterTypes, delta);
+    }
+
+    @Benchmark
+    public Object invokeUncached() throws Exception {
+        Method method;
+        try {
+            method = Target.class.getMethod("increment", parameterTypes);
+        } catch (NoSuchMethodException e) {
+            method = Target.class.getDeclaredMethod("increment", parameterTypes);
+        }
+        method.setAccessible(true);
+        return method.invoke(target, delta);
+    }
+
+    @Benchmark
+    public Object getInherited() {
+        return ReflectionHelper.get(target, "name");
+    }
+
+    @Benchmark
+    public Object getInheritedUncached() throws Exception {
+        Class<?> clazz = target.getClass();
+        while (clazz != null) {
+            try {
+                clazz.getDeclaredField("name");
+                break;
+            } catch (NoSuchFieldException e) {
+                // ignore
+            }
+            clazz = clazz.getSuperclass();
+        }
+        Field field = clazz.getDeclaredField("name");
+        field.setAccessible(true);
+        return field.get(target);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+import org.hotswap.agent.plugin.spring.getbean.EnhancerProxyCreater;
+import org.hotswap.agent.plugin.spring.getbean.HotswapSpringInvocationHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cglib.proxy.Enhancer;
+import org.springframework.cglib.proxy.NoOp;
+
+/**
+ * Call through the Spring plugin getBean proxies (java.lang.reflect proxy with HotswapSpringInvocationHandler and
+ * cglib proxy created by EnhancerProxyCreater) compared to a direct call. Java proxy dispatches by reflection,
+ * cglib proxy by MethodProxy (FastClass).
+ * <p/>
+ * Spring 4.3 cglib defines classes via ClassLoader.defineClass, the fork opens java.lang (Java 9+).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.lang=ALL-UNNAMED")
+public class SpringProxyBenchmark {
+
+    public interface Greeter {
+        String greet(String name);
+    }
+
+    public static class GreeterImpl implements Greeter {
+        @Override
+        public String greet(String name) {
+            return name;
+        }
+    }
+
+    public static class BeanFactory {
+        final Object bean;
+
+        BeanFactory(Object bean) {
+            this.bean = bean;
+        }
+
+        public Object getBean(String name) {
+            return bean;
+        }
+    }
+
+    final String name = "bean";
+    Greeter direct;
+    Greeter jdkProxy;
+    Greeter cglibProxy;
+
+    @Setup
+    public void setup() {
+        direct = new GreeterImpl();
+
+        Class<?>[] paramClasses = {String.class};
+        Object[] paramValues = {"greeter"};
+        jdkProxy = (Greeter) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Greeter.class},
+                new HotswapSpringInvocationHandler(direct, new BeanFactory(direct), paramClasses, paramValues));
+
+        Enhancer enhancer = new Enhancer();
+        enhancer.setSuperclass(GreeterImpl.class);
+        enhancer.setCallback(NoOp.INSTANCE);
+        Object cglibBean = enhancer.create();
+        cglibProxy = (Greeter) EnhancerProxyCreater.createProxy(new BeanFactory(cglibBean), cglibBean, paramClasses, paramValues);
+        if (cglibProxy == cglibBean) {
+            throw new IllegalStateException("Cglib proxy not created");
+        }
+    }
+
+    @Benchmark
+    public String direct() {
+        return direct.greet(name);
+    }
+
+    @Benchmark
+    public String jdkProxy() {
+        return jdkProxy.greet(name);
+    }
+
+    @Benchmark
+    public String cglibProxy() {
+        return cglibProxy.greet(name);
+    }
+}
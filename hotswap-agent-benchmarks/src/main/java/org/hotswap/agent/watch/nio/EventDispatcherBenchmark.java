@@ -0,0 +1,121 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.watch.nio;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.hotswap.agent.watch.WatchEventListener;
+import org.hotswap.agent.watch.WatchFileEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * EventDispatcher throughput - a burst of file events dispatched to listeners registered on R watched
+ * roots with L listeners each (typically one listener per plugin method and URL).
+ * <p/>
+ * Benchmark is in the dispatcher package to call listeners directly, without the dispatcher thread sleep.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventDispatcherBenchmark {
+
+    static final int BURST = 100;
+
+    @Param({"10", "100"})
+    int roots;
+
+    @Param({"10", "50"})
+    int listenersPerRoot;
+
+    EventDispatcher dispatcher;
+    List<Path> burst;
+    WatchEvent<Path> event;
+
+    @Setup
+    public void setup(final Blackhole blackhole) {
+        Map<Path, List<WatchEventListener>> listeners = new ConcurrentHashMap<>();
+        for (int i = 0; i < roots; i++) {
+            List<WatchEventListener> list = new ArrayList<>();
+            for (int j = 0; j < listenersPerRoot; j++) {
+                list.add(new WatchEventListener() {
+                    @Override
+                    public void onEvent(WatchFileEvent event) {
+                        blackhole.consume(event);
+                    }
+                });
+            }
+            listeners.put(Paths.get("/benchmark/root" + i), list);
+        }
+        dispatcher = new EventDispatcher(listeners);
+
+        burst = new ArrayList<>();
+        for (int i = 0; i < BURST; i++) {
+            burst.add(Paths.get("/benchmark/root0/org/example/Class" + i + ".class"));
+        }
+
+        final Path context = Paths.get("Class.class");
+        event = new WatchEvent<Path>() {
+            @Override
+            public Kind<Path> kind() {
+                return StandardWatchEventKinds.ENTRY_MODIFY;
+            }
+
+            @Override
+            public int count() {
+                return 1;
+            }
+
+            @Override
+            public Path context() {
+                return context;
+            }
+        };
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void dispatchBurst() {
+        for (Path path : burst) {
+            dispatcher.callListeners(event, path);
+        }
+    }
+}
@@ -19,8 +19,12 @@
 package org.hotswap.agent;
 
 import org.hotswap.agent.logging.AgentLogger;
+import org.hotswap.agent.config.HotswapAgentMXBean;
+import org.hotswap.agent.config.HotswapAgentMXBeanImpl;
 import org.hotswap.agent.config.PluginManager;
 import org.hotswap.agent.util.Version;
+import org.hotswap.agent.util.metrics.MetricsHttpServer;
+import org.hotswap.agent.util.metrics.ReloadMetrics;
 
 import java.lang.instrument.Instrumentation;
 import java.util.HashSet;
@@ -57,7 +61,27 @@ public class HotswapAgent {
      */
     private static String propertiesFilePath;
 
+    /**
+     * Start the agent in passive mode - only classloaders are recorded until the agent is activated.
+     */
+    private static boolean passive = false;
+
+    /**
+     * Collect reload pipeline metrics (exposed via JMX).
+     */
+    private static boolean metrics = false;
+
+    /**
+     * Port of plain text metrics endpoint on loopback interface, 0 if disabled.
+     */
+    private static int metricsPort = 0;
+
     public static void agentmain(String args, Instrumentation inst) {
+        if (PluginManager.getInstance().isPassive()) {
+            // second attach activates the passive agent
+            PluginManager.getInstance().activate();
+            return;
+        }
         premain(args, inst);
     }
 
@@ -66,6 +90,13 @@ public class HotswapAgent {
         LOGGER.info("Loading Hotswap agent {{}} - unlimited runtime class redefinition.", Version.version());
         parseArgs(args);
         fixJboss7Modules();
+        initMetrics();
+        if (passive) {
+            PluginManager.getInstance().initPassive(inst);
+            LOGGER.info("Hotswap agent started in passive mode, activate it via JMX '{}' or by agent attach.",
+                    HotswapAgentMXBean.OBJECT_NAME);
+            return;
+        }
         PluginManager.getInstance().init(inst);
         LOGGER.debug("Hotswap agent initialized.");
 
@@ -90,6 +121,13 @@ public class HotswapAgent {
                 autoHotswap = Boolean.valueOf(optionValue);
             } else if ("propertiesFilePath".equals(option)) {
                 propertiesFilePath = optionValue;
+            } else if ("passive".equals(option)) {
+                passive = Boolean.valueOf(optionValue);
+            } else if ("metrics".equals(option)) {
+                metrics = Boolean.valueOf(optionValue);
+            } else if ("metricsPort".equals(option)) {
+                metrics = true;
+                metricsPort = Integer.parseInt(optionValue);
             } else {
                 LOGGER.warning("Invalid javaagent option '{}'. Argument '{}' is ignored.", option, arg);
             }
@@ -123,6 +161,27 @@ public class HotswapAgent {
         return autoHotswap;
     }
 
+    /**
+     * Passive mode property value.
+     *
+     * @return true if passive=true command line option was specified
+     */
+    public static boolean isPassive() {
+        return passive;
+    }
+
+    // enable metrics, register management bean and start metrics endpoint
+    private static void initMetrics() {
+        if (!metrics) {
+            return;
+        }
+        ReloadMetrics.setEnabled(true);
+        HotswapAgentMXBeanImpl.register();
+        if (metricsPort > 0) {
+            new MetricsHttpServer().start(metricsPort);
+        }
+    }
+
     /**
      * JBoss 7 use OSGI classloading and hence agent core classes are not available from application classloader
      * (this is not the case with standard classloaders with parent delgation).
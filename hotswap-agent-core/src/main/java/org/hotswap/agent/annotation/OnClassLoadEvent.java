@@ -39,6 +39,9 @@ import static org.hotswap.agent.annotation.LoadEvent.REDEFINE;
  * <li>CtClass - javassist class created from byte[] source. If the method returns null/void,
  * this class is used as transformation result. You can modify this class directly.</li>
  * <li>AppClassLoaderExecutor - executor to run code in app classloader</li>
+ * <li>ClassFilePatcher - streaming patch of the class file for trivial changes (access flags, new field)
+ * without CtClass. If the method returns null/void, patched class is used as transformation result.
+ * Do not combine with CtClass parameter.</li>
  * <li>LoadEvent - originating load event. If classBeingRedefined is null, this is DEFINE, otherwise REDEFINE.</li>
  * </ul>
  * <p/>
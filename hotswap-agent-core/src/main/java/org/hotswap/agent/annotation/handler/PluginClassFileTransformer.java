@@ -37,6 +37,7 @@ import org.hotswap.agent.javassist.LoaderClassPath;
 import org.hotswap.agent.javassist.NotFoundException;
 import org.hotswap.agent.logging.AgentLogger;
 import org.hotswap.agent.util.AppClassLoaderExecutor;
+import org.hotswap.agent.util.ClassFilePatcher;
 import org.hotswap.agent.util.HaClassFileTransformer;
 import org.hotswap.agent.versions.DeploymentInfo;
 
@@ -80,6 +81,10 @@ public class PluginClassFileTransformer implements HaClassFileTransformer {
         return pluginAnnotation.isFallBack();
     }
 
+    public Class<?> getPluginClass() {
+        return pluginAnnotation.getPluginClass();
+    }
+
     public String getPluginGroup() {
         return pluginAnnotation.getGroup();
     }
@@ -177,6 +182,7 @@ public class PluginClassFileTransformer implements HaClassFileTransformer {
         // we may need to crate CtClass on behalf of the client and close it
         // after invocation.
         CtClass ctClass = null;
+        ClassFilePatcher patcher = null;
 
         List<Object> args = new ArrayList<>();
         for (Class<?> type : pluginAnnotation.getMethod().getParameterTypes()) {
@@ -208,6 +214,14 @@ public class PluginClassFileTransformer implements HaClassFileTransformer {
                 args.add(redefiningClass == null ? LoadEvent.DEFINE : LoadEvent.REDEFINE);
             } else if (type.isAssignableFrom(AppClassLoaderExecutor.class)) {
                 args.add(new AppClassLoaderExecutor(classLoader, protectionDomain));
+            } else if (type.isAssignableFrom(ClassFilePatcher.class)) {
+                try {
+                    patcher = new ClassFilePatcher(bytes);
+                    args.add(patcher);
+                } catch (IllegalArgumentException e) {
+                    LOGGER.error("Unable create ClassFilePatcher for '" + className + "'.", e);
+                    return result;
+                }
             } else {
                 LOGGER.error("Unable to call init method on plugin '" + pluginAnnotation.getPluginClass() + "'." + " Method parameter type '" + type + "' is not recognized for @Init annotation.");
                 return result;
@@ -240,6 +254,8 @@ public class PluginClassFileTransformer implements HaClassFileTransformer {
                     result = ctClass.toBytecode();
                 }
                 ctClass.detach();
+            } else if (patcher != null && resultObject == null && patcher.isModified()) {
+                result = patcher.toBytecode();
             }
 
         } catch (IllegalAccessException e) {
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.annotation.handler;
+
+import java.util.regex.Pattern;
+
+/**
+ * Precompiled regexp of watch event filters.
+ * <p/>
+ * Filters are mostly of form ".*.xml" or ".*\\.properties" - such a literal suffix (with '.' as any character)
+ * is matched directly without regexp engine and without allocation. Other expressions use compiled Pattern.
+ * Semantics is the same as String.matches(regexp).
+ */
+final class RegexpMatcher {
+
+    private static final String META_CHARACTERS = "[](){}*+?^$|";
+
+    private final String regexp;
+
+    // literal start of every matching input, empty if not known
+    private final String prefix;
+
+    // general expression
+    private final Pattern pattern;
+
+    // ".*" + suffix, anyChar[i] is true for '.' at position i of the suffix
+    private final String suffix;
+    private final boolean[] anyChar;
+
+    private RegexpMatcher(String regexp, String prefix, Pattern pattern, String suffix, boolean[] anyChar) {
+        this.regexp = regexp;
+        this.prefix = prefix;
+        this.pattern = pattern;
+        this.suffix = suffix;
+        this.anyChar = anyChar;
+    }
+
+    /**
+     * Compile the expression.
+     *
+     * @param regexp regular expression
+     * @return matcher or null if regexp is null or empty (no filter)
+     */
+    static RegexpMatcher compile(String regexp) {
+        if (regexp == null || regexp.isEmpty()) {
+            return null;
+        }
+
+        if (regexp.startsWith(".*")) {
+            StringBuilder suffix = new StringBuilder();
+            boolean[] anyChar = new boolean[regexp.length()];
+            boolean literal = true;
+            for (int i = 2; i < regexp.length() && literal; i++) {
+                char c = regexp.charAt(i);
+                if (c == '\\') {
+                    // escaped non alphanumeric character is literal, otherwise it is character class etc.
+                    if (i + 1 < regexp.length() && !Character.isLetterOrDigit(regexp.charAt(i + 1))) {
+                        suffix.append(regexp.charAt(++i));
+                    } else {
+                        literal = false;
+                    }
+                } else if (c == '.') {
+                    anyChar[suffix.length()] = true;
+                    suffix.append(c);
+                } else if (META_CHARACTERS.indexOf(c) >= 0) {
+                    literal = false;
+                } else {
+                    suffix.append(c);
+                }
+            }
+            if (literal) {
+                boolean[] suffixAnyChar = new boolean[suffix.length()];
+                System.arraycopy(anyChar, 0, suffixAnyChar, 0, suffix.length());
+                return new RegexpMatcher(regexp, "", null, suffix.toString(), suffixAnyChar);
+            }
+        }
+
+        return new RegexpMatcher(regexp, literalPrefix(regexp), Pattern.compile(regexp), null, null);
+    }
+
+    // literal characters at the start of the expression up to the first metacharacter or any character '.'
+    private static String literalPrefix(String regexp) {
+        if (regexp.indexOf('|') >= 0) {
+            return "";
+        }
+        StringBuilder prefix = new StringBuilder();
+        for (int i = 0; i < regexp.length(); i++) {
+            char c = regexp.charAt(i);
+            if (c == '\\' && i + 1 < regexp.length() && !Character.isLetterOrDigit(regexp.charAt(i + 1))) {
+                prefix.append(regexp.charAt(++i));
+            } else if (c == '.' || c == '\\' || META_CHARACTERS.indexOf(c) >= 0) {
+                // quantifier applies to the last literal character
+                if ((c == '*' || c == '?' || c == '{') && prefix.length() > 0) {
+                    prefix.setLength(prefix.length() - 1);
+                }
+                break;
+            } else {
+                prefix.append(c);
+            }
+        }
+        return prefix.toString();
+    }
+
+    /**
+     * Literal start of every input matching the expression.
+     *
+     * @return prefix, empty if the expression starts with a metacharacter
+     */
+    String getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * Check if the whole input matches the expression.
+     */
+    boolean matches(String input) {
+        if (pattern != null) {
+            return pattern.matcher(input).matches();
+        }
+
+        int start = input.length() - suffix.length();
+        if (start < 0) {
+            return false;
+        }
+        // ".*" and '.' do not match line terminators
+        for (int i = 0; i < start; i++) {
+            if (isLineTerminator(input.charAt(i))) {
+                return false;
+            }
+        }
+        for (int i = 0; i < suffix.length(); i++) {
+            char c = input.charAt(start + i);
+            if (anyChar[i] ? isLineTerminator(c) : c != suffix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    @Override
+    public String toString() {
+        return regexp;
+    }
+}
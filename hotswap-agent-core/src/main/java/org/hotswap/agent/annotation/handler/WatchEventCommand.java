@@ -26,7 +26,6 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 import org.hotswap.agent.annotation.FileEvent;
@@ -54,34 +53,11 @@ public class WatchEventCommand<T extends Annotation> extends MergeableCommand {
     private final WatchFileEvent event;
     private final ClassLoader classLoader;
 
-    public static <T extends Annotation> WatchEventCommand<T> createCmdForEvent(PluginAnnotation<T> pluginAnnotation,
-            WatchFileEvent event, ClassLoader classLoader) {
-        WatchEventDTO watchEventDTO = WatchEventDTO.parse(pluginAnnotation.getAnnotation());
-
-        // Watch event is not supported.
-        if (!watchEventDTO.accept(event)) {
-            return null;
-        }
-
-        // regular files filter
-        if (watchEventDTO.isOnlyRegularFiles() && !event.isFile()) {
-            LOGGER.trace("Skipping URI {} because it is not a regular file.", event.getURI());
-            return null;
-        }
-
-        // watch type filter
-        if (!Arrays.asList(watchEventDTO.getEvents()).contains(event.getEventType())) {
-            LOGGER.trace("Skipping URI {} because it is not a requested event.", event.getURI());
-            return null;
-        }
-
-        // resource name filter regexp
-        if (watchEventDTO.getFilter() != null && watchEventDTO.getFilter().length() > 0) {
-            if (!event.getURI().toString().matches(watchEventDTO.getFilter())) {
-                LOGGER.trace("Skipping URI {} because it does not match filter.", event.getURI(), watchEventDTO.getFilter());
-                return null;
-            }
-        }
+    /**
+     * Create command for an event already accepted by the filter (see {@link WatchEventMultiplexer}).
+     */
+    static <T extends Annotation> WatchEventCommand<T> createCmd(PluginAnnotation<T> pluginAnnotation,
+            WatchFileEvent event, ClassLoader classLoader, WatchEventDTO watchEventDTO) {
         return new WatchEventCommand<>(pluginAnnotation, event, classLoader, watchEventDTO);
     }
 
@@ -92,6 +68,13 @@ public class WatchEventCommand<T extends Annotation> extends MergeableCommand {
         this.watchEventDTO = watchEventDTO;
     }
 
+    /**
+     * @return the plugin annotation this command is created for
+     */
+    public PluginAnnotation<T> getPluginAnnotation() {
+        return pluginAnnotation;
+    }
+
     @Override
     public void executeCommand() {
         LOGGER.trace("Executing for pluginAnnotation={}, event={} at classloader {}", pluginAnnotation, event, classLoader);
@@ -151,7 +134,7 @@ public class WatchEventCommand<T extends Annotation> extends MergeableCommand {
             }
 
             // unable to create CtClass or it's name does not match
-            if (ctClass == null || !ctClass.getName().matches(watchEventDTO.getClassNameRegexp()))
+            if (ctClass == null || !watchEventDTO.matchesClassName(ctClass.getName()))
                 return;
         }
 
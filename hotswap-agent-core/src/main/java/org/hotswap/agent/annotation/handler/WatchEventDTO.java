@@ -24,9 +24,15 @@ import org.hotswap.agent.annotation.OnResourceFileEvent;
 import org.hotswap.agent.watch.WatchFileEvent;
 
 import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
 
 /**
  * Container to merge attributes from similar annotations: OnClassFileEvent and OnResourceFileEvent.
+ * <p/>
+ * The container is immutable, filters are precompiled when the annotation is parsed (i.e. at registration),
+ * so that checking an event does not parse regular expressions.
  */
 public class WatchEventDTO {
     private final boolean classFileEvent;
@@ -37,6 +43,10 @@ public class WatchEventDTO {
     private final String path;
     private final boolean onlyRegularFiles;
 
+    private final Set<FileEvent> eventSet;
+    private final RegexpMatcher classNameMatcher;
+    private final RegexpMatcher filterMatcher;
+
     /**
      * Parse the annotation to fill in the container.
      */
@@ -57,6 +67,10 @@ public class WatchEventDTO {
         onlyRegularFiles = true;
         filter = null;
         path = null;
+
+        eventSet = toSet(events);
+        classNameMatcher = RegexpMatcher.compile(classNameRegexp);
+        filterMatcher = null;
     }
 
     public WatchEventDTO(OnResourceFileEvent annotation) {
@@ -67,6 +81,16 @@ public class WatchEventDTO {
         events = annotation.events();
         onlyRegularFiles = annotation.onlyRegularFiles();
         classNameRegexp = null;
+
+        eventSet = toSet(events);
+        classNameMatcher = null;
+        filterMatcher = RegexpMatcher.compile(filter);
+    }
+
+    private static Set<FileEvent> toSet(FileEvent[] events) {
+        Set<FileEvent> set = EnumSet.noneOf(FileEvent.class);
+        set.addAll(Arrays.asList(events));
+        return set;
     }
 
     public boolean isClassFileEvent() {
@@ -78,7 +102,7 @@ public class WatchEventDTO {
     }
 
     public FileEvent[] getEvents() {
-        return events;
+        return events.clone();
     }
 
     public String getClassNameRegexp() {
@@ -112,10 +136,62 @@ public class WatchEventDTO {
         // load class files only from files named ".class"
         // Don't treat _jsp.class as a class file. JSP class files are compiled by application server, compilation
         // has two phases that cause many problems with HA. Look at JSR45
-        if (isClassFileEvent() &&  (!event.getURI().toString().endsWith(".class") || event.getURI().toString().endsWith("_jsp.class"))) {
-            return false;
+        if (isClassFileEvent()) {
+            String uri = event.getURI().toString();
+            if (!uri.endsWith(".class") || uri.endsWith("_jsp.class")) {
+                return false;
+            }
         }
 
         return true;
     }
+
+    /**
+     * Check if the event type is requested by the annotation.
+     */
+    public boolean acceptEventType(FileEvent fileEvent) {
+        return eventSet.contains(fileEvent);
+    }
+
+    /**
+     * Check the resource URI against the filter regexp.
+     *
+     * @param uri resource URI
+     * @return true if there is no filter or the URI matches
+     */
+    public boolean matchesFilter(String uri) {
+        return filterMatcher == null || filterMatcher.matches(uri);
+    }
+
+    /**
+     * Literal start of every resource URI accepted by the filter.
+     *
+     * @return prefix, empty if there is no filter or it does not start with a literal
+     */
+    public String getFilterPrefix() {
+        return filterMatcher == null ? "" : filterMatcher.getPrefix();
+    }
+
+    /**
+     * Check the class name against the classNameRegexp.
+     *
+     * @param className class name
+     * @return true if there is no class name regexp or the class name matches
+     */
+    public boolean matchesClassName(String className) {
+        return classNameMatcher == null || classNameMatcher.matches(className);
+    }
+
+    /**
+     * All checks of the event - supported event, regular file, event type and resource filter.
+     *
+     * @param event file event fired by filesystem
+     * @return true if the plugin method should be invoked for the event
+     */
+    public boolean matches(WatchFileEvent event) {
+        return accept(event)
+                && (!onlyRegularFiles || event.isFile())
+                && acceptEventType(event.getEventType())
+                && matchesFilter(event.getURI().toString());
+    }
 }
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.annotation.handler;
+
+import java.lang.annotation.Annotation;
+import java.lang.ref.WeakReference;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.hotswap.agent.annotation.FileEvent;
+import org.hotswap.agent.config.PluginManager;
+import org.hotswap.agent.logging.AgentLogger;
+import org.hotswap.agent.watch.WatchEventListener;
+import org.hotswap.agent.watch.WatchFileEvent;
+
+/**
+ * Route watch events to @OnClassFileEvent and @OnResourceFileEvent plugin methods.
+ * <p/>
+ * Instead of a watcher listener per plugin method and URI, only a single listener is registered for each
+ * watched URI (root) and classloader. The listener holds a filter table of plugin methods grouped by event type
+ * and by literal prefix of the filter, filters are precompiled once at registration (see {@link WatchEventDTO}).
+ * Events are therefore not fanned out to all plugin methods and the watcher keeps only a few listeners regardless
+ * of the number of plugins.
+ *
+ * @see WatchHandler
+ */
+public class WatchEventMultiplexer {
+    private static AgentLogger LOGGER = AgentLogger.getLogger(WatchEventMultiplexer.class);
+
+    private final PluginManager pluginManager;
+
+    // classLoader -> watched URI -> listener, listeners reference the classloader weakly
+    private final Map<ClassLoader, Map<URI, RootListener>> listeners = new WeakHashMap<>();
+
+    public WatchEventMultiplexer(PluginManager pluginManager) {
+        this.pluginManager = pluginManager;
+    }
+
+    /**
+     * Register the plugin method for watch events on the URI. The watcher listener is registered only
+     * for the first method with this classloader and URI.
+     *
+     * @param pluginAnnotation plugin method
+     * @param watchEventDTO    parsed annotation
+     * @param classLoader      application classloader
+     * @param uri              watched URI
+     */
+    public synchronized <T extends Annotation> void register(PluginAnnotation<T> pluginAnnotation,
+                                                             WatchEventDTO watchEventDTO, ClassLoader classLoader, URI uri) {
+        Map<URI, RootListener> loaderListeners = listeners.get(classLoader);
+        if (loaderListeners == null) {
+            loaderListeners = new HashMap<>();
+            listeners.put(classLoader, loaderListeners);
+        }
+
+        RootListener listener = loaderListeners.get(uri);
+        if (listener == null) {
+            listener = new RootListener(classLoader, uri);
+            loaderListeners.put(uri, listener);
+            pluginManager.getWatcher().addEventListener(classLoader, uri, listener);
+        }
+        listener.add(new Target(pluginAnnotation, watchEventDTO));
+    }
+
+    /**
+     * Remove all plugin methods registered for the classloader.
+     *
+     * @param classLoader classloader to close
+     */
+    public synchronized void closeClassLoader(ClassLoader classLoader) {
+        Map<URI, RootListener> loaderListeners = listeners.remove(classLoader);
+        if (loaderListeners != null) {
+            for (RootListener listener : loaderListeners.values()) {
+                listener.clear();
+            }
+        }
+    }
+
+    /**
+     * Single registered plugin method with its precompiled filter.
+     */
+    static class Target {
+        final PluginAnnotation<?> pluginAnnotation;
+        final WatchEventDTO watchEventDTO;
+
+        Target(PluginAnnotation<?> pluginAnnotation, WatchEventDTO watchEventDTO) {
+            this.pluginAnnotation = pluginAnnotation;
+            this.watchEventDTO = watchEventDTO;
+        }
+    }
+
+    /**
+     * Plugin methods with the same literal prefix of the filter.
+     */
+    static class PrefixGroup {
+        final String prefix;
+        final Target[] targets;
+
+        PrefixGroup(String prefix, Target[] targets) {
+            this.prefix = prefix;
+            this.targets = targets;
+        }
+    }
+
+    /**
+     * Watcher listener for a root URI and classloader.
+     */
+    class RootListener implements WatchEventListener {
+        private final WeakReference<ClassLoader> classLoader;
+        private final URI uri;
+
+        // event type -> targets grouped by filter prefix, copy on write
+        private volatile Map<FileEvent, PrefixGroup[]> table = new EnumMap<>(FileEvent.class);
+
+        RootListener(ClassLoader classLoader, URI uri) {
+            this.classLoader = new WeakReference<>(classLoader);
+            this.uri = uri;
+        }
+
+        synchronized void add(Target target) {
+            String prefix = target.watchEventDTO.getFilterPrefix();
+            Map<FileEvent, PrefixGroup[]> newTable = new EnumMap<>(table);
+            for (FileEvent fileEvent : target.watchEventDTO.getEvents()) {
+                newTable.put(fileEvent, add(newTable.get(fileEvent), prefix, target));
+            }
+            table = newTable;
+        }
+
+        private PrefixGroup[] add(PrefixGroup[] groups, String prefix, Target target) {
+            if (groups == null) {
+                return new PrefixGroup[]{new PrefixGroup(prefix, new Target[]{target})};
+            }
+            groups = groups.clone();
+            for (int i = 0; i < groups.length; i++) {
+                if (groups[i].prefix.equals(prefix)) {
+                    Target[] targets = Arrays.copyOf(groups[i].targets, groups[i].targets.length + 1);
+                    targets[targets.length - 1] = target;
+                    groups[i] = new PrefixGroup(prefix, targets);
+                    return groups;
+                }
+            }
+            groups = Arrays.copyOf(groups, groups.length + 1);
+            groups[groups.length - 1] = new PrefixGroup(prefix, new Target[]{target});
+            return groups;
+        }
+
+        synchronized void clear() {
+            table = new EnumMap<>(FileEvent.class);
+        }
+
+        @Override
+        public void onEvent(WatchFileEvent event) {
+            PrefixGroup[] groups = table.get(event.getEventType());
+            ClassLoader loader = classLoader.get();
+            if (groups == null || loader == null) {
+                return;
+            }
+
+            String eventUri = event.getURI().toString();
+            for (PrefixGroup group : groups) {
+                if (!eventUri.startsWith(group.prefix)) {
+                    continue;
+                }
+                for (Target target : group.targets) {
+                    if (!target.watchEventDTO.matches(event)) {
+                        continue;
+                    }
+                    WatchEventCommand<?> command = WatchEventCommand.createCmd(target.pluginAnnotation, event, loader,
+                            target.watchEventDTO);
+                    pluginManager.getScheduler().scheduleCommand(command, target.watchEventDTO.getTimeout());
+                    LOGGER.trace("Resource changed {}", event);
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "WatchEventMultiplexer.RootListener{uri=" + uri + ", classLoader=" + classLoader.get() + "}";
+        }
+    }
+}
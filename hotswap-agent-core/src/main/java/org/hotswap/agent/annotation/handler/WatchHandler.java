@@ -30,8 +30,6 @@ import java.util.Enumeration;
 
 import org.hotswap.agent.config.PluginManager;
 import org.hotswap.agent.logging.AgentLogger;
-import org.hotswap.agent.watch.WatchEventListener;
-import org.hotswap.agent.watch.WatchFileEvent;
 
 /**
  * Watch method handler - handle @OnResourceFileEvent annotation on a method.
@@ -130,23 +128,15 @@ public class WatchHandler<T extends Annotation> implements PluginHandler<T> {
     }
 
     /**
-     * Using pluginManager.registerResourceListener() add new listener on URI.
+     * Register the plugin method for events on URI via the multiplexer, which keeps a single watcher
+     * listener per URI and classloader.
      * <p/>
      * There might be several same events for a resource change (either from filesystem or when IDE clears and reloads
      * a class multiple time on rebuild). Use command scheduler to group same events into single invocation.
      */
     private void registerResourceListener(final PluginAnnotation<T> pluginAnnotation, final WatchEventDTO watchEventDTO,
                                           final ClassLoader classLoader, URI uri) throws IOException {
-        pluginManager.getWatcher().addEventListener(classLoader, uri, new WatchEventListener() {
-            @Override
-            public void onEvent(WatchFileEvent event) {
-                WatchEventCommand<T> command = WatchEventCommand.createCmdForEvent(pluginAnnotation, event, classLoader);
-                if (command != null) {
-                    pluginManager.getScheduler().scheduleCommand(command, watchEventDTO.getTimeout());
-                    LOGGER.trace("Resource changed {}", event);
-                }
-            }
-        });
+        pluginManager.getWatchEventMultiplexer().register(pluginAnnotation, watchEventDTO, classLoader, uri);
     }
 
 
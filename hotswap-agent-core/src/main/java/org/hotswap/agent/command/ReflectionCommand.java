@@ -20,6 +20,7 @@ package org.hotswap.agent.command;
 
 import org.hotswap.agent.config.PluginManager;
 import org.hotswap.agent.logging.AgentLogger;
+import org.hotswap.agent.util.ReflectionHelper;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -202,7 +203,7 @@ public class ReflectionCommand extends MergeableCommand {
             }
         }
 
-        Method m = classInAppClassLoader.getDeclaredMethod(method, paramTypes);
+        Method m = ReflectionHelper.getDeclaredMethod(classInAppClassLoader, method, paramTypes);
 
         return m.invoke(target, params.toArray());
     }
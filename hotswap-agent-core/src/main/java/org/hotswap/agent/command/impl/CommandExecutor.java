@@ -18,8 +18,12 @@
  */
 package org.hotswap.agent.command.impl;
 
+import org.hotswap.agent.annotation.handler.WatchEventCommand;
 import org.hotswap.agent.command.Command;
+import org.hotswap.agent.command.ReflectionCommand;
 import org.hotswap.agent.logging.AgentLogger;
+import org.hotswap.agent.util.jfr.FlightRecorderEvents;
+import org.hotswap.agent.util.metrics.ReloadMetrics;
 
 /**
  * Execute a command in a separate thread.
@@ -31,21 +35,49 @@ public class CommandExecutor extends Thread {
 
     final Command command;
 
+    // time of scheduling for metrics (0 if not known or metrics are disabled)
+    final long scheduledNanos;
+
     public CommandExecutor(Command command) {
+        this(command, 0L);
+    }
+
+    public CommandExecutor(Command command, long scheduledNanos) {
         this.command = command;
+        this.scheduledNanos = scheduledNanos;
         setDaemon(true);
     }
 
     @Override
     public void run() {
+        long start = ReloadMetrics.start();
+        Object event = FlightRecorderEvents.beginCommand();
+        String name = start != 0L || event != null ? commandName(command) : null;
+        if (scheduledNanos != 0L) {
+            ReloadMetrics.record(ReloadMetrics.Stage.SCHEDULE, name, scheduledNanos);
+        }
         try {
             LOGGER.trace("Executing command {}", command);
             command.executeCommand();
         } finally {
+            ReloadMetrics.record(ReloadMetrics.Stage.EXECUTE, name, start);
+            if (event != null) {
+                FlightRecorderEvents.commitCommand(event, command.toString(), name);
+            }
             finished();
         }
     }
 
+    // name of the command for metrics breakdown - target class or plugin
+    private static String commandName(Command command) {
+        if (command instanceof ReflectionCommand) {
+            return ((ReflectionCommand) command).getClassName();
+        } else if (command instanceof WatchEventCommand) {
+            return ((WatchEventCommand<?>) command).getPluginAnnotation().getPluginClass().getName();
+        }
+        return command.getClass().getName();
+    }
+
     /**
      * Method template to register finish event
      */
@@ -30,6 +30,7 @@ import org.hotswap.agent.command.Command;
 import org.hotswap.agent.command.MergeableCommand;
 import org.hotswap.agent.command.Scheduler;
 import org.hotswap.agent.logging.AgentLogger;
+import org.hotswap.agent.util.metrics.ReloadMetrics;
 
 /**
  * Default command scheduler implementation.
@@ -103,11 +104,11 @@ public class SchedulerImpl implements Scheduler {
                             LOGGER.debug("Skipping duplicate running command {}", command);
                             it.remove();
                         } else if (config.getBehaviour().equals(DuplicateSheduleBehaviour.RUN_DUPLICATE)) {
-                            executeCommand(command);
+                            executeCommand(command, config.getScheduledNanos());
                             it.remove();
                         }
                     } else {
-                        executeCommand(command);
+                        executeCommand(command, config.getScheduledNanos());
                         it.remove();
                     }
                 }
@@ -121,15 +122,16 @@ public class SchedulerImpl implements Scheduler {
      * Execute this command in a separate thread.
      *
      * @param command the command to execute
+     * @param scheduledNanos time of scheduling for metrics (0 if metrics are disabled)
      */
-    private void executeCommand(Command command) {
+    private void executeCommand(Command command, long scheduledNanos) {
         if (command instanceof WatchEventCommand)
             LOGGER.trace("Executing {}", command); // too much output for debug
         else
             LOGGER.debug("Executing {}", command);
 
         runningCommands.add(command);
-        new CommandExecutor(command) {
+        new CommandExecutor(command, scheduledNanos) {
             @Override
             public void finished() {
                 runningCommands.remove(command);
@@ -173,9 +175,17 @@ public class SchedulerImpl implements Scheduler {
         // behaviour in case of conflict (running same command in progress)
         DuplicateSheduleBehaviour behaviour;
 
+        // time of scheduling for metrics
+        long scheduledNanos;
+
         private DuplicateScheduleConfig(long time, DuplicateSheduleBehaviour behaviour) {
             this.time = time;
             this.behaviour = behaviour;
+            this.scheduledNanos = ReloadMetrics.start();
+        }
+
+        public long getScheduledNanos() {
+            return scheduledNanos;
         }
 
         public long getTime() {
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.config;
+
+import java.util.List;
+
+import org.hotswap.agent.util.metrics.StageStatistics;
+
+/**
+ * JMX management interface of the agent.
+ * <p/>
+ * Registered in the platform MBean server under {@link #OBJECT_NAME}.
+ */
+public interface HotswapAgentMXBean {
+
+    /**
+     * JMX object name of the agent management bean.
+     */
+    String OBJECT_NAME = "org.hotswap.agent:type=HotswapAgent";
+
+    /**
+     * @return agent version
+     */
+    String getVersion();
+
+    /**
+     * @return true if the agent is active, false if it runs in passive mode
+     */
+    boolean isActive();
+
+    /**
+     * Activate the agent started in passive mode. Does nothing if the agent is already active.
+     */
+    void activate();
+
+    /**
+     * @return true if reload metrics are collected
+     */
+    boolean isMetricsEnabled();
+
+    /**
+     * Enable/disable reload metrics collection.
+     */
+    void setMetricsEnabled(boolean enabled);
+
+    /**
+     * @return latency statistics of reload stages with per plugin breakdown
+     */
+    List<StageStatistics> getStageStatistics();
+
+    /**
+     * @return latency statistics of reload stages as plain text
+     */
+    String getStatisticsReport();
+
+    /**
+     * Reset collected reload metrics.
+     */
+    void resetStatistics();
+}
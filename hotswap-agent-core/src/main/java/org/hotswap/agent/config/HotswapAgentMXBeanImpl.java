@@ -0,0 +1,99 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.config;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.hotswap.agent.logging.AgentLogger;
+import org.hotswap.agent.util.Version;
+import org.hotswap.agent.util.metrics.ReloadMetrics;
+import org.hotswap.agent.util.metrics.StageStatistics;
+
+/**
+ * Default implementation of agent management bean, delegates to plugin manager.
+ */
+public class HotswapAgentMXBeanImpl implements HotswapAgentMXBean {
+    private static AgentLogger LOGGER = AgentLogger.getLogger(HotswapAgentMXBeanImpl.class);
+
+    private static volatile boolean registered;
+
+    /**
+     * Register the management bean in the platform MBean server (only once).
+     * <p/>
+     * Note that the platform MBean server initializes java.util.logging. On JBoss/Wildfly, the log manager
+     * must be set by -Djava.util.logging.manager before the bean is registered.
+     */
+    public static synchronized void register() {
+        if (registered) {
+            return;
+        }
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            mBeanServer.registerMBean(new HotswapAgentMXBeanImpl(), new ObjectName(OBJECT_NAME));
+            registered = true;
+            LOGGER.debug("Registered management bean {}.", OBJECT_NAME);
+        } catch (Exception e) {
+            LOGGER.warning("Unable to register management bean {}.", e, OBJECT_NAME);
+        }
+    }
+
+    @Override
+    public String getVersion() {
+        return Version.version();
+    }
+
+    @Override
+    public boolean isActive() {
+        return !PluginManager.getInstance().isPassive();
+    }
+
+    @Override
+    public void activate() {
+        PluginManager.getInstance().activate();
+    }
+
+    @Override
+    public boolean isMetricsEnabled() {
+        return ReloadMetrics.isEnabled();
+    }
+
+    @Override
+    public void setMetricsEnabled(boolean enabled) {
+        ReloadMetrics.setEnabled(enabled);
+    }
+
+    @Override
+    public List<StageStatistics> getStageStatistics() {
+        return ReloadMetrics.getStatistics();
+    }
+
+    @Override
+    public String getStatisticsReport() {
+        return ReloadMetrics.report();
+    }
+
+    @Override
+    public void resetStatistics() {
+        ReloadMetrics.reset();
+    }
+}
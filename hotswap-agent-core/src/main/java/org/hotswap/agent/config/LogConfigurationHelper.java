@@ -28,6 +28,8 @@ import java.util.Locale;
 import java.util.Properties;
 
 import org.hotswap.agent.logging.AgentLogger;
+import org.hotswap.agent.logging.AgentLoggerHandler;
+import org.hotswap.agent.logging.AsyncAgentLoggerHandler;
 
 /**
  * Configure LOG level and handler according to properties.
@@ -37,6 +39,9 @@ public class LogConfigurationHelper {
 
     public static final String LOGGER_PREFIX = "LOGGER";
     public static final String DATETIME_FORMAT = "LOGGER_DATETIME_FORMAT";
+    public static final String ASYNC = "LOGGER_ASYNC";
+    private static final String ASYNC_BUFFER_SIZE = "LOGGER_ASYNC.bufferSize";
+    private static final String ASYNC_OVERFLOW = "LOGGER_ASYNC.overflow";
     private static final String LOGFILE = "LOGFILE";
     private static final String LOGFILE_APPEND = "LOGFILE.append";
 
@@ -47,6 +52,11 @@ public class LogConfigurationHelper {
      * @param properties properties
      */
     public static void configureLog(Properties properties) {
+        // switch handler first, other settings are applied to the current handler
+        if (parseBoolean(properties.getProperty(ASYNC))) {
+            configureAsync(properties);
+        }
+
         for (String property : properties.stringPropertyNames()) {
             if (property.startsWith(LOGGER_PREFIX)) {
                 if (property.startsWith(DATETIME_FORMAT)) {
@@ -54,7 +64,7 @@ public class LogConfigurationHelper {
                     if (dateTimeFormat != null && !dateTimeFormat.isEmpty()) {
                         AgentLogger.setDateTimeFormat(dateTimeFormat);
                     }
-                } else {
+                } else if (!property.startsWith(ASYNC)) {
                     String classPrefix = getClassPrefix(property);
                     AgentLogger.Level level = getLevel(property, properties.getProperty(property));
 
@@ -79,6 +89,38 @@ public class LogConfigurationHelper {
         }
     }
 
+    // replace synchronous handler with asynchronous one
+    private static void configureAsync(Properties properties) {
+        AgentLoggerHandler current = AgentLogger.getHandler();
+        if (current instanceof AsyncAgentLoggerHandler) {
+            return;
+        }
+
+        int bufferSize = AsyncAgentLoggerHandler.DEFAULT_BUFFER_SIZE;
+        String bufferSizeValue = properties.getProperty(ASYNC_BUFFER_SIZE);
+        if (bufferSizeValue != null) {
+            try {
+                bufferSize = Integer.parseInt(bufferSizeValue.trim());
+            } catch (NumberFormatException e) {
+                LOGGER.warning("Invalid configuration value for property '{}'. Not a number '{}'.", ASYNC_BUFFER_SIZE, bufferSizeValue);
+            }
+        }
+
+        AsyncAgentLoggerHandler.OverflowPolicy overflowPolicy = AsyncAgentLoggerHandler.OverflowPolicy.DROP;
+        String overflowValue = properties.getProperty(ASYNC_OVERFLOW);
+        if (overflowValue != null) {
+            try {
+                overflowPolicy = AsyncAgentLoggerHandler.OverflowPolicy.valueOf(overflowValue.trim().toUpperCase(Locale.ENGLISH));
+            } catch (IllegalArgumentException e) {
+                LOGGER.warning("Invalid configuration value for property '{}'. Unknown overflow policy '{}'.", ASYNC_OVERFLOW, overflowValue);
+            }
+        }
+
+        AsyncAgentLoggerHandler handler = new AsyncAgentLoggerHandler(bufferSize, overflowPolicy);
+        handler.copySettings(current);
+        AgentLogger.setHandler(handler);
+    }
+
     // resolve level from enum
     private static AgentLogger.Level getLevel(String property, String levelName) {
         try {
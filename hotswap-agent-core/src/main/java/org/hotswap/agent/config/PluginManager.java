@@ -22,17 +22,27 @@ import java.io.IOException;
 import java.lang.instrument.ClassDefinition;
 import java.lang.instrument.Instrumentation;
 import java.security.ProtectionDomain;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
+import org.hotswap.agent.annotation.handler.WatchEventMultiplexer;
 import org.hotswap.agent.command.Scheduler;
 import org.hotswap.agent.command.impl.SchedulerImpl;
 import org.hotswap.agent.logging.AgentLogger;
 import org.hotswap.agent.util.HotswapTransformer;
+import org.hotswap.agent.util.ReflectionHelper;
 import org.hotswap.agent.util.classloader.ClassLoaderDefineClassPatcher;
+import org.hotswap.agent.util.jfr.FlightRecorderEvents;
+import org.hotswap.agent.util.metrics.ReloadMetrics;
 import org.hotswap.agent.watch.Watcher;
 import org.hotswap.agent.watch.WatcherFactory;
 
@@ -69,6 +79,8 @@ public class PluginManager {
 
     private Object hotswapLock = new Object();
 
+    private Object activationLock = new Object();
+
     //////////////////////////   PLUGINS /////////////////////////////////////
 
     /**
@@ -124,6 +136,125 @@ public class PluginManager {
     public void init(Instrumentation instrumentation) {
         this.instrumentation = instrumentation;
 
+        initServices();
+
+        LOGGER.debug("Registering transformer ");
+        instrumentation.addTransformer(hotswapTransformer);
+    }
+
+    /**
+     * Initialize the plugin manager in passive mode.
+     * <p/>
+     * Only the HotswapTransformer is registered and it records classloaders. Watcher, scheduler and plugins
+     * are not started until the agent is activated via {@link #activate()} - either by JMX operation
+     * {@link HotswapAgentMXBean#activate()} or by a second agentmain call.
+     *
+     * @param instrumentation javaagent instrumentation.
+     */
+    public void initPassive(Instrumentation instrumentation) {
+        this.instrumentation = instrumentation;
+
+        hotswapTransformer.setPassive(true);
+
+        LOGGER.debug("Registering passive transformer ");
+        instrumentation.addTransformer(hotswapTransformer, true);
+
+        HotswapAgentMXBeanImpl.register();
+    }
+
+    /**
+     * @return true if the agent was started in passive mode and it was not activated yet.
+     */
+    public boolean isPassive() {
+        return hotswapTransformer.isPassive();
+    }
+
+    /**
+     * Activate passive agent - start services, scan plugins, initialize classloaders recorded in passive mode
+     * and retransform already loaded classes matching registered transformers.
+     * <p/>
+     * Note that plugins hooking framework object construction take effect only for objects created after
+     * the activation.
+     */
+    public void activate() {
+        synchronized (activationLock) {
+            if (!isPassive()) {
+                LOGGER.debug("Hotswap agent is already active.");
+                return;
+            }
+            LOGGER.info("Activating passive Hotswap agent.");
+
+            initServices();
+            hotswapTransformer.activate();
+            retransformLoadedClasses();
+
+            LOGGER.info("Hotswap agent activated.");
+        }
+    }
+
+    // retransform loaded classes with registered define transformers in parallel
+    private void retransformLoadedClasses() {
+        List<Class<?>> classes = new ArrayList<>();
+        for (Class<?> clazz : instrumentation.getAllLoadedClasses()) {
+            if (instrumentation.isModifiableClass(clazz) && hotswapTransformer.hasDefinitionTransformer(clazz.getName())) {
+                classes.add(clazz);
+            }
+        }
+        if (classes.isEmpty()) {
+            return;
+        }
+
+        int threads = Math.min(Runtime.getRuntime().availableProcessors(), classes.size());
+        LOGGER.debug("Retransforming {} loaded classes in {} threads.", classes.size(), threads);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "HotswapAgent Activation");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+            int chunkSize = (classes.size() + threads - 1) / threads;
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < classes.size(); i += chunkSize) {
+                final List<Class<?>> chunk = classes.subList(i, Math.min(i + chunkSize, classes.size()));
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        retransformChunk(chunk);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (Exception e) {
+            LOGGER.error("Error retransforming loaded classes.", e);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // retransform whole chunk, on failure retry class by class to isolate the offending class
+    private void retransformChunk(List<Class<?>> chunk) {
+        try {
+            hotswapTransformer.retransformAsDefinition(instrumentation, chunk.toArray(new Class<?>[chunk.size()]));
+        } catch (Throwable t) {
+            LOGGER.debug("Unable to retransform classes in batch, retransforming one by one.", t);
+            for (Class<?> clazz : chunk) {
+                try {
+                    hotswapTransformer.retransformAsDefinition(instrumentation, clazz);
+                } catch (Throwable e) {
+                    LOGGER.warning("Unable to retransform class {} loaded before activation.", e, clazz.getName());
+                }
+            }
+        }
+    }
+
+    // start watcher and scheduler and scan plugins
+    private void initServices() {
         // create default configuration from this classloader
         ClassLoader classLoader = getClass().getClassLoader();
         classLoaderConfigurations.put(classLoader, new PluginConfiguration(classLoader));
@@ -143,9 +274,6 @@ public class PluginManager {
         scheduler.run();
 
         pluginRegistry.scanPlugins(getClass().getClassLoader(), PLUGIN_PACKAGE);
-
-        LOGGER.debug("Registering transformer ");
-        instrumentation.addTransformer(hotswapTransformer);
     }
 
     ClassLoaderDefineClassPatcher classLoaderPatcher = new ClassLoaderDefineClassPatcher();
@@ -207,6 +335,7 @@ public class PluginManager {
         pluginRegistry.closeClassLoader(classLoader);
         classLoaderConfigurations.remove(classLoader);
         hotswapTransformer.closeClassLoader(classLoader);
+        watchEventMultiplexer.closeClassLoader(classLoader);
     }
 
 
@@ -255,6 +384,15 @@ public class PluginManager {
         return watcher;
     }
 
+    protected WatchEventMultiplexer watchEventMultiplexer = new WatchEventMultiplexer(this);
+
+    /**
+     * Returns the multiplexer of watch events to plugin methods.
+     */
+    public WatchEventMultiplexer getWatchEventMultiplexer() {
+        return watchEventMultiplexer;
+    }
+
     protected Scheduler scheduler;
 
     /**
@@ -281,15 +419,24 @@ public class PluginManager {
         synchronized (reloadMap) {
             ClassDefinition[] definitions = new ClassDefinition[reloadMap.size()];
             String[] classNames = new String[reloadMap.size()];
+            long bytes = 0;
             int i = 0;
             for (Map.Entry<Class<?>, byte[]> entry : reloadMap.entrySet()) {
                 classNames[i] = entry.getKey().getName();
+                bytes += entry.getValue().length;
                 definitions[i++] = new ClassDefinition(entry.getKey(), entry.getValue());
             }
             try {
                 LOGGER.reload("Reloading classes {} (autoHotswap)", Arrays.toString(classNames));
                 synchronized (hotswapLock) {
+                    long start = ReloadMetrics.start();
+                    Object event = FlightRecorderEvents.beginRedefine();
                     instrumentation.redefineClasses(definitions);
+                    ReflectionHelper.clearCache();
+                    ReloadMetrics.record(ReloadMetrics.Stage.REDEFINE, start);
+                    if (event != null) {
+                        FlightRecorderEvents.commitRedefine(event, classNames, bytes);
+                    }
                 }
                 LOGGER.debug("... reloaded classes {} (autoHotswap)", Arrays.toString(classNames));
             } catch (Exception e) {
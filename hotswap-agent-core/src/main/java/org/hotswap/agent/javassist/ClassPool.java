@@ -311,13 +311,35 @@ public class ClassPool {
      * if the given name is an invalid name recorded by this method.
      * Note that searching the class path takes relatively long time.
      *
-     * <p>The current implementation of this method performs nothing.
+     * <p>The record is discarded when the class path is modified
+     * or {@link #clearLookupCache()} is called.
      *
      * @param name          an invalid class name (separeted by dots).
      * @deprecated
      */
     public void recordInvalidClassName(String name) {
-        // source.recordInvalidClassName(name);
+        source.recordInvalidClassName(name);
+    }
+
+    /**
+     * Clears the class path lookup cache.  The results of class file lookups
+     * are cached until the class path is modified.  Class names which were
+     * not found are cached until {@link #clearMissingLookups()} is called
+     * unless all the class path entries are jar files.
+     * Call this method if class files may have been removed from
+     * the class path entries afterwards.
+     */
+    public void clearLookupCache() {
+        source.clearLookupCache();
+    }
+
+    /**
+     * Forgets the class names which were not found in class directories
+     * or class loaders by any class pool.  Call this method if a class file
+     * may have been created or a class redefined.
+     */
+    public static void clearMissingLookups() {
+        ClassPoolTail.clearMissingLookups();
     }
 
     /**
@@ -24,10 +24,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.MalformedURLException;
+import java.lang.ref.WeakReference;
 import java.net.URL;
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.List;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
@@ -128,17 +131,21 @@ final class JarDirClassPath implements ClassPath {
 }
 
 final class JarClassPath implements ClassPath {
-    List<String> jarfileEntries;
+    Set<String> jarfileEntries;
+    Set<String> jarfilePackages;
     String jarfileURL;
 
     JarClassPath(String pathname) throws NotFoundException {
         JarFile jarfile = null;
         try {
             jarfile = new JarFile(pathname);
-            jarfileEntries = new ArrayList<String>();
+            jarfileEntries = new HashSet<String>();
+            jarfilePackages = new HashSet<String>();
             for (JarEntry je:Collections.list(jarfile.entries()))
-                if (je.getName().endsWith(".class"))
+                if (je.getName().endsWith(".class")) {
                     jarfileEntries.add(je.getName());
+                    jarfilePackages.add(packageOf(je.getName(), '/'));
+                }
             jarfileURL = new File(pathname).getCanonicalFile()
                     .toURI().toURL().toString();
             return;
@@ -172,6 +179,10 @@ final class JarClassPath implements ClassPath {
 
     @Override
     public URL find(String classname) {
+        // package prefilter, most of the misses are for packages not in the jar
+        if (!jarfilePackages.contains(packageOf(classname, '.').replace('.', '/')))
+            return null;
+
         String jarname = classname.replace('.', '/') + ".class";
         if (jarfileEntries.contains(jarname))
             try {
@@ -181,6 +192,11 @@ final class JarClassPath implements ClassPath {
         return null;            // not found
     }
 
+    static String packageOf(String name, char separator) {
+        int index = name.lastIndexOf(separator);
+        return index < 0 ? "" : name.substring(0, index);
+    }
+
     @Override
     public String toString() {
         return jarfileURL == null ? "<null>" : jarfileURL.toString();
@@ -190,6 +206,22 @@ final class JarClassPath implements ClassPath {
 final class ClassPoolTail {
     protected ClassPathList pathList;
 
+    /*
+     * Lookup cache: class name -> weak reference to the ClassPath which
+     * found the class, or MISSING if no ClassPath contains it.  If some
+     * entries are not jar files (class directories, class loaders), they
+     * may get the class file later and a miss is cached as the missing
+     * generation of the lookup instead; it is valid until the generation
+     * is increased by clearMissingLookups().  The cache is cleared when
+     * the class path is modified.
+     */
+    private final ConcurrentHashMap<String,Object> lookupCache
+        = new ConcurrentHashMap<String,Object>();
+    private volatile int pathVersion;
+    private static final Object MISSING = new Object();
+    private static final AtomicInteger missingGeneration = new AtomicInteger();
+    private static final int MAX_LOOKUP_CACHE_SIZE = 10000;
+
     public ClassPoolTail() {
         pathList = null;
     }
@@ -211,6 +243,7 @@ final class ClassPoolTail {
 
     public synchronized ClassPath insertClassPath(ClassPath cp) {
         pathList = new ClassPathList(cp, pathList);
+        clearLookupCache();
         return cp;
     }
 
@@ -226,6 +259,7 @@ final class ClassPoolTail {
             list.next = tail;
         }
 
+        clearLookupCache();
         return cp;
     }
 
@@ -241,6 +275,73 @@ final class ClassPoolTail {
                     else
                         list = list.next;
             }
+
+        clearLookupCache();
+    }
+
+    /**
+     * Forgets results of previous lookups.  Call it if a class file
+     * may have been added to or removed from a class path entry.
+     */
+    public synchronized void clearLookupCache() {
+        pathVersion++;
+        lookupCache.clear();
+    }
+
+    /**
+     * Forgets the cached misses of all the class pools whose class path
+     * contains entries other than jar files.  Call it if a class file may
+     * have been added to a class directory or a class loader.
+     */
+    public static void clearMissingLookups() {
+        missingGeneration.incrementAndGet();
+    }
+
+    /**
+     * Records a class name that never exists.
+     */
+    public void recordInvalidClassName(String name) {
+        cacheLookup(name, MISSING, pathVersion);
+    }
+
+    /*
+     * The ClassPath which found the class last time, MISSING if the class
+     * was not found or null if the class is not in the cache.
+     */
+    private Object lookupCached(String classname) {
+        Object cached = lookupCache.get(classname);
+        if (cached instanceof WeakReference) {
+            cached = ((WeakReference<?>)cached).get();
+            if (cached == null)
+                lookupCache.remove(classname);
+        }
+        else if (cached instanceof Integer) {
+            if (((Integer)cached).intValue() == missingGeneration.get())
+                return MISSING;
+
+            lookupCache.remove(classname, cached);
+            return null;
+        }
+
+        return cached;
+    }
+
+    private void cacheLookup(String classname, Object value, int version) {
+        if (lookupCache.size() >= MAX_LOOKUP_CACHE_SIZE)
+            lookupCache.clear();
+
+        lookupCache.put(classname, value);
+        if (version != pathVersion)     // modified during the lookup
+            lookupCache.remove(classname);
+    }
+
+    private void cacheFound(String classname, ClassPath cp, int version) {
+        cacheLookup(classname, new WeakReference<ClassPath>(cp), version);
+    }
+
+    private void cacheMissing(String classname, int generation, int version) {
+        cacheLookup(classname, isImmutable(pathList)
+                               ? MISSING : Integer.valueOf(generation), version);
     }
 
     public ClassPath appendSystemPath() {
@@ -328,6 +429,17 @@ final class ClassPoolTail {
     InputStream openClassfile(String classname)
         throws NotFoundException
     {
+        Object cached = lookupCached(classname);
+        if (cached == MISSING)
+            return null;
+        else if (cached != null) {
+            InputStream ins = ((ClassPath)cached).openClassfile(classname);
+            if (ins != null)
+                return ins;
+        }
+
+        int version = pathVersion;
+        int generation = missingGeneration.get();
         ClassPathList list = pathList;
         InputStream ins = null;
         NotFoundException error = null;
@@ -342,12 +454,17 @@ final class ClassPoolTail {
 
             if (ins == null)
                 list = list.next;
-            else
+            else {
+                cacheFound(classname, list.path, version);
                 return ins;
+            }
         }
 
         if (error != null)
             throw error;
+
+        cacheMissing(classname, generation, version);
+
         return null;    // not found
     }
 
@@ -360,19 +477,46 @@ final class ClassPoolTail {
      * @return null if the class file could not be found.
      */
     public URL find(String classname) {
+        Object cached = lookupCached(classname);
+        if (cached == MISSING)
+            return null;
+        else if (cached != null) {
+            URL url = ((ClassPath)cached).find(classname);
+            if (url != null)
+                return url;
+        }
+
+        int version = pathVersion;
+        int generation = missingGeneration.get();
         ClassPathList list = pathList;
         URL url = null;
         while (list != null) {
             url = list.path.find(classname);
             if (url == null)
                 list = list.next;
-            else
+            else {
+                cacheFound(classname, list.path, version);
                 return url;
+            }
         }
 
+        cacheMissing(classname, generation, version);
+
         return null;
     }
 
+    /*
+     * True if the contents of all the class path entries cannot change,
+     * i.e. a class missing now is missing until the class path is modified.
+     */
+    private static boolean isImmutable(ClassPathList list) {
+        for (; list != null; list = list.next)
+            if (!(list.path instanceof JarClassPath))
+                return false;
+
+        return true;
+    }
+
     /**
      * Reads from an input stream until it reaches the end.
      *
@@ -25,6 +25,7 @@ import org.hotswap.agent.javassist.bytecode.CodeAttribute;
 import org.hotswap.agent.javassist.bytecode.CodeIterator;
 import org.hotswap.agent.javassist.bytecode.ConstPool;
 import org.hotswap.agent.javassist.bytecode.Descriptor;
+import org.hotswap.agent.javassist.bytecode.ExceptionTable;
 import org.hotswap.agent.javassist.bytecode.ExceptionsAttribute;
 import org.hotswap.agent.javassist.bytecode.LineNumberAttribute;
 import org.hotswap.agent.javassist.bytecode.LocalVariableAttribute;
@@ -37,6 +38,7 @@ import org.hotswap.agent.javassist.bytecode.StackMap;
 import org.hotswap.agent.javassist.bytecode.StackMapTable;
 import org.hotswap.agent.javassist.compiler.CompileError;
 import org.hotswap.agent.javassist.compiler.Javac;
+import org.hotswap.agent.javassist.compiler.SnippetCache;
 import org.hotswap.agent.javassist.expr.ExprEditor;
 
 /**
@@ -776,17 +778,36 @@ public abstract class CtBehavior extends CtMember {
             throw new CannotCompileException("no method body");
 
         CodeIterator iterator = ca.iterator();
-        Javac jv = new Javac(cc);
+        long structureHash = SnippetCache.isEnabled()
+                ? SnippetCache.structureHash(cc.getClassFile2()) : 0;
+        String key = SnippetCache.makeKey(src, "insertBefore", cc,
+                                          structureHash, methodInfo);
+        CodeAttribute cached = SnippetCache.get(key, cc);
         try {
-            int nvars = jv.recordParams(getParameterTypes(),
-                                        Modifier.isStatic(getModifiers()));
-            jv.recordParamNames(ca, nvars);
-            jv.recordLocalVariables(ca, 0);
-            jv.recordType(getReturnType0());
-            jv.compileStmnt(src);
-            Bytecode b = jv.getBytecode();
-            int stack = b.getMaxStack();
-            int locals = b.getMaxLocals();
+            byte[] code;
+            ExceptionTable etable;
+            int stack, locals;
+            if (cached != null) {
+                code = cached.getCode();
+                etable = cached.getExceptionTable();
+                stack = cached.getMaxStack();
+                locals = cached.getMaxLocals();
+            }
+            else {
+                Javac jv = new Javac(cc);
+                int nvars = jv.recordParams(getParameterTypes(),
+                                            Modifier.isStatic(getModifiers()));
+                jv.recordParamNames(ca, nvars);
+                jv.recordLocalVariables(ca, 0);
+                jv.recordType(getReturnType0());
+                jv.compileStmnt(src);
+                Bytecode b = jv.getBytecode();
+                SnippetCache.put(key, cc, structureHash, b);
+                code = b.get();
+                etable = b.getExceptionTable();
+                stack = b.getMaxStack();
+                locals = b.getMaxLocals();
+            }
 
             if (stack > ca.getMaxStack())
                 ca.setMaxStack(stack);
@@ -794,8 +815,8 @@ public abstract class CtBehavior extends CtMember {
             if (locals > ca.getMaxLocals())
                 ca.setMaxLocals(locals);
 
-            int pos = iterator.insertEx(b.get());
-            iterator.insert(b.getExceptionTable(), pos);
+            int pos = iterator.insertEx(code);
+            iterator.insert(etable, pos);
             if (rebuild)
                 methodInfo.rebuildStackMapIf6(cc.getClassPool(), cc.getClassFile2());
         }
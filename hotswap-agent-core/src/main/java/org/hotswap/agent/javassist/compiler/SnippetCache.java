@@ -0,0 +1,353 @@
+/*
+ * Javassist, a Java-bytecode translator toolkit.
+ * Copyright (C) 1999- Shigeru Chiba. All Rights Reserved.
+ *
+ * The contents of this file are subject to the Mozilla Public License Version
+ * 1.1 (the "License"); you may not use this file except in compliance with
+ * the License.  Alternatively, the contents of this file may be used under
+ * the terms of the GNU Lesser General Public License Version 2.1 or later,
+ * or the Apache License Version 2.0.
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis,
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License
+ * for the specific language governing rights and limitations under the
+ * License.
+ */
+
+package org.hotswap.agent.javassist.compiler;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.hotswap.agent.javassist.ClassPool;
+import org.hotswap.agent.javassist.CtClass;
+import org.hotswap.agent.javassist.NotFoundException;
+import org.hotswap.agent.javassist.bytecode.Bytecode;
+import org.hotswap.agent.javassist.bytecode.ClassFile;
+import org.hotswap.agent.javassist.bytecode.CodeAttribute;
+import org.hotswap.agent.javassist.bytecode.ConstPool;
+import org.hotswap.agent.javassist.bytecode.ExceptionTable;
+import org.hotswap.agent.javassist.bytecode.FieldInfo;
+import org.hotswap.agent.javassist.bytecode.LocalVariableAttribute;
+import org.hotswap.agent.javassist.bytecode.MethodInfo;
+
+/**
+ * Cache of compiled source snippets.
+ *
+ * <p>The same snippet is often inserted into the same class loaded by
+ * several class loaders (e.g. a web application per deployment).
+ * The cache keeps the bytecode compiled for the first class with its own
+ * constant pool and replays it into the constant pool of the next class
+ * instead of compiling the source again.
+ *
+ * <p>A cached snippet is replayed only if the target class has the same
+ * structure (name, super class, interfaces, fields and methods) and every
+ * class referenced by the bytecode has the same structure in the class pool
+ * of the target as it had when the snippet was compiled.
+ *
+ * @see org.hotswap.agent.javassist.CtBehavior#insertBefore(String)
+ */
+public final class SnippetCache {
+    private static volatile boolean enabled = true;
+
+    private static final int MAX_SIZE = 1000;
+
+    private static final Map<String,Entry> cache
+        = new LinkedHashMap<String,Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String,Entry> eldest) {
+                return size() > MAX_SIZE;
+            }
+        };
+
+    private static long hits;
+    private static long misses;
+
+    private SnippetCache() {}
+
+    /**
+     * Enables or disables the cache.  If disabled, snippets are always
+     * compiled.  The cache is enabled by default.
+     */
+    public static void setEnabled(boolean enabled) {
+        SnippetCache.enabled = enabled;
+    }
+
+    /**
+     * Returns true if compiled snippets are replayed.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    static final class Entry {
+        byte[] code;
+        ExceptionTable exceptionTable;
+        ConstPool constPool;
+        int maxStack, maxLocals;
+        String[] referencedClasses;
+        long[] referencedHashes;
+    }
+
+    /**
+     * Makes a cache key of a snippet compiled in the context of a method.
+     *
+     * @param src       the source text.
+     * @param kind      the kind of compilation, e.g. "insertBefore".
+     * @param clazz     the declaring class of the method.
+     * @param structureHash     the structure hash of the class, it is
+     *                          passed to <code>put()</code> as well.
+     * @param method    the method.
+     * @return null if the snippet cannot be cached.
+     */
+    public static String makeKey(String src, String kind, CtClass clazz,
+                                 long structureHash, MethodInfo method)
+    {
+        if (!enabled)
+            return null;
+
+        CodeAttribute ca = method.getCodeAttribute();
+        StringBuilder sb = new StringBuilder(src.length() + 128);
+        sb.append(kind).append('\0').append(clazz.getName()).append('\0')
+          .append(structureHash).append('\0')
+          .append(method.getName()).append(method.getDescriptor())
+          .append('\0').append(method.getAccessFlags())
+          .append('\0').append(ca.getMaxLocals()).append('\0');
+
+        // simple class names of the snippet are resolved by imports
+        Iterator<String> it = clazz.getClassPool().getImportedPackages();
+        while (it.hasNext())
+            sb.append(it.next()).append(';');
+
+        sb.append('\0');
+
+        // variable names visible to the snippet
+        LocalVariableAttribute va = (LocalVariableAttribute)
+            ca.getAttribute(LocalVariableAttribute.tag);
+        if (va != null) {
+            int n = va.tableLength();
+            for (int i = 0; i < n; ++i)
+                if (va.startPc(i) == 0)
+                    sb.append(va.variableName(i)).append(':')
+                      .append(va.descriptor(i)).append(':')
+                      .append(va.index(i)).append(';');
+        }
+
+        return sb.append('\0').append(src).toString();
+    }
+
+    /**
+     * Returns the cached bytecode copied into the constant pool
+     * of the given class.
+     *
+     * @param key       the key made by <code>makeKey()</code>.
+     * @param clazz     the class the bytecode is inserted into.
+     * @return null if the snippet is not cached or it is not valid
+     *              for the class.
+     */
+    public static CodeAttribute get(String key, CtClass clazz) {
+        if (key == null)
+            return null;
+
+        Entry entry;
+        synchronized (cache) {
+            entry = cache.get(key);
+        }
+
+        if (entry == null || !isValid(entry, clazz.getClassPool())) {
+            synchronized (cache) {
+                misses++;
+            }
+
+            return null;
+        }
+
+        CodeAttribute ca = new CodeAttribute(entry.constPool, entry.maxStack,
+                                             entry.maxLocals, entry.code,
+                                             entry.exceptionTable);
+        CodeAttribute copy;
+        try {
+            copy = (CodeAttribute)ca.copy(clazz.getClassFile2().getConstPool(),
+                                          null);
+        }
+        catch (CodeAttribute.RuntimeCopyException e) {
+            return null;
+        }
+
+        synchronized (cache) {
+            hits++;
+        }
+
+        return copy;
+    }
+
+    /**
+     * Records the compiled bytecode.
+     *
+     * @param key               the key made by <code>makeKey()</code>.
+     * @param clazz             the class the bytecode was compiled for.
+     * @param structureHash     the structure hash of the class before
+     *                          the compilation.
+     * @param b                 the compiled bytecode.
+     */
+    public static void put(String key, CtClass clazz, long structureHash,
+                           Bytecode b)
+    {
+        if (key == null)
+            return;
+
+        ClassFile cf = clazz.getClassFile2();
+        // the compiler modified the class (e.g. added an accessor method)
+        if (structureHash != structureHash(cf))
+            return;
+
+        CodeAttribute ca = new CodeAttribute(cf.getConstPool(),
+                                             b.getMaxStack(), b.getMaxLocals(),
+                                             b.get(), b.getExceptionTable());
+        CodeAttribute copy;
+        try {
+            copy = (CodeAttribute)ca.copy(new ConstPool(clazz.getName()),
+                                          null);
+        }
+        catch (CodeAttribute.RuntimeCopyException e) {
+            return;
+        }
+
+        Entry entry = new Entry();
+        entry.code = copy.getCode();
+        entry.exceptionTable = copy.getExceptionTable();
+        entry.constPool = copy.getConstPool();
+        entry.maxStack = copy.getMaxStack();
+        entry.maxLocals = copy.getMaxLocals();
+        if (!recordReferencedClasses(entry, clazz))
+            return;
+
+        synchronized (cache) {
+            cache.put(key, entry);
+        }
+    }
+
+    private static boolean recordReferencedClasses(Entry entry, CtClass clazz) {
+        ConstPool cp = entry.constPool;
+        ClassPool pool = clazz.getClassPool();
+        int size = cp.getSize();
+        String[] names = new String[size];
+        long[] hashes = new long[size];
+        int n = 0;
+        for (int i = 1; i < size; ++i) {
+            if (cp.getTag(i) != ConstPool.CONST_Class)
+                continue;
+
+            String name = cp.getClassInfo(i);
+            while (name.endsWith("[]"))
+                name = name.substring(0, name.length() - 2);
+
+            if (name.equals(clazz.getName()) || name.startsWith("java."))
+                continue;
+
+            try {
+                CtClass c = pool.get(name);
+                if (c.isPrimitive())
+                    continue;
+
+                names[n] = name;
+                hashes[n++] = structureHash(c.getClassFile2());
+            }
+            catch (NotFoundException e) {
+                return false;
+            }
+        }
+
+        entry.referencedClasses = new String[n];
+        entry.referencedHashes = new long[n];
+        System.arraycopy(names, 0, entry.referencedClasses, 0, n);
+        System.arraycopy(hashes, 0, entry.referencedHashes, 0, n);
+        return true;
+    }
+
+    private static boolean isValid(Entry entry, ClassPool pool) {
+        for (int i = 0; i < entry.referencedClasses.length; ++i)
+            try {
+                ClassFile cf = pool.get(entry.referencedClasses[i])
+                                   .getClassFile2();
+                if (structureHash(cf) != entry.referencedHashes[i])
+                    return false;
+            }
+            catch (NotFoundException e) {
+                return false;
+            }
+
+        return true;
+    }
+
+    /**
+     * Computes a hash of the class name, the super class, the interfaces,
+     * and names, descriptors and modifiers of fields and methods.
+     */
+    public static long structureHash(ClassFile cf) {
+        long h = hash(0xcbf29ce484222325L, cf.getName());
+        h = hash(h, cf.getSuperclass());
+        h = hash(h, cf.getAccessFlags());
+        for (String i: cf.getInterfaces())
+            h = hash(h, i);
+
+        for (FieldInfo f: cf.getFields()) {
+            h = hash(h, f.getName());
+            h = hash(h, f.getDescriptor());
+            h = hash(h, f.getAccessFlags());
+        }
+
+        for (MethodInfo m: cf.getMethods()) {
+            h = hash(h, m.getName());
+            h = hash(h, m.getDescriptor());
+            h = hash(h, m.getAccessFlags());
+        }
+
+        return h;
+    }
+
+    // FNV-1a
+    private static long hash(long h, String s) {
+        if (s != null)
+            for (int i = 0; i < s.length(); i++) {
+                h ^= s.charAt(i);
+                h *= 0x100000001b3L;
+            }
+
+        h ^= 0xff;
+        return h * 0x100000001b3L;
+    }
+
+    private static long hash(long h, int value) {
+        h ^= value;
+        return h * 0x100000001b3L;
+    }
+
+    /**
+     * Returns the number of snippets replayed from the cache.
+     */
+    public static long getHitCount() {
+        synchronized (cache) {
+            return hits;
+        }
+    }
+
+    /**
+     * Returns the number of snippets which had to be compiled.
+     */
+    public static long getMissCount() {
+        synchronized (cache) {
+            return misses;
+        }
+    }
+
+    /**
+     * Removes all cached snippets.
+     */
+    public static void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+}
@@ -18,8 +18,8 @@
  */
 package org.hotswap.agent.logging;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Create custom simple logging mechanism.
@@ -40,16 +40,21 @@ public class AgentLogger {
         return new AgentLogger(clazz);
     }
 
-    private static Map<String, Level> currentLevels = new HashMap<>();
+    private static Map<String, Level> currentLevels = new ConcurrentHashMap<>();
 
-    public static void setLevel(String classPrefix, Level level) {
+    // incremented on each level change to invalidate effective level cached in loggers
+    private static volatile int levelsVersion = 0;
+
+    public static synchronized void setLevel(String classPrefix, Level level) {
         currentLevels.put(classPrefix, level);
+        levelsVersion++;
     }
 
-    private static Level rootLevel = Level.INFO;
+    private static volatile Level rootLevel = Level.INFO;
 
-    public static void setLevel(Level level) {
+    public static synchronized void setLevel(Level level) {
         rootLevel = level;
+        levelsVersion++;
     }
 
     private static AgentLoggerHandler handler = new AgentLoggerHandler();
@@ -80,34 +85,43 @@ public class AgentLogger {
 
     private Class clazz;
 
+    // effective level of this logger - (levelsVersion << 8) | level ordinal, -1 if not resolved yet.
+    // Version and level are kept in a single field to be updated atomically without locking.
+    private volatile long effectiveLevel = -1;
+
     private AgentLogger(Class clazz) {
         this.clazz = clazz;
     }
 
 
     public boolean isLevelEnabled(Level level) {
+        long cached = effectiveLevel;
+        int version = levelsVersion;
+        if (cached < 0 || (int) (cached >>> 8) != version) {
+            cached = ((long) version << 8) | resolveLevel().ordinal();
+            effectiveLevel = cached;
+        }
+
+        // levels are ordered from most serious, required level must not follow the class level
+        return level.ordinal() <= (int) (cached & 0xFF);
+    }
+
+    // find level for the longest matching class prefix
+    private Level resolveLevel() {
         Level classLevel = rootLevel;
 
         String className = clazz.getName();
         String longestPrefix = "";
-        for (String classPrefix : currentLevels.keySet()) {
+        for (Map.Entry<String, Level> entry : currentLevels.entrySet()) {
+            String classPrefix = entry.getKey();
             if (className.startsWith(classPrefix)) {
                 if (classPrefix.length() > longestPrefix.length()) {
                     longestPrefix = classPrefix;
-                    classLevel = currentLevels.get(classPrefix);
+                    classLevel = entry.getValue();
                 }
             }
         }
-
-        // iterate levels in order from most serious. If classLevel is first, it preciedes required level and log is disabled
-        for (Level l : Level.values()) {
-            if (l == level)
-                return true;
-            if (l == classLevel)
-                return false;
-        }
-
-        throw new IllegalArgumentException("Should not happen.");
+        return classLevel;
     }
 
     public void log(Level level, String message, Throwable throwable, Object... args) {
@@ -23,6 +23,7 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.TimeZone;
 
 /**
  * Simple handler to log to output stream (default is system.out).
@@ -31,10 +32,23 @@ import java.util.Date;
  */
 public class AgentLoggerHandler {
 
+    static final String PREFIX = "HOTSWAP AGENT: ";
+
+    private static final String DEFAULT_DATE_TIME_FORMAT = "HH:mm:ss.SSS";
+
+    // do not keep huge buffers from exception traces in thread locals
+    private static final int MAX_BUFFER_CAPACITY = 8192;
+
+    // reusable buffer, taken out while in use to handle logging from argument's toString()
+    private static final ThreadLocal<StringBuilder> BUFFER = new ThreadLocal<>();
+
     // stream to receive the log
     PrintStream outputStream;
 
-    SimpleDateFormat sdf = new SimpleDateFormat("HH:mm:ss.SSS");
+    // custom date format, null for default HH:mm:ss.SSS formatted without allocation
+    SimpleDateFormat sdf;
+
+    TimeZone timeZone = TimeZone.getDefault();
 
     /**
      * Setup custom stream (default is System.out).
@@ -47,36 +61,114 @@ public class AgentLoggerHandler {
 
     // print a message to System.out and optionally to custom stream
     protected void printMessage(String message) {
-        String log = "HOTSWAP AGENT: " + sdf.format(new Date()) +  " " + message;
+        StringBuilder sb = acquireBuffer();
+        sb.append(PREFIX);
+        appendDateTime(sb, System.currentTimeMillis());
+        sb.append(' ').append(message);
+        String log = sb.toString();
+        releaseBuffer(sb);
+        write(log);
+    }
+
+    /**
+     * Write complete log line to System.out and optionally to custom stream.
+     *
+     * @param log log line including prefix and time
+     */
+    protected void write(String log) {
         System.out.println(log);
+        PrintStream outputStream = this.outputStream;
         if (outputStream != null)
             outputStream.println(log);
     }
 
     public void print(Class clazz, AgentLogger.Level level, String message, Throwable throwable, Object... args) {
+        StringBuilder sb = acquireBuffer();
+        sb.append(PREFIX);
+        appendDateTime(sb, System.currentTimeMillis());
+        sb.append(' ').append(level).append(" (").append(clazz.getName()).append(") - ");
 
         // replace {} in string with actual parameters
-        String messageWithArgs = message;
-        for (Object arg : args) {
-            int index = messageWithArgs.indexOf("{}");
-            if (index >= 0) {
-                messageWithArgs = messageWithArgs.substring(0, index) + String.valueOf(arg) + messageWithArgs.substring(index + 2);
+        appendMessage(sb, message, args);
+
+        if (throwable != null) {
+            sb.append('\n');
+            sb.append(formatErrorTrace(throwable));
+        }
+
+        String log = sb.toString();
+        releaseBuffer(sb);
+        write(log);
+    }
+
+    /**
+     * Append message with {} placeholders replaced by arguments in a single pass.
+     * Placeholders without argument are left as is, unused arguments are ignored.
+     */
+    static void appendMessage(StringBuilder sb, String message, Object[] args) {
+        if (message == null) {
+            sb.append((String) null);
+            return;
+        }
+
+        int argCount = args == null ? 0 : args.length;
+        int argIndex = 0;
+        int start = 0;
+        int index;
+        while (argIndex < argCount && (index = message.indexOf("{}", start)) >= 0) {
+            sb.append(message, start, index);
+            sb.append(args[argIndex++]);
+            start = index + 2;
+        }
+        sb.append(message, start, message.length());
+    }
+
+    private void appendDateTime(StringBuilder sb, long millis) {
+        SimpleDateFormat sdf = this.sdf;
+        if (sdf != null) {
+            // SimpleDateFormat is not thread safe
+            synchronized (sdf) {
+                sb.append(sdf.format(new Date(millis)));
             }
+            return;
+        }
+
+        long localMillis = millis + timeZone.getOffset(millis);
+        int millisOfDay = (int) (localMillis % 86400000L);
+        if (millisOfDay < 0) {
+            millisOfDay += 86400000;
+        }
+        append2(sb, millisOfDay / 3600000).append(':');
+        append2(sb, millisOfDay / 60000 % 60).append(':');
+        append2(sb, millisOfDay / 1000 % 60).append('.');
+        int ms = millisOfDay % 1000;
+        if (ms < 100) {
+            sb.append('0');
         }
+        append2(sb, ms);
+    }
 
-        StringBuffer stringBuffer = new StringBuffer();
-        stringBuffer.append(level);
-        stringBuffer.append(" (");
-        stringBuffer.append(clazz.getName());
-        stringBuffer.append(") - ");
-        stringBuffer.append(messageWithArgs);
+    private static StringBuilder append2(StringBuilder sb, int value) {
+        if (value < 10) {
+            sb.append('0');
+        }
+        return sb.append(value);
+    }
 
-        if (throwable != null) {
-            stringBuffer.append("\n");
-            stringBuffer.append(formatErrorTrace(throwable));
+    private static StringBuilder acquireBuffer() {
+        StringBuilder sb = BUFFER.get();
+        if (sb == null) {
+            return new StringBuilder(256);
         }
+        BUFFER.set(null);
+        return sb;
+    }
 
-        printMessage(stringBuffer.toString());
+    private static void releaseBuffer(StringBuilder sb) {
+        if (sb.capacity() <= MAX_BUFFER_CAPACITY) {
+            sb.setLength(0);
+            BUFFER.set(sb);
+        }
     }
 
     private String formatErrorTrace(Throwable throwable) {
@@ -86,6 +178,6 @@ public class AgentLoggerHandler {
     }
 
     public void setDateTimeFormat(String dateTimeFormat) {
-        sdf = new SimpleDateFormat(dateTimeFormat);
+        sdf = DEFAULT_DATE_TIME_FORMAT.equals(dateTimeFormat) ? null : new SimpleDateFormat(dateTimeFormat);
     }
 }
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous handler - log lines are formatted by the calling thread and written to output by a background
+ * writer thread.
+ * <p/>
+ * Lines are passed through a bounded lock free ring buffer (multiple producers, single consumer). When the buffer
+ * is full, the {@link OverflowPolicy} decides whether the line is dropped or the caller waits for a free slot.
+ * Number of dropped lines is reported to the output as soon as the writer catches up.
+ */
+public class AsyncAgentLoggerHandler extends AgentLoggerHandler {
+
+    /**
+     * What to do when the ring buffer is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Discard the new log line and count it as dropped. Logging never blocks.
+         */
+        DROP,
+        /**
+         * Wait until the writer frees a slot. No line is lost, the caller may be slowed down by the output.
+         */
+        WAIT
+    }
+
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final AtomicReferenceArray<String> buffer;
+    private final int mask;
+    private final OverflowPolicy overflowPolicy;
+
+    // next slot to claim by producers
+    private final AtomicLong tail = new AtomicLong();
+    // next slot to read by the writer, written only by the writer thread
+    private volatile long head;
+    // number of lines already passed to the output, written only by the writer thread
+    private volatile long written;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final Thread writer;
+    private volatile boolean writerParked;
+
+    /**
+     * Create handler with default buffer size and DROP policy.
+     */
+    public AsyncAgentLoggerHandler() {
+        this(DEFAULT_BUFFER_SIZE, OverflowPolicy.DROP);
+    }
+
+    /**
+     * Create handler.
+     *
+     * @param bufferSize     number of buffered lines, rounded up to power of two
+     * @param overflowPolicy policy when the buffer is full
+     */
+    public AsyncAgentLoggerHandler(int bufferSize, OverflowPolicy overflowPolicy) {
+        int capacity = Integer.highestOneBit(Math.max(2, bufferSize) - 1) << 1;
+        this.buffer = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        this.overflowPolicy = overflowPolicy;
+
+        writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeLoop();
+            }
+        }, "HotswapAgent Log Writer");
+        writer.setDaemon(true);
+        writer.start();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                flush();
+            }
+        }, "HotswapAgent Log Flush"));
+    }
+
+    /**
+     * Take over output settings of the previous handler.
+     *
+     * @param handler handler to copy output stream and date format from
+     */
+    public void copySettings(AgentLoggerHandler handler) {
+        outputStream = handler.outputStream;
+        sdf = handler.sdf;
+        timeZone = handler.timeZone;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * @return number of lines dropped so far because of full buffer
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    @Override
+    protected void write(String log) {
+        while (!offer(log)) {
+            if (overflowPolicy == OverflowPolicy.DROP || Thread.currentThread() == writer) {
+                dropped.incrementAndGet();
+                return;
+            }
+            unparkWriter();
+            Thread.yield();
+        }
+        if (writerParked) {
+            unparkWriter();
+        }
+    }
+
+    private boolean offer(String log) {
+        long t;
+        do {
+            t = tail.get();
+            if (t - head >= buffer.length()) {
+                return false;
+            }
+        } while (!tail.compareAndSet(t, t + 1));
+
+        // publish the line, the writer waits for the slot to become non null
+        buffer.lazySet((int) (t & mask), log);
+        return true;
+    }
+
+    // single consumer
+    private String poll() {
+        long h = head;
+        int index = (int) (h & mask);
+        String log = buffer.get(index);
+        if (log == null) {
+            return null;
+        }
+        buffer.lazySet(index, null);
+        head = h + 1;
+        return log;
+    }
+
+    private void unparkWriter() {
+        writerParked = false;
+        LockSupport.unpark(writer);
+    }
+
+    private void writeLoop() {
+        long reportedDropped = 0;
+        while (true) {
+            String log = poll();
+            if (log != null) {
+                super.write(log);
+                written++;
+                continue;
+            }
+
+            long droppedCount = dropped.get();
+            if (droppedCount != reportedDropped) {
+                super.write(PREFIX + "WARNING (" + AsyncAgentLoggerHandler.class.getName() + ") - "
+                        + (droppedCount - reportedDropped) + " log messages dropped, log buffer full.");
+                reportedDropped = droppedCount;
+            }
+
+            writerParked = true;
+            // re-check after announcing park to avoid missed wakeup, park with timeout as a safety net
+            if (head == tail.get()) {
+                LockSupport.parkNanos(this, 100_000_000L);
+            }
+            writerParked = false;
+        }
+    }
+
+    /**
+     * Wait until all lines buffered so far are written (or timeout elapsed).
+     */
+    public void flush() {
+        long target = tail.get();
+        long deadline = System.nanoTime() + 1_000_000_000L;
+        while (written < target && System.nanoTime() < deadline) {
+            unparkWriter();
+            Thread.yield();
+        }
+    }
+}
@@ -18,12 +18,18 @@
  */
 package org.hotswap.agent.plugin.jdk;
 
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.hotswap.agent.annotation.LoadEvent;
 import org.hotswap.agent.annotation.OnClassLoadEvent;
 import org.hotswap.agent.annotation.Plugin;
-import org.hotswap.agent.javassist.CtClass;
+import org.hotswap.agent.command.Command;
+import org.hotswap.agent.config.PluginManager;
 import org.hotswap.agent.javassist.bytecode.ClassFile;
 import org.hotswap.agent.logging.AgentLogger;
 import org.hotswap.agent.util.ReflectionHelper;
@@ -53,56 +59,99 @@ public class JdkPlugin {
      */
     public static boolean reloadFlag;
 
+    // classes redefined since the last flush
+    private static final Set<Class<?>> redefinedClasses = Collections.newSetFromMap(new ConcurrentHashMap<Class<?>, Boolean>());
+
+    private static final Command flushCachesCommand = new FlushCachesCommand();
+
+    /**
+     * Collect redefined classes and flush them from JDK caches in one pass per batch. The flush command is
+     * scheduled on each redefinition with the default timeout, an equal command scheduled again replaces
+     * the waiting one. Classes redefined in one batch are hence flushed together, once no class was redefined
+     * for the timeout. The hook runs from the transformer, i.e. before the new definitions are installed,
+     * the timeout gives the JVM time to finish the redefinition before the flush.
+     */
     @OnClassLoadEvent(classNameRegexp = ".*", events = LoadEvent.REDEFINE, skipSynthetic=false)
-    public static void flushBeanIntrospectorCaches(ClassLoader classLoader, CtClass ctClass) {
-        try {
-            LOGGER.debug("Flushing {} from introspector", ctClass.getName());
+    public static void flushJdkCaches(Class<?> classBeingRedefined) {
+        if (classBeingRedefined == null) {
+            return;
+        }
+        redefinedClasses.add(classBeingRedefined);
+        PluginManager.getInstance().getScheduler().scheduleCommand(flushCachesCommand);
+    }
 
-            Class<?> clazz = classLoader.loadClass(ctClass.getName());
-            Class<?> threadGroupCtxClass = classLoader.loadClass("java.beans.ThreadGroupContext");
-            Class<?> introspectorClass = classLoader.loadClass("java.beans.Introspector");
+    /**
+     * Flush all classes redefined since the last flush from JDK caches.
+     */
+    public static void flushRedefinedClasses() {
+        Set<Class<?>> classes = new HashSet<>();
+        for (Iterator<Class<?>> it = redefinedClasses.iterator(); it.hasNext(); ) {
+            classes.add(it.next());
+            it.remove();
+        }
+        if (!classes.isEmpty()) {
+            LOGGER.debug("Flushing {} redefined classes from JDK caches", classes.size());
+            flushBeanIntrospectorCaches(classes);
+            flushIntrospectClassInfoCache();
+            flushObjectStreamCaches();
+        }
+        reloadFlag = false;
+    }
+
+    /**
+     * Remove classes from bean info of each ThreadGroupContext (single pass over contexts table)
+     * and from Introspector.declaredMethodCache (java 8).
+     */
+    static void flushBeanIntrospectorCaches(Set<Class<?>> classes) {
+        try {
+            Class<?> threadGroupCtxClass = Class.forName("java.beans.ThreadGroupContext");
+            Class<?> introspectorClass = Class.forName("java.beans.Introspector");
 
-            Object declaredMethodCache = ReflectionHelper.get(null, introspectorClass, "declaredMethodCache");
+            Object declaredMethodCache = ReflectionHelper.getNoException(null, introspectorClass, "declaredMethodCache");
+            Object lock = declaredMethodCache != null ? declaredMethodCache : introspectorClass;
 
-            synchronized (declaredMethodCache) {
+            synchronized (lock) {
                 Object contexts = ReflectionHelper.get(null, threadGroupCtxClass, "contexts");
                 Object table[] = (Object[]) ReflectionHelper.get(contexts, "table");
 
                 if (table != null) {
                     for (Object o: table) {
-                        if (o != null) {
-                            Object threadGroupContext = ReflectionHelper.get(o, "value");
+                        // entries with the same hash are chained
+                        for (Object entry = o; entry != null; entry = ReflectionHelper.get(entry, "next")) {
+                            Object threadGroupContext = ReflectionHelper.get(entry, "value");
                             if (threadGroupContext != null) {
                                 LOGGER.trace("Removing from threadGroupContext");
-                                ReflectionHelper.invoke(threadGroupContext, threadGroupCtxClass, "removeBeanInfo",
-                                        new Class[] { Class.class }, clazz);
+                                for (Class<?> clazz : classes) {
+                                    ReflectionHelper.invoke(threadGroupContext, threadGroupCtxClass, "removeBeanInfo",
+                                            new Class[] { Class.class }, clazz);
+                                }
                             }
                         }
                     }
                 }
 
-                LOGGER.trace("Removing class from declaredMethodCache.");
-                ReflectionHelper.invoke(declaredMethodCache, declaredMethodCache.getClass(), "put",
-                        new Class[] { Object.class, Object.class }, clazz, null);
+                if (declaredMethodCache != null) {
+                    LOGGER.trace("Removing classes from declaredMethodCache.");
+                    for (Class<?> clazz : classes) {
+                        ReflectionHelper.invoke(declaredMethodCache, declaredMethodCache.getClass(), "put",
+                                new Class[] { Object.class, Object.class }, clazz, null);
+                    }
+                }
             }
         } catch (Exception e) {
-            LOGGER.error("classReload() exception {}.", e.getMessage());
-        } finally {
-            reloadFlag = false;
+            LOGGER.error("flushBeanIntrospectorCaches() exception {}.", e.getMessage());
         }
     }
 
-    @OnClassLoadEvent(classNameRegexp = ".*", events = LoadEvent.REDEFINE, skipSynthetic=false)
-    public static void flushIntrospectClassInfoCache(ClassLoader classLoader, CtClass ctClass) {
+    static void flushIntrospectClassInfoCache() {
         // com.sun.beans.introspect.ClassInfo was intruduced in j9
         if (ClassFile.MAJOR_VERSION < ClassFile.JAVA_9) {
             return;
         }
         try {
-            LOGGER.debug("Flushing {} from com.sun.beans.introspect.ClassInfo cache", ctClass.getName());
+            LOGGER.trace("Flushing com.sun.beans.introspect.ClassInfo cache");
 
-            Class<?> clazz = classLoader.loadClass(ctClass.getName());
-            Class<?> classInfo = classLoader.loadClass("com.sun.beans.introspect.ClassInfo");
+            Class<?> classInfo = Class.forName("com.sun.beans.introspect.ClassInfo");
 
             Object cache = ReflectionHelper.get(null, classInfo, "CACHE");
             if (cache != null) {
@@ -110,18 +159,14 @@ public class JdkPlugin {
             }
         } catch (Exception e) {
             LOGGER.error("flushClassInfoCache() exception {}.", e.getMessage());
-        } finally {
-            reloadFlag = false;
         }
     }
 
-    @OnClassLoadEvent(classNameRegexp = ".*", events = LoadEvent.REDEFINE, skipSynthetic=false)
-    public static void flushObjectStreamCaches(ClassLoader classLoader, CtClass ctClass) {
+    static void flushObjectStreamCaches() {
         try {
-            LOGGER.debug("Flushing {} from ObjectStreamClass caches", ctClass.getName());
+            LOGGER.trace("Flushing ObjectStreamClass caches");
 
-            Class<?> clazz = classLoader.loadClass(ctClass.getName());
-            Class<?> objectStreamClassCache = classLoader.loadClass("java.io.ObjectStreamClass$Caches");
+            Class<?> objectStreamClassCache = Class.forName("java.io.ObjectStreamClass$Caches");
 
             Map localDescs = (Map) ReflectionHelper.get(null, objectStreamClassCache, "localDescs");
 
@@ -136,9 +181,33 @@ public class JdkPlugin {
             }
 
         } catch (Exception e) {
-            LOGGER.error("classReload() exception {}.", e.getMessage());
-        } finally {
-            reloadFlag = false;
+            LOGGER.error("flushObjectStreamCaches() exception {}.", e.getMessage());
+        }
+    }
+
+    /**
+     * Flush classes collected by flushJdkCaches(). All instances are equal - a scheduled command is replaced
+     * by a new one and its timer is restarted.
+     */
+    private static class FlushCachesCommand implements Command {
+        @Override
+        public void executeCommand() {
+            flushRedefinedClasses();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof FlushCachesCommand;
+        }
+
+        @Override
+        public int hashCode() {
+            return FlushCachesCommand.class.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "FlushJdkCachesCommand{}";
         }
     }
 
@@ -0,0 +1,386 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming patch of a class file for trivial transformations - change access flags of the class, a field or
+ * a method or add a field.
+ * <p/>
+ * Only the structure (constant pool, fields and methods headers) is scanned, attributes and method code are
+ * not parsed at all. Untouched bytes are copied to the result as is - there is no CtClass creation and
+ * no stack map frames recomputation. Use CtClass for anything else.
+ * <p/>
+ * Usage in a plugin:
+ * <pre>
+ * &#64;OnClassLoadEvent(classNameRegexp = "org.hibernate.internal.SessionFactoryImpl")
+ * public static void removeFinalFlag(ClassFilePatcher patcher) {
+ *     patcher.setAccessFlags(patcher.getAccessFlags() &amp; ~Modifier.FINAL);
+ * }
+ * </pre>
+ * Access flags use values of {@link java.lang.reflect.Modifier} (same as in class file format).
+ */
+public class ClassFilePatcher {
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private final byte[] bytes;
+
+    // offset of each constant pool entry (index 0 and second slot of long/double is 0)
+    private final int[] cpOffsets;
+    private final int cpEnd;
+    private final int fieldsCountOffset;
+    private final int methodsCountOffset;
+    private final int attributesCountOffset;
+
+    // offsets of fields and methods (access flags position)
+    private final int[] fieldOffsets;
+    private final int[] methodOffsets;
+
+    // offset -> new access flags value
+    private final Map<Integer, Integer> flagPatches = new LinkedHashMap<>();
+
+    // new constant pool UTF8 entries and new fields
+    private final List<String> newUtf8 = new ArrayList<>();
+    private final List<int[]> newFields = new ArrayList<>();
+
+    /**
+     * Scan the class file.
+     *
+     * @param bytes class file bytes, not modified by this patcher
+     * @throws IllegalArgumentException if the bytes are not a valid class file
+     */
+    public ClassFilePatcher(byte[] bytes) {
+        this.bytes = bytes;
+        try {
+            if (readInt(0) != MAGIC) {
+                throw new IllegalArgumentException("Not a class file (bad magic).");
+            }
+            int cpCount = readU2(8);
+            cpOffsets = new int[cpCount];
+            int pos = 10;
+            for (int i = 1; i < cpCount; i++) {
+                cpOffsets[i] = pos;
+                int tag = bytes[pos] & 0xFF;
+                switch (tag) {
+                    case 1: // Utf8
+                        pos += 3 + readU2(pos + 1);
+                        break;
+                    case 3: // Integer
+                    case 4: // Float
+                    case 9: // Fieldref
+                    case 10: // Methodref
+                    case 11: // InterfaceMethodref
+                    case 12: // NameAndType
+                    case 17: // Dynamic
+                    case 18: // InvokeDynamic
+                        pos += 5;
+                        break;
+                    case 5: // Long
+                    case 6: // Double
+                        pos += 9;
+                        i++;
+                        break;
+                    case 7: // Class
+                    case 8: // String
+                    case 16: // MethodType
+                    case 19: // Module
+                    case 20: // Package
+                        pos += 3;
+                        break;
+                    case 15: // MethodHandle
+                        pos += 4;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown constant pool tag " + tag + " at " + pos);
+                }
+            }
+            cpEnd = pos;
+
+            // access_flags, this_class, super_class, interfaces
+            pos += 6;
+            pos += 2 + 2 * readU2(pos);
+
+            fieldsCountOffset = pos;
+            fieldOffsets = new int[readU2(pos)];
+            pos += 2;
+            for (int i = 0; i < fieldOffsets.length; i++) {
+                fieldOffsets[i] = pos;
+                pos = skipMember(pos);
+            }
+
+            methodsCountOffset = pos;
+            methodOffsets = new int[readU2(pos)];
+            pos += 2;
+            for (int i = 0; i < methodOffsets.length; i++) {
+                methodOffsets[i] = pos;
+                pos = skipMember(pos);
+            }
+
+            attributesCountOffset = pos;
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated class file.", e);
+        }
+    }
+
+    // skip field_info or method_info, returns position after the member
+    private int skipMember(int pos) {
+        int attributesCount = readU2(pos + 6);
+        pos += 8;
+        for (int i = 0; i < attributesCount; i++) {
+            pos += 6 + readInt(pos + 2);
+        }
+        return pos;
+    }
+
+    /**
+     * @return class name in dotted form
+     */
+    public String getClassName() {
+        int classIndex = readU2(cpEnd + 2);
+        return readUtf8(readU2(cpOffsets[classIndex] + 1)).replace('/', '.');
+    }
+
+    public int getAccessFlags() {
+        return getFlags(cpEnd);
+    }
+
+    public void setAccessFlags(int accessFlags) {
+        flagPatches.put(cpEnd, accessFlags);
+    }
+
+    /**
+     * @return field access flags or -1 if the field does not exist
+     */
+    public int getFieldAccessFlags(String name) {
+        int offset = findMember(fieldOffsets, name, null);
+        return offset < 0 ? -1 : getFlags(offset);
+    }
+
+    /**
+     * Set access flags of an existing field.
+     *
+     * @return false if the field does not exist
+     */
+    public boolean setFieldAccessFlags(String name, int accessFlags) {
+        int offset = findMember(fieldOffsets, name, null);
+        if (offset < 0) {
+            return false;
+        }
+        flagPatches.put(offset, accessFlags);
+        return true;
+    }
+
+    /**
+     * @param descriptor method descriptor, e.g. "(Ljava/lang/String;)V"
+     * @return method access flags or -1 if the method does not exist
+     */
+    public int getMethodAccessFlags(String name, String descriptor) {
+        int offset = findMember(methodOffsets, name, descriptor);
+        return offset < 0 ? -1 : getFlags(offset);
+    }
+
+    /**
+     * Set access flags of an existing method.
+     *
+     * @param descriptor method descriptor, null for all methods of the name (overloads)
+     * @return false if no method matches
+     */
+    public boolean setMethodAccessFlags(String name, String descriptor, int accessFlags) {
+        boolean found = false;
+        for (int offset : methodOffsets) {
+            if (matches(offset, name, descriptor)) {
+                flagPatches.put(offset, accessFlags);
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    public boolean hasField(String name) {
+        return findMember(fieldOffsets, name, null) >= 0;
+    }
+
+    /**
+     * @param descriptor method descriptor, null for any descriptor
+     */
+    public boolean hasMethod(String name, String descriptor) {
+        return findMember(methodOffsets, name, descriptor) >= 0;
+    }
+
+    /**
+     * Check class level attribute, e.g. "RuntimeVisibleAnnotations" to find out if the class is annotated at all
+     * without parsing the annotations.
+     *
+     * @param name attribute name
+     */
+    public boolean hasAttribute(String name) {
+        int attributesCount = readU2(attributesCountOffset);
+        int pos = attributesCountOffset + 2;
+        for (int i = 0; i < attributesCount; i++) {
+            if (name.equals(readUtf8(readU2(pos)))) {
+                return true;
+            }
+            pos += 6 + readInt(pos + 2);
+        }
+        return false;
+    }
+
+    /**
+     * Add a new field without initial value.
+     *
+     * @param accessFlags field access flags
+     * @param name        field name
+     * @param descriptor  field type descriptor, e.g. "Ljava/util/Map;"
+     * @throws IllegalArgumentException if the field already exists
+     */
+    public void addField(int accessFlags, String name, String descriptor) {
+        if (hasField(name)) {
+            throw new IllegalArgumentException("Field " + name + " already exists in " + getClassName());
+        }
+        for (int[] field : newFields) {
+            if (name.equals(utf8(field[1]))) {
+                throw new IllegalArgumentException("Field " + name + " already added to " + getClassName());
+            }
+        }
+        newFields.add(new int[]{accessFlags, utf8Index(name), utf8Index(descriptor)});
+    }
+
+    /**
+     * @return true if any change was requested
+     */
+    public boolean isModified() {
+        return !flagPatches.isEmpty() || !newFields.isEmpty();
+    }
+
+    /**
+     * Create patched class file.
+     *
+     * @return new class file bytes (the original bytes if not modified)
+     */
+    public byte[] toBytecode() {
+        if (!isModified()) {
+            return bytes;
+        }
+
+        byte[] patched = bytes.clone();
+        for (Map.Entry<Integer, Integer> patch : flagPatches.entrySet()) {
+            writeU2(patched, patch.getKey(), patch.getValue());
+        }
+        if (newFields.isEmpty()) {
+            return patched;
+        }
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(bytes.length + 64 * newFields.size());
+        DataOutputStream out = new DataOutputStream(bos);
+        try {
+            out.write(patched, 0, 8);
+            out.writeShort(cpOffsets.length + newUtf8.size());
+            out.write(patched, 10, cpEnd - 10);
+            for (String utf8 : newUtf8) {
+                out.writeByte(1);
+                out.writeUTF(utf8);
+            }
+            out.write(patched, cpEnd, fieldsCountOffset - cpEnd);
+            out.writeShort(fieldOffsets.length + newFields.size());
+            out.write(patched, fieldsCountOffset + 2, methodsCountOffset - fieldsCountOffset - 2);
+            for (int[] field : newFields) {
+                out.writeShort(field[0]);
+                out.writeShort(field[1]);
+                out.writeShort(field[2]);
+                out.writeShort(0);
+            }
+            out.write(patched, methodsCountOffset, patched.length - methodsCountOffset);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unexpected IOException on byte array stream.", e);
+        }
+        return bos.toByteArray();
+    }
+
+    private int getFlags(int offset) {
+        Integer patched = flagPatches.get(offset);
+        return patched != null ? patched : readU2(offset);
+    }
+
+    private int findMember(int[] offsets, String name, String descriptor) {
+        for (int offset : offsets) {
+            if (matches(offset, name, descriptor)) {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    private boolean matches(int offset, String name, String descriptor) {
+        return name.equals(readUtf8(readU2(offset + 2)))
+                && (descriptor == null || descriptor.equals(readUtf8(readU2(offset + 4))));
+    }
+
+    // index of an existing or new UTF8 constant
+    private int utf8Index(String value) {
+        for (int i = 1; i < cpOffsets.length; i++) {
+            if (cpOffsets[i] != 0 && bytes[cpOffsets[i]] == 1 && value.equals(readUtf8(i))) {
+                return i;
+            }
+        }
+        int index = newUtf8.indexOf(value);
+        if (index < 0) {
+            if (cpOffsets.length + newUtf8.size() >= 0xFFFF) {
+                throw new IllegalStateException("Constant pool of " + getClassName() + " is full.");
+            }
+            newUtf8.add(value);
+            index = newUtf8.size() - 1;
+        }
+        return cpOffsets.length + index;
+    }
+
+    private String utf8(int index) {
+        return index < cpOffsets.length ? readUtf8(index) : newUtf8.get(index - cpOffsets.length);
+    }
+
+    private String readUtf8(int index) {
+        int offset = cpOffsets[index];
+        try {
+            return new DataInputStream(new ByteArrayInputStream(bytes, offset + 1, readU2(offset + 1) + 2)).readUTF();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid UTF8 constant at index " + index, e);
+        }
+    }
+
+    private int readU2(int pos) {
+        return ((bytes[pos] & 0xFF) << 8) | (bytes[pos + 1] & 0xFF);
+    }
+
+    private int readInt(int pos) {
+        return (readU2(pos) << 16) | readU2(pos + 2);
+    }
+
+    private static void writeU2(byte[] target, int pos, int value) {
+        target[pos] = (byte) (value >>> 8);
+        target[pos + 1] = (byte) value;
+    }
+}
@@ -20,6 +20,11 @@ package org.hotswap.agent.util;
 
 import java.lang.instrument.ClassFileTransformer;
 import java.lang.instrument.IllegalClassFormatException;
+import java.lang.instrument.Instrumentation;
+import java.lang.instrument.UnmodifiableClassException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.security.ProtectionDomain;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -32,12 +37,16 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 import org.hotswap.agent.annotation.handler.PluginClassFileTransformer;
 import org.hotswap.agent.command.Command;
 import org.hotswap.agent.config.PluginManager;
+import org.hotswap.agent.javassist.ClassPool;
 import org.hotswap.agent.logging.AgentLogger;
+import org.hotswap.agent.util.jfr.FlightRecorderEvents;
+import org.hotswap.agent.util.metrics.ReloadMetrics;
 
 /**
  * Java instrumentation transformer.
@@ -80,6 +89,20 @@ public class HotswapTransformer implements ClassFileTransformer {
 
     private List<Pattern> excludedClassLoaderPatterns;
 
+    // passive mode - only record classloaders, no transformation until the agent is activated
+    private volatile boolean passive;
+
+    // classloaders seen in passive mode (weak keys), initialized on activation. Lookups are lock free,
+    // the lock is taken only to record a new classloader and to switch to active mode.
+    private final Map<ClassLoaderKey, Boolean> passiveClassLoaders = new ConcurrentHashMap<>();
+    private final ReferenceQueue<ClassLoader> passiveClassLoadersQueue = new ReferenceQueue<>();
+    private volatile boolean passiveBootstrapClassLoader;
+
+    // retransformation of classes loaded before activation is handled as a class definition
+    private final ThreadLocal<Boolean> definitionRetransform = new ThreadLocal<>();
+
+    private static final Command resumeReflectionCacheCommand = new ResumeReflectionCacheCommand();
+
     /**
      * @param excludedClassLoaderPatterns
      *            the excludedClassLoaderPatterns to set
@@ -88,6 +111,127 @@ public class HotswapTransformer implements ClassFileTransformer {
         this.excludedClassLoaderPatterns = excludedClassLoaderPatterns;
     }
 
+    /**
+     * Switch the transformer to passive mode. In passive mode the transformer only records classloaders
+     * and does not call any registered transformer (see {@link #activate()}).
+     *
+     * @param passive true to switch to passive mode
+     */
+    public void setPassive(boolean passive) {
+        this.passive = passive;
+    }
+
+    /**
+     * @return true if the transformer is in passive mode
+     */
+    public boolean isPassive() {
+        return passive;
+    }
+
+    /**
+     * Leave passive mode and initialize all classloaders recorded so far.
+     */
+    public void activate() {
+        List<ClassLoader> classLoaders;
+        synchronized (passiveClassLoaders) {
+            passive = false;
+            classLoaders = new ArrayList<>();
+            if (passiveBootstrapClassLoader) {
+                classLoaders.add(null);
+            }
+            for (ClassLoaderKey key : passiveClassLoaders.keySet()) {
+                ClassLoader classLoader = key.get();
+                if (classLoader != null) {
+                    classLoaders.add(classLoader);
+                }
+            }
+            passiveClassLoaders.clear();
+            passiveBootstrapClassLoader = false;
+        }
+        for (ClassLoader classLoader : classLoaders) {
+            ensureClassLoaderInitialized(classLoader, null);
+        }
+    }
+
+    private boolean isPassiveClassLoaderRecorded(ClassLoader classLoader) {
+        if (classLoader == null) {
+            return passiveBootstrapClassLoader;
+        }
+        return passiveClassLoaders.containsKey(new ClassLoaderKey(classLoader, null));
+    }
+
+    // caller holds passiveClassLoaders lock
+    private void recordPassiveClassLoader(ClassLoader classLoader) {
+        if (classLoader == null) {
+            passiveBootstrapClassLoader = true;
+            return;
+        }
+        Reference<? extends ClassLoader> collected;
+        while ((collected = passiveClassLoadersQueue.poll()) != null) {
+            passiveClassLoaders.remove(collected);
+        }
+        passiveClassLoaders.put(new ClassLoaderKey(classLoader, passiveClassLoadersQueue), Boolean.TRUE);
+    }
+
+    // weak identity key of a classloader
+    private static class ClassLoaderKey extends WeakReference<ClassLoader> {
+        private final int hash;
+
+        ClassLoaderKey(ClassLoader classLoader, ReferenceQueue<ClassLoader> queue) {
+            super(classLoader, queue);
+            hash = System.identityHashCode(classLoader);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ClassLoaderKey)) {
+                return false;
+            }
+            ClassLoader classLoader = get();
+            return classLoader != null && classLoader == ((ClassLoaderKey) o).get();
+        }
+    }
+
+    /**
+     * Check if any define (not redefinition only) transformer is registered for a class name.
+     *
+     * @param className fully qualified class name
+     * @return true if at least one transformer matches
+     */
+    public boolean hasDefinitionTransformer(String className) {
+        for (RegisteredTransformersRecord transformerRecord : new ArrayList<RegisteredTransformersRecord>(otherTransformers.values())) {
+            if (!transformerRecord.transformerList.isEmpty() && transformerRecord.pattern.matcher(className).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Retransform already loaded classes and let the transformers handle them as a new class definition
+     * (LoadEvent.DEFINE). Used to catch up classes loaded while the agent was passive.
+     *
+     * @param instrumentation the instrumentation
+     * @param classes classes to retransform
+     * @throws UnmodifiableClassException if a class cannot be modified
+     */
+    public void retransformAsDefinition(Instrumentation instrumentation, Class<?>... classes) throws UnmodifiableClassException {
+        definitionRetransform.set(Boolean.TRUE);
+        try {
+            instrumentation.retransformClasses(classes);
+        } finally {
+            definitionRetransform.remove();
+        }
+    }
+
     /**
      * Register a transformer for a regexp matching class names.
      * Used by {@link org.hotswap.agent.annotation.OnClassLoadEvent} annotation respective
@@ -178,6 +322,33 @@ public class HotswapTransformer implements ClassFileTransformer {
     public byte[] transform(final ClassLoader classLoader, String className, Class<?> redefiningClass,
                             final ProtectionDomain protectionDomain, byte[] bytes) throws IllegalClassFormatException {
 
+        if (passive) {
+            // a class defined by an already recorded classloader concurrently with activation
+            // is caught up by retransformation of loaded classes
+            if (isPassiveClassLoaderRecorded(classLoader)) {
+                return null;
+            }
+            synchronized (passiveClassLoaders) {
+                if (passive) {
+                    recordPassiveClassLoader(classLoader);
+                    return null;
+                }
+            }
+        }
+
+        if (redefiningClass != null && definitionRetransform.get() != null) {
+            redefiningClass = null;
+        }
+
+        if (redefiningClass != null) {
+            // members of the class may change, the redefinition may come from a debugger (not PluginManager.hotswap()),
+            // hence the cache is resumed by a command after the new definition is installed
+            ReflectionHelper.suspendCache();
+            PluginManager.getInstance().getScheduler().scheduleCommand(resumeReflectionCacheCommand);
+            // the new definition may refer to classes created with it
+            ClassPool.clearMissingLookups();
+        }
+
         // Skip delegating classloaders used for reflection
         String classLoaderClassName = classLoader != null ? classLoader.getClass().getName() : null;
         if (skippedClassLoaders.contains(classLoaderClassName)) {
@@ -243,12 +414,12 @@ public class HotswapTransformer implements ClassFileTransformer {
 
            for(ClassFileTransformer transformer: pluginTransformers) {
                LOGGER.trace("Transforming class '" + className + "' with transformer '" + transformer + "' " + "@ClassLoader" + classLoader + ".");
-               result = transformer.transform(classLoader, className, redefiningClass, protectionDomain, result);
+               result = applyTransformer(transformer, classLoader, className, redefiningClass, protectionDomain, result);
            }
 
            for(ClassFileTransformer transformer: toApply) {
                LOGGER.trace("Transforming class '" + className + "' with transformer '" + transformer + "' " + "@ClassLoader" + classLoader + ".");
-               result = transformer.transform(classLoader, className, redefiningClass, protectionDomain, result);
+               result = applyTransformer(transformer, classLoader, className, redefiningClass, protectionDomain, result);
            }
            return result;
        } catch (Throwable t) {
@@ -257,6 +428,34 @@ public class HotswapTransformer implements ClassFileTransformer {
        return bytes;
     }
 
+    // call the transformer and record metrics and flight recorder event
+    private byte[] applyTransformer(ClassFileTransformer transformer, ClassLoader classLoader, String className,
+                                    Class<?> redefiningClass, ProtectionDomain protectionDomain, byte[] bytes)
+            throws IllegalClassFormatException {
+        long start = ReloadMetrics.start();
+        Object event = FlightRecorderEvents.beginTransform();
+
+        byte[] result = transformer.transform(classLoader, className, redefiningClass, protectionDomain, bytes);
+
+        if (start != 0L || event != null) {
+            String name = transformerName(transformer);
+            ReloadMetrics.record(ReloadMetrics.Stage.TRANSFORM, name, start);
+            if (event != null) {
+                FlightRecorderEvents.commitTransform(event, className, classLoader, name, redefiningClass != null,
+                        bytes, result);
+            }
+        }
+        return result;
+    }
+
+    // name of the transformer for metrics breakdown - plugin class for plugin transformers
+    private static String transformerName(ClassFileTransformer transformer) {
+        if (transformer instanceof PluginClassFileTransformer) {
+            return ((PluginClassFileTransformer) transformer).getPluginClass().getName();
+        }
+        return transformer.getClass().getName();
+    }
+
     LinkedList<PluginClassFileTransformer> reduce(final ClassLoader classLoader, List<PluginClassFileTransformer> pluginCalls, String className) {
         LinkedList<PluginClassFileTransformer> reduced = new LinkedList<>();
 
@@ -360,4 +559,29 @@ public class HotswapTransformer implements ClassFileTransformer {
         return regexp;
     }
 
+    /**
+     * Resume ReflectionHelper cache after a redefinition. All instances are equal - a scheduled command is replaced
+     * by a new one and its timer is restarted, hence the cache is resumed once after a batch of redefinitions.
+     */
+    private static class ResumeReflectionCacheCommand implements Command {
+        @Override
+        public void executeCommand() {
+            ReflectionHelper.resumeCache();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ResumeReflectionCacheCommand;
+        }
+
+        @Override
+        public int hashCode() {
+            return ResumeReflectionCacheCommand.class.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "ResumeReflectionCacheCommand{}";
+        }
+    }
 }
@@ -22,15 +22,223 @@ import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.hotswap.agent.logging.AgentLogger;
 
 /**
  * Convenience methods on java reflection API.
+ * <p/>
+ * Resolved methods and fields (including not found results) are cached per class. The cache is invalidated
+ * on class redefinition, because a redefinition may add or remove members. Nothing is cached while a redefinition
+ * is in progress (see {@link #suspendCache()}), a lookup might see the old class definition.
  */
 public class ReflectionHelper {
     private static AgentLogger LOGGER = AgentLogger.getLogger(ReflectionHelper.class);
 
+    // marker of a member which does not exist
+    private static final Object NOT_FOUND = new Object();
+
+    private static final AtomicInteger cacheGeneration = new AtomicInteger();
+
+    private static volatile boolean cacheSuspended;
+
+    private static final ClassValue<MemberCache> memberCache = new ClassValue<MemberCache>() {
+        @Override
+        protected MemberCache computeValue(Class<?> type) {
+            return new MemberCache();
+        }
+    };
+
+    /**
+     * Resolved members of a class, key is member kind and name (and parameter type names for methods).
+     */
+    private static class MemberCache {
+        final ConcurrentHashMap<String, Object> members = new ConcurrentHashMap<>();
+        volatile int generation = cacheGeneration.get();
+
+        Object get(String key) {
+            int current = cacheGeneration.get();
+            if (generation != current) {
+                members.clear();
+                generation = current;
+                return null;
+            }
+            return members.get(key);
+        }
+
+        // store only if the member was resolved in the current generation
+        void put(String key, Object value, int resolvedGeneration) {
+            if (cacheSuspended) {
+                return;
+            }
+            members.put(key, value);
+            if (resolvedGeneration != cacheGeneration.get()) {
+                members.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Method resolved for exact parameter types.
+     */
+    private static class CachedMethod {
+        final Class<?>[] parameterTypes;
+        final Object method;
+
+        CachedMethod(Class<?>[] parameterTypes, Object method) {
+            this.parameterTypes = parameterTypes;
+            this.method = method;
+        }
+    }
+
+    /**
+     * Invalidate cached methods and fields of all classes. Called after a class redefinition.
+     */
+    public static void clearCache() {
+        cacheGeneration.incrementAndGet();
+    }
+
+    /**
+     * Invalidate the cache and stop caching until {@link #resumeCache()}. Called from the transformer, before
+     * the new class definition is installed.
+     */
+    public static void suspendCache() {
+        cacheSuspended = true;
+        cacheGeneration.incrementAndGet();
+    }
+
+    /**
+     * Invalidate members resolved while the cache was suspended and resume caching. Called after the new class
+     * definitions are installed.
+     */
+    public static void resumeCache() {
+        cacheGeneration.incrementAndGet();
+        cacheSuspended = false;
+    }
+
+    /**
+     * Public method (including inherited) or declared method of the class, made accessible. The result is cached.
+     *
+     * @param clazz          class
+     * @param methodName     method name
+     * @param parameterTypes parameter types
+     * @return the method
+     * @throws NoSuchMethodException if the method does not exist
+     */
+    public static Method getMethod(Class<?> clazz, String methodName, Class<?>... parameterTypes) throws NoSuchMethodException {
+        return resolveMethod(clazz, methodName, parameterTypes, false);
+    }
+
+    /**
+     * Declared method of the class (same as Class.getDeclaredMethod()). The result is cached, the method is not made
+     * accessible.
+     *
+     * @param clazz          class
+     * @param methodName     method name
+     * @param parameterTypes parameter types
+     * @return the method
+     * @throws NoSuchMethodException if the method does not exist
+     */
+    public static Method getDeclaredMethod(Class<?> clazz, String methodName, Class<?>... parameterTypes) throws NoSuchMethodException {
+        return resolveMethod(clazz, methodName, parameterTypes, true);
+    }
+
+    private static Method resolveMethod(Class<?> clazz, String methodName, Class<?>[] parameterTypes, boolean declaredOnly)
+            throws NoSuchMethodException {
+        if (parameterTypes == null) {
+            parameterTypes = new Class<?>[0];
+        }
+        MemberCache cache = memberCache.get(clazz);
+        String key = methodKey(declaredOnly ? 'd' : 'm', methodName, parameterTypes);
+        Object cached = cache.get(key);
+        if (cached != null && Arrays.equals(((CachedMethod) cached).parameterTypes, parameterTypes)) {
+            if (((CachedMethod) cached).method == NOT_FOUND) {
+                throw new NoSuchMethodException(clazz.getName() + "." + methodName + argumentTypesToString(parameterTypes));
+            }
+            return (Method) ((CachedMethod) cached).method;
+        }
+
+        int generation = cacheGeneration.get();
+        Method method;
+        try {
+            if (declaredOnly) {
+                method = clazz.getDeclaredMethod(methodName, parameterTypes);
+            } else {
+                try {
+                    method = clazz.getMethod(methodName, parameterTypes);
+                } catch (NoSuchMethodException e) {
+                    method = clazz.getDeclaredMethod(methodName, parameterTypes);
+                }
+                method.setAccessible(true);
+            }
+        } catch (NoSuchMethodException e) {
+            cache.put(key, new CachedMethod(parameterTypes.clone(), NOT_FOUND), generation);
+            throw e;
+        }
+        cache.put(key, new CachedMethod(parameterTypes.clone(), method), generation);
+        return method;
+    }
+
+    /**
+     * Declared field of the class, made accessible. The result is cached.
+     *
+     * @param clazz     class
+     * @param fieldName field name
+     * @return the field
+     * @throws NoSuchFieldException if the field does not exist
+     */
+    public static Field getDeclaredField(Class<?> clazz, String fieldName) throws NoSuchFieldException {
+        Field field = findDeclaredField(clazz, fieldName);
+        if (field == null) {
+            throw new NoSuchFieldException(fieldName);
+        }
+        return field;
+    }
+
+    // declared field made accessible or null
+    private static Field findDeclaredField(Class<?> clazz, String fieldName) {
+        MemberCache cache = memberCache.get(clazz);
+        String key = "f" + fieldName;
+        Object cached = cache.get(key);
+        if (cached != null) {
+            return cached == NOT_FOUND ? null : (Field) cached;
+        }
+
+        int generation = cacheGeneration.get();
+        Field field;
+        try {
+            field = clazz.getDeclaredField(fieldName);
+        } catch (NoSuchFieldException e) {
+            cache.put(key, NOT_FOUND, generation);
+            return null;
+        }
+        field.setAccessible(true);
+        cache.put(key, field, generation);
+        return field;
+    }
+
+    private static String methodKey(char kind, String methodName, Class<?>[] parameterTypes) {
+        StringBuilder sb = new StringBuilder(methodName.length() + 16 * parameterTypes.length + 2);
+        sb.append(kind).append(methodName);
+        for (Class<?> type : parameterTypes) {
+            sb.append(',').append(type == null ? "null" : type.getName());
+        }
+        return sb.toString();
+    }
+
+    private static String argumentTypesToString(Class<?>[] parameterTypes) {
+        StringBuilder sb = new StringBuilder("(");
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(parameterTypes[i] == null ? "null" : parameterTypes[i].getName());
+        }
+        return sb.append(')').toString();
+    }
+
     /**
      * Convenience wrapper to reflection method invoke API. Invoke the method and hide checked exceptions.
      *
@@ -46,13 +254,7 @@ public class ReflectionHelper {
     public static Object invoke(Object target, Class<?> clazz, String methodName, Class<?>[] parameterTypes,
             Object... args) {
         try {
-            Method method = null;
-            try {
-                method = clazz.getMethod(methodName, parameterTypes);
-            } catch (NoSuchMethodException e) {
-                method = clazz.getDeclaredMethod(methodName, parameterTypes);
-            }
-            method.setAccessible(true);
+            Method method = getMethod(clazz, methodName, parameterTypes);
 
             return method.invoke(target, args);
         } catch (IllegalArgumentException e) {
@@ -134,14 +336,7 @@ public class ReflectionHelper {
 
         Class<?> clazz = target.getClass();
 
-        while (clazz != null) {
-            try {
-                Field field = clazz.getDeclaredField(fieldName);
-                field.setAccessible(true);
-                break;
-            } catch (NoSuchFieldException e) {
-                // ignore
-            }
+        while (clazz != null && findDeclaredField(clazz, fieldName) == null) {
             clazz = clazz.getSuperclass();
         }
 
@@ -164,8 +359,7 @@ public class ReflectionHelper {
      */
     public static Object get(Object target, Class<?> clazz, String fieldName) {
         try {
-            Field field = clazz.getDeclaredField(fieldName);
-            field.setAccessible(true);
+            Field field = getDeclaredField(clazz, fieldName);
             return field.get(target);
         } catch (NoSuchFieldException e) {
             throw new IllegalArgumentException(String.format("No such field %s.%s on %s", clazz.getName(), fieldName, target), e);
@@ -205,8 +399,7 @@ public class ReflectionHelper {
      */
     public static void set(Object target, Class<?> clazz, String fieldName, Object value) {
         try {
-            Field field = clazz.getDeclaredField(fieldName);
-            field.setAccessible(true);
+            Field field = getDeclaredField(clazz, fieldName);
             field.set(target, value);
         } catch (NoSuchFieldException e) {
             throw new IllegalArgumentException(String.format("No such field %s.%s on %s", clazz.getName(), fieldName, target), e);
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.util.classloader;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of resource content.
+ * <p/>
+ * The cache is limited by total size of cached bytes, too large resources are not cached at all. To avoid
+ * caching content read before a concurrent invalidation, the value is stored only if no invalidation
+ * happened since {@link #generation()} was obtained (i.e. before the resource was read).
+ */
+public class ResourceBytesCache {
+
+    public static final long DEFAULT_MAX_BYTES = 16 * 1024 * 1024;
+    public static final int DEFAULT_MAX_ENTRY_BYTES = 1024 * 1024;
+
+    private final long maxBytes;
+    private final int maxEntryBytes;
+
+    private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long size;
+    private long generation;
+
+    private long hits;
+    private long misses;
+
+    public ResourceBytesCache() {
+        this(DEFAULT_MAX_BYTES, DEFAULT_MAX_ENTRY_BYTES);
+    }
+
+    /**
+     * @param maxBytes      maximum total size of cached content
+     * @param maxEntryBytes maximum size of a single cached resource
+     */
+    public ResourceBytesCache(long maxBytes, int maxEntryBytes) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = maxEntryBytes;
+    }
+
+    /**
+     * @return maximum size of a single cached resource
+     */
+    public int getMaxEntryBytes() {
+        return maxEntryBytes;
+    }
+
+    /**
+     * Get cached content.
+     *
+     * @param key resource URL
+     * @return content or null if not cached
+     */
+    public synchronized byte[] get(String key) {
+        byte[] bytes = entries.get(key);
+        if (bytes != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return bytes;
+    }
+
+    /**
+     * Current generation, obtain it before reading the resource and pass to {@link #put(String, byte[], long)}.
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Store content unless the cache was invalidated since the generation was obtained.
+     *
+     * @param key        resource URL
+     * @param bytes      content (must not be modified afterwards)
+     * @param generation generation obtained before the resource was read
+     */
+    public synchronized void put(String key, byte[] bytes, long generation) {
+        if (generation != this.generation || bytes.length > maxEntryBytes) {
+            return;
+        }
+
+        byte[] previous = entries.put(key, bytes);
+        if (previous != null) {
+            size -= previous.length;
+        }
+        size += bytes.length;
+
+        Iterator<Map.Entry<String, byte[]>> it = entries.entrySet().iterator();
+        while (size > maxBytes && it.hasNext()) {
+            size -= it.next().getValue().length;
+            it.remove();
+        }
+    }
+
+    /**
+     * Remove a resource.
+     */
+    public synchronized void invalidate(String key) {
+        generation++;
+        byte[] previous = entries.remove(key);
+        if (previous != null) {
+            size -= previous.length;
+        }
+    }
+
+    /**
+     * Remove all resources with the key prefix (e.g. directory).
+     */
+    public synchronized void invalidatePrefix(String prefix) {
+        generation++;
+        Iterator<Map.Entry<String, byte[]>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, byte[]> entry = it.next();
+            if (entry.getKey().startsWith(prefix)) {
+                size -= entry.getValue().length;
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * @return total size of cached content
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+}
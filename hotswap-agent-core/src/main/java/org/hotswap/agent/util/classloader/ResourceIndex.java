@@ -0,0 +1,343 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.util.classloader;
+
+import org.hotswap.agent.annotation.FileEvent;
+import org.hotswap.agent.logging.AgentLogger;
+import org.hotswap.agent.watch.LostWatchEvents;
+import org.hotswap.agent.watch.WatchEventListener;
+import org.hotswap.agent.watch.WatchFileEvent;
+import org.hotswap.agent.watch.Watcher;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Index of relative names of all files and directories in a root directory (e.g. extraClasspath or
+ * watchResources directory).
+ * <p/>
+ * Resource lookup on a directory classpath entry means a filesystem stat for each name, most of them for
+ * names which do not exist in the directory. The index answers such lookups by a hash probe. It is built
+ * in parallel by {@link #build(List)} and kept current by CREATE/DELETE watch events (register the index
+ * as a watcher listener before building).
+ * <p/>
+ * A name missing in the index is reported missing without touching the filesystem. Watch events may get lost,
+ * after a watcher reports lost events (see {@link LostWatchEvents}) the index is rebuilt in background.
+ * <p/>
+ * Names are relative to the root and use '/' as separator, leading and trailing '/' is ignored.
+ */
+public class ResourceIndex implements WatchEventListener {
+    private static AgentLogger LOGGER = AgentLogger.getLogger(ResourceIndex.class);
+
+    private final Path root;
+    private final URI rootUri;
+    private final Set<String> names = ConcurrentHashMap.newKeySet();
+    private volatile boolean built;
+    private volatile boolean rebuilding;
+
+    // LostWatchEvents count when the index was built
+    private volatile long lostEvents;
+
+    // symbolic links to directories are not followed (may form cycles), lookups below them use filesystem
+    private final Set<String> linkedDirectories = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ResourceIndex(Path root) {
+        this.root = root;
+        this.rootUri = root.toUri();
+    }
+
+    /**
+     * Create index for URL of a local directory.
+     *
+     * @param url classpath URL
+     * @return index (not built yet) or null if the URL is not a local directory
+     */
+    public static ResourceIndex create(URL url) {
+        try {
+            File file = new File(url.toURI());
+            return file.isDirectory() ? new ResourceIndex(file.toPath()) : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Create indexes for all URLs.
+     *
+     * @param urls classpath URLs
+     * @return indexes or null if any of the URLs is not a local directory
+     */
+    public static List<ResourceIndex> create(URL[] urls) {
+        List<ResourceIndex> indexes = new ArrayList<>();
+        for (URL url : urls) {
+            ResourceIndex index = create(url);
+            if (index == null) {
+                return null;
+            }
+            indexes.add(index);
+        }
+        return indexes;
+    }
+
+    /**
+     * Build indexes in parallel.
+     */
+    public static void build(List<ResourceIndex> indexes) {
+        long start = System.currentTimeMillis();
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (ResourceIndex index : indexes) {
+            index.lostEvents = LostWatchEvents.getCount();
+            tasks.add(ForkJoinPool.commonPool().submit(index.new IndexDirectory(index.root)));
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            try {
+                tasks.get(i).join();
+                indexes.get(i).built = true;
+            } catch (Exception e) {
+                LOGGER.warning("Unable to index directory {}, lookups will use filesystem.", e, indexes.get(i).root);
+            }
+        }
+        LOGGER.debug("Indexed {} directories in {}ms.", indexes.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Build this index.
+     */
+    public void build() {
+        List<ResourceIndex> indexes = new ArrayList<>();
+        indexes.add(this);
+        build(indexes);
+    }
+
+    /**
+     * Register for watch events to keep the index current.
+     */
+    public void register(Watcher watcher, ClassLoader classLoader) {
+        watcher.addEventListener(classLoader, rootUri, this);
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Check if the resource may exist in the directory.
+     *
+     * @param name resource name relative to the root
+     * @return false if the index is sure the resource does not exist, true if it exists or the index can't tell
+     * (not built, name not in normalized form)
+     */
+    public boolean mayContain(String name) {
+        if (!built) {
+            return true;
+        }
+        if (lostEvents != LostWatchEvents.getCount()) {
+            rebuild();
+            return true;
+        }
+
+        int start = 0;
+        int end = name.length();
+        while (start < end && name.charAt(start) == '/') {
+            start++;
+        }
+        while (end > start && name.charAt(end - 1) == '/') {
+            end--;
+        }
+        if (start == end) {
+            return true;
+        }
+        String normalized = start == 0 && end == name.length() ? name : name.substring(start, end);
+        if (normalized.contains("//") || normalized.contains("./") || normalized.endsWith(".")
+                || normalized.indexOf('\\') >= 0) {
+            // let the filesystem resolve it
+            return true;
+        }
+
+        if (names.contains(normalized)) {
+            hits.incrementAndGet();
+            return true;
+        }
+        if (!linkedDirectories.isEmpty() && isInLinkedDirectory(normalized)) {
+            return true;
+        }
+        misses.incrementAndGet();
+        return false;
+    }
+
+    // rebuild the index in background, the filesystem is used until finished
+    private void rebuild() {
+        synchronized (this) {
+            if (rebuilding) {
+                return;
+            }
+            rebuilding = true;
+            built = false;
+        }
+        ForkJoinPool.commonPool().execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    lostEvents = LostWatchEvents.getCount();
+                    names.clear();
+                    linkedDirectories.clear();
+                    ForkJoinPool.commonPool().invoke(new IndexDirectory(root));
+                    built = true;
+                    LOGGER.debug("Index of {} rebuilt.", root);
+                } catch (Exception e) {
+                    LOGGER.warning("Unable to rebuild index of directory {}, lookups will use filesystem.", e, root);
+                } finally {
+                    rebuilding = false;
+                }
+            }
+        });
+    }
+
+    private boolean isInLinkedDirectory(String name) {
+        for (int i = name.indexOf('/'); i > 0; i = name.indexOf('/', i + 1)) {
+            if (linkedDirectories.contains(name.substring(0, i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return number of lookups found in the index
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return number of lookups answered as missing
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return number of indexed files and directories
+     */
+    public int size() {
+        return names.size();
+    }
+
+    @Override
+    public void onEvent(WatchFileEvent event) {
+        Path path;
+        try {
+            path = Paths.get(event.getURI());
+        } catch (Exception e) {
+            return;
+        }
+        if (!path.startsWith(root) || path.equals(root)) {
+            return;
+        }
+        String name = toName(path);
+
+        if (event.getEventType() == FileEvent.CREATE) {
+            add(path, name);
+            if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                // files created before the directory was registered with the watcher
+                try {
+                    ForkJoinPool.commonPool().invoke(new IndexDirectory(path));
+                } catch (Exception e) {
+                    LOGGER.debug("Unable to index new directory {}.", e, path);
+                }
+            } else if (Files.isSymbolicLink(path) && Files.isDirectory(path)) {
+                linkedDirectories.add(name);
+            }
+        } else if (event.getEventType() == FileEvent.DELETE) {
+            names.remove(name);
+            linkedDirectories.remove(name);
+            String prefix = name + "/";
+            for (Iterator<String> it = names.iterator(); it.hasNext(); ) {
+                if (it.next().startsWith(prefix)) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    // add the name and all parent directories
+    private void add(Path path, String name) {
+        names.add(name);
+        for (Path parent = path.getParent(); parent != null && parent.startsWith(root) && !parent.equals(root);
+             parent = parent.getParent()) {
+            if (!names.add(toName(parent))) {
+                break;
+            }
+        }
+    }
+
+    private String toName(Path path) {
+        String name = root.relativize(path).toString();
+        return File.separatorChar == '/' ? name : name.replace(File.separatorChar, '/');
+    }
+
+    /**
+     * Index a directory, subdirectories are indexed in parallel.
+     */
+    private class IndexDirectory extends RecursiveAction {
+        private final Path dir;
+
+        IndexDirectory(Path dir) {
+            this.dir = dir;
+        }
+
+        @Override
+        protected void compute() {
+            List<IndexDirectory> subdirectories = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path child : stream) {
+                    String name = toName(child);
+                    names.add(name);
+                    if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                        subdirectories.add(new IndexDirectory(child));
+                    } else if (Files.isSymbolicLink(child) && Files.isDirectory(child)) {
+                        linkedDirectories.add(name);
+                    }
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to list directory " + dir, e);
+            }
+            invokeAll(subdirectories);
+        }
+    }
+}
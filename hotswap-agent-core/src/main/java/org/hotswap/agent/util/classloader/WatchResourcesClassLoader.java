@@ -23,11 +23,16 @@ import org.hotswap.agent.watch.WatchFileEvent;
 import org.hotswap.agent.watch.WatchEventListener;
 import org.hotswap.agent.watch.Watcher;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Method;
 import java.net.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Special URL classloader to get only changed resources from URL.
@@ -38,6 +43,9 @@ import java.util.*;
  * delegates getResource()/getResources() to custom URL classloader. Otherwise returns null or resource
  * from paren classloader (depending on searchParent property).
  *
+ * Content of resources from watched directories is cached in memory (bounded size) and names in watched
+ * directories are indexed (see {@link ResourceIndex}), both are kept current by watch events.
+ *
  * @author Jiri Bubnik
  */
 public class WatchResourcesClassLoader extends URLClassLoader {
@@ -47,7 +55,26 @@ public class WatchResourcesClassLoader extends URLClassLoader {
      * URLs of changed resources. Use this set to check if the resource was changed and hence should
      * be returned by this classloader.
      */
-    Set<URL> changedUrls = new HashSet<>();
+    Set<URL> changedUrls = Collections.newSetFromMap(new ConcurrentHashMap<URL, Boolean>());
+
+    /**
+     * Name indexes of watchResources directories, null if any of watchResources is not a local directory.
+     */
+    volatile List<ResourceIndex> watchResourcesIndexes;
+
+    /**
+     * Name indexes of extra path directories, null if extra path is not watched or any of extra path URLs
+     * is not a local directory.
+     */
+    volatile List<ResourceIndex> extraPathIndexes;
+
+    /**
+     * Content of resources from watched directories.
+     */
+    final ResourceBytesCache resourceCache = new ResourceBytesCache();
+
+    // URLs of watched directories (ending with '/') - resources from them may be cached
+    final Set<String> watchedRoots = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
     /**
      * Watch for requested resource in parent classloader in case it is not found by this classloader?
@@ -88,6 +115,18 @@ public class WatchResourcesClassLoader extends URLClassLoader {
             addURL(url);
     }
 
+    /**
+     * Configure new instance with urls and watch the extra path directories. Content of resources
+     * from extra path is cached and names are indexed to skip filesystem lookup of missing resources.
+     *
+     * @param extraPath the URLs from which to load resources
+     * @param watcher   watcher service to register watch events
+     */
+    public void initExtraPath(URL[] extraPath, Watcher watcher) {
+        initExtraPath(extraPath);
+        extraPathIndexes = watchDirectories(extraPath, watcher, false);
+    }
+
     /**
      * Configure new instance with urls and watcher service.
      *
@@ -99,25 +138,93 @@ public class WatchResourcesClassLoader extends URLClassLoader {
         this.watchResourcesClassLoader = new UrlOnlyClassLoader(watchResources);
 
         // register watch resources - on change event each modified resource will be added to changedUrls.
-        for (URL resource : watchResources) {
+        watchResourcesIndexes = watchDirectories(watchResources, watcher, true);
+    }
+
+    /**
+     * Register a listener for the URLs and build name indexes of local directories. The listener invalidates
+     * cached content of changed resources in indexed directories and optionally records changed resources.
+     *
+     * @param trackChanges add changed resources to changedUrls (watchResources), otherwise only local directories
+     *                     are watched
+     * @return indexes or null if any of the URLs is not a local directory (lookup can't be skipped)
+     */
+    private List<ResourceIndex> watchDirectories(URL[] urls, Watcher watcher, boolean trackChanges) {
+        List<ResourceIndex> indexes = new ArrayList<>();
+        boolean allIndexed = urls.length > 0;
+        for (URL url : urls) {
+            ResourceIndex index = ResourceIndex.create(url);
+            if (index != null) {
+                URI root = index.getRoot().toUri();
+                try {
+                    watchedRoots.add(root.toURL().toExternalForm());
+                } catch (MalformedURLException e) {
+                    LOGGER.error("Unexpected - cannot convert URI {} to URL.", e, root);
+                    index = null;
+                }
+            }
+            if (index == null) {
+                allIndexed = false;
+                if (!trackChanges) {
+                    continue;
+                }
+            }
             try {
-                URI uri = resource.toURI();
+                URI uri = url.toURI();
                 LOGGER.debug("Watching directory '{}' for changes.", uri);
-                watcher.addEventListener(this, uri, new WatchEventListener() {
-                    @Override
-                    public void onEvent(WatchFileEvent event) {
-                        try {
-                            if (event.isFile() || event.isDirectory()) {
-                                changedUrls.add(event.getURI().toURL());
-                                LOGGER.trace("File '{}' changed and will be returned instead of original classloader equivalent.", event.getURI().toURL());
-                            }
-                        } catch (MalformedURLException e) {
-                            LOGGER.error("Unexpected - cannot convert URI {} to URL.", e, event.getURI());
-                        }
-                    }
-                });
+                // register before build - changes during indexing are not lost
+                watcher.addEventListener(this, uri, new ResourceChangeListener(index, trackChanges));
             } catch (URISyntaxException e) {
-                LOGGER.warning("Unable to convert watchResources URL '{}' to URI. URL is skipped.", e, resource);
+                LOGGER.warning("Unable to convert watchResources URL '{}' to URI. URL is skipped.", e, url);
+                allIndexed = false;
+                continue;
+            }
+            if (index != null) {
+                indexes.add(index);
+            }
+        }
+        if (!allIndexed) {
+            return null;
+        }
+        ResourceIndex.build(indexes);
+        return indexes;
+    }
+
+    /**
+     * Record changed resources, invalidate their cached content and keep the name index current.
+     */
+    class ResourceChangeListener implements WatchEventListener {
+        // null if the directory is not indexed (and its content is not cached)
+        private final ResourceIndex index;
+        private final boolean trackChanges;
+
+        ResourceChangeListener(ResourceIndex index, boolean trackChanges) {
+            this.index = index;
+            this.trackChanges = trackChanges;
+        }
+
+        @Override
+        public void onEvent(WatchFileEvent event) {
+            try {
+                URL url = event.getURI().toURL();
+                if (trackChanges && (event.isFile() || event.isDirectory())) {
+                    changedUrls.add(url);
+                    LOGGER.trace("File '{}' changed and will be returned instead of original classloader equivalent.", url);
+                }
+                if (index != null) {
+                    String key = url.toExternalForm();
+                    if (event.isDirectory()) {
+                        resourceCache.invalidatePrefix(key.endsWith("/") ? key : key + "/");
+                    } else {
+                        resourceCache.invalidate(key);
+                    }
+                }
+            } catch (MalformedURLException e) {
+                LOGGER.error("Unexpected - cannot convert URI {} to URL.", e, event.getURI());
+            }
+
+            if (index != null) {
+                index.onEvent(event);
             }
         }
     }
@@ -138,16 +245,13 @@ public class WatchResourcesClassLoader extends URLClassLoader {
      */
     @Override
     public URL getResource(String name) {
-        if (watchResourcesClassLoader != null) {
-            URL resource = watchResourcesClassLoader.getResource(name);
-            if (resource != null && isResourceChanged(resource)) {
-                LOGGER.trace("watchResources - using changed resource {}", name);
-                return resource;
-            }
+        URL resource = findChangedResource(name);
+        if (resource != null) {
+            return resource;
         }
 
         // child first (extra classpath)
-        URL resource = findResource(name);
+        resource = findExtraPathResource(name);
         if (resource != null)
             return resource;
 
@@ -158,16 +262,122 @@ public class WatchResourcesClassLoader extends URLClassLoader {
             return null;
     }
 
+    // resource from watchResources, only if it was changed
+    private URL findChangedResource(String name) {
+        // nothing changed yet, no need to look for the resource
+        if (watchResourcesClassLoader == null || changedUrls.isEmpty() || !mayContain(watchResourcesIndexes, name)) {
+            return null;
+        }
+
+        URL resource = watchResourcesClassLoader.getResource(name);
+        if (resource != null && isResourceChanged(resource)) {
+            LOGGER.trace("watchResources - using changed resource {}", name);
+            return resource;
+        }
+        return null;
+    }
+
+    private URL findExtraPathResource(String name) {
+        return mayContain(extraPathIndexes, name) ? findResource(name) : null;
+    }
+
+    // false only if all directories are indexed and none of them contains the name
+    private static boolean mayContain(List<ResourceIndex> indexes, String name) {
+        if (indexes == null) {
+            return true;
+        }
+        for (ResourceIndex index : indexes) {
+            if (index.mayContain(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return number of lookups found in watchResources and extra path indexes
+     */
+    public long getIndexHitCount() {
+        long count = 0;
+        for (List<ResourceIndex> indexes : Arrays.asList(watchResourcesIndexes, extraPathIndexes)) {
+            if (indexes != null) {
+                for (ResourceIndex index : indexes) {
+                    count += index.getHitCount();
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return number of lookups answered as missing by watchResources and extra path indexes
+     */
+    public long getIndexMissCount() {
+        long count = 0;
+        for (List<ResourceIndex> indexes : Arrays.asList(watchResourcesIndexes, extraPathIndexes)) {
+            if (indexes != null) {
+                for (ResourceIndex index : indexes) {
+                    count += index.getMissCount();
+                }
+            }
+        }
+        return count;
+    }
+
     @Override
     public InputStream getResourceAsStream(String name) {
         URL url = getResource(name);
         try {
-            return url != null ? url.openStream() : null;
+            if (url == null) {
+                return null;
+            }
+            byte[] bytes = getCachedContent(url);
+            return bytes != null ? new ByteArrayInputStream(bytes) : url.openStream();
         } catch (IOException e) {
         }
         return null;
     }
 
+    // content of the resource from cache (loaded on first access), null if the resource is not cacheable
+    private byte[] getCachedContent(URL url) throws IOException {
+        String key = url.toExternalForm();
+        if (!isWatched(key)) {
+            return null;
+        }
+
+        byte[] bytes = resourceCache.get(key);
+        if (bytes != null) {
+            return bytes;
+        }
+
+        long generation = resourceCache.generation();
+        Path path;
+        try {
+            path = Paths.get(url.toURI());
+        } catch (Exception e) {
+            return null;
+        }
+        if (Files.size(path) > resourceCache.getMaxEntryBytes()) {
+            return null;
+        }
+        bytes = Files.readAllBytes(path);
+        resourceCache.put(key, bytes, generation);
+        return bytes;
+    }
+
+    // look up parent directories of the URL in watched roots
+    private boolean isWatched(String url) {
+        if (!url.startsWith("file:")) {
+            return false;
+        }
+        for (int i = url.lastIndexOf('/'); i >= 0; i = url.lastIndexOf('/', i - 1)) {
+            if (watchedRoots.contains(url.substring(0, i + 1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Returns only a single instance of the changed resource.
      * There are conflicting requirements for other resources inclusion. This class
@@ -178,19 +388,19 @@ public class WatchResourcesClassLoader extends URLClassLoader {
      */
     @Override
     public Enumeration<URL> getResources(String name) throws IOException {
-        if (watchResourcesClassLoader != null) {
-            URL resource = watchResourcesClassLoader.getResource(name);
-            if (resource != null && isResourceChanged(resource)) {
-                LOGGER.trace("watchResources - using changed resource {}", name);
-                Vector<URL> res = new Vector<>();
-                res.add(resource);
-                return res.elements();
-            }
+        URL resource = findChangedResource(name);
+        if (resource != null) {
+            Vector<URL> res = new Vector<>();
+            res.add(resource);
+            return res.elements();
         }
 
         // if extraClasspath contains at least one element, return only extraClasspath
-        if (findResources(name).hasMoreElements())
-            return findResources(name);
+        if (mayContain(extraPathIndexes, name)) {
+            Enumeration<URL> extraPathResources = findResources(name);
+            if (extraPathResources.hasMoreElements())
+                return extraPathResources;
+        }
 
         return super.getResources(name);
     }
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.util.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event - execution of a scheduled agent command (typically plugin refresh after a change).
+ */
+@Name("org.hotswap.agent.CommandExecute")
+@Label("Command Execution")
+@Description("Execution of a scheduled HotswapAgent command, typically a plugin refresh")
+@Category({"HotswapAgent"})
+@StackTrace(false)
+class CommandExecuteEvent extends jdk.jfr.Event {
+
+    @Label("Command")
+    String command;
+
+    @Label("Plugin")
+    String plugin;
+}
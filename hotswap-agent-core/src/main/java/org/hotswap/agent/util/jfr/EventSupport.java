@@ -0,0 +1,41 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.util.jfr;
+
+/**
+ * Flight recorder events abstraction - implemented by {@link JfrEventSupport} on JVMs with JFR API.
+ * <p/>
+ * Begin methods return an event token or null if the event is not recorded. Commit methods must
+ * be called only with non null token.
+ */
+interface EventSupport {
+
+    Object beginTransform();
+
+    void commitTransform(Object event, String className, ClassLoader classLoader, String plugin,
+                         boolean redefinition, int bytesIn, int bytesOut);
+
+    Object beginRedefine();
+
+    void commitRedefine(Object event, String[] classNames, long bytes);
+
+    Object beginCommand();
+
+    void commitCommand(Object event, String command, String name);
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.util.jfr;
+
+import org.hotswap.agent.logging.AgentLogger;
+
+/**
+ * Java Flight Recorder custom events of the agent - class transformation, redefinition and command execution.
+ * <p/>
+ * JFR classes are resolved via reflection, on JVMs without JFR API (JDK 8 before 8u262) all methods are no-op.
+ * Events are created only while flight recorder is initialized and the event type is enabled in a recording.
+ * Usage:
+ * <pre>
+ * Object event = FlightRecorderEvents.beginTransform();
+ * ... measured code ...
+ * if (event != null) {
+ *     FlightRecorderEvents.commitTransform(event, ...);
+ * }
+ * </pre>
+ */
+public class FlightRecorderEvents {
+    private static AgentLogger LOGGER = AgentLogger.getLogger(FlightRecorderEvents.class);
+
+    private static final String JFR_EVENT_CLASS = "jdk.jfr.Event";
+
+    private static final EventSupport support = loadSupport();
+
+    private static EventSupport loadSupport() {
+        try {
+            Class.forName(JFR_EVENT_CLASS, false, FlightRecorderEvents.class.getClassLoader());
+        } catch (Throwable e) {
+            LOGGER.trace("Flight recorder API is not available, JFR events are disabled.");
+            return null;
+        }
+        try {
+            return (EventSupport) Class.forName(FlightRecorderEvents.class.getPackage().getName() + ".JfrEventSupport")
+                    .newInstance();
+        } catch (Throwable e) {
+            LOGGER.debug("Unable to initialize JFR events support.", e);
+            return null;
+        }
+    }
+
+    /**
+     * @return true if JFR API is available
+     */
+    public static boolean isAvailable() {
+        return support != null;
+    }
+
+    /**
+     * Begin class transformation event.
+     *
+     * @return event token or null if the event is not recorded
+     */
+    public static Object beginTransform() {
+        return support != null ? support.beginTransform() : null;
+    }
+
+    /**
+     * Commit class transformation event.
+     *
+     * @param event token returned by beginTransform(), must not be null
+     */
+    public static void commitTransform(Object event, String className, ClassLoader classLoader, String plugin,
+                                       boolean redefinition, byte[] bytesIn, byte[] bytesOut) {
+        support.commitTransform(event, className, classLoader, plugin, redefinition,
+                bytesIn != null ? bytesIn.length : 0, bytesOut != null ? bytesOut.length : 0);
+    }
+
+    /**
+     * Begin class redefinition (redefineClasses batch) event.
+     *
+     * @return event token or null if the event is not recorded
+     */
+    public static Object beginRedefine() {
+        return support != null ? support.beginRedefine() : null;
+    }
+
+    /**
+     * Commit class redefinition event.
+     *
+     * @param event token returned by beginRedefine(), must not be null
+     * @param classNames redefined classes
+     * @param bytes total size of new class definitions
+     */
+    public static void commitRedefine(Object event, String[] classNames, long bytes) {
+        support.commitRedefine(event, classNames, bytes);
+    }
+
+    /**
+     * Begin command execution event.
+     *
+     * @return event token or null if the event is not recorded
+     */
+    public static Object beginCommand() {
+        return support != null ? support.beginCommand() : null;
+    }
+
+    /**
+     * Commit command execution event.
+     *
+     * @param event token returned by beginCommand(), must not be null
+     * @param command command description
+     * @param name plugin or command target name
+     */
+    public static void commitCommand(Object event, String command, String name) {
+        support.commitCommand(event, command, name);
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.util.jfr;
+
+import java.util.Arrays;
+
+import jdk.jfr.FlightRecorder;
+
+/**
+ * JFR based implementation of events. This class must be loaded only if JFR API is available
+ * (see {@link FlightRecorderEvents}).
+ */
+class JfrEventSupport implements EventSupport {
+
+    // limit class names list stored in the redefinition event
+    private static final int MAX_CLASS_NAMES_LENGTH = 4096;
+
+    // no event is created before flight recorder is initialized (recording started)
+    private static boolean isRecording() {
+        return FlightRecorder.isInitialized();
+    }
+
+    @Override
+    public Object beginTransform() {
+        if (!isRecording()) {
+            return null;
+        }
+        ClassTransformEvent event = new ClassTransformEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitTransform(Object token, String className, ClassLoader classLoader, String plugin,
+                                boolean redefinition, int bytesIn, int bytesOut) {
+        ClassTransformEvent event = (ClassTransformEvent) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.className = className;
+            event.classLoader = classLoader == null ? null :
+                    classLoader.getClass().getName() + "@" + Integer.toHexString(System.identityHashCode(classLoader));
+            event.plugin = plugin;
+            event.redefinition = redefinition;
+            event.bytesIn = bytesIn;
+            event.bytesOut = bytesOut;
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object beginRedefine() {
+        if (!isRecording()) {
+            return null;
+        }
+        ClassRedefineEvent event = new ClassRedefineEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitRedefine(Object token, String[] classNames, long bytes) {
+        ClassRedefineEvent event = (ClassRedefineEvent) token;
+        event.end();
+        if (event.shouldCommit()) {
+            String names = Arrays.toString(classNames);
+            event.classCount = classNames.length;
+            event.classNames = names.length() > MAX_CLASS_NAMES_LENGTH ? names.substring(0, MAX_CLASS_NAMES_LENGTH) + "..." : names;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object beginCommand() {
+        if (!isRecording()) {
+            return null;
+        }
+        CommandExecuteEvent event = new CommandExecuteEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitCommand(Object token, String command, String name) {
+        CommandExecuteEvent event = (CommandExecuteEvent) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.command = command;
+            event.plugin = name;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.util.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.hotswap.agent.logging.AgentLogger;
+
+/**
+ * Minimal HTTP endpoint serving {@link ReloadMetrics#report()} as plain text on the loopback interface.
+ */
+public class MetricsHttpServer {
+    private static AgentLogger LOGGER = AgentLogger.getLogger(MetricsHttpServer.class);
+
+    private HttpServer server;
+
+    /**
+     * Start the endpoint on a port, errors are only logged.
+     * <p/>
+     * HttpServer dispatcher thread inherits daemon flag from the creating thread, hence the server is started
+     * from a daemon thread to not block JVM shutdown.
+     *
+     * @param port loopback port to listen on
+     */
+    public void start(final int port) {
+        Thread starter = new Thread() {
+            @Override
+            public void run() {
+                doStart(port);
+            }
+        };
+        starter.setDaemon(true);
+        starter.setName("HotswapAgent Metrics");
+        starter.start();
+    }
+
+    private void doStart(int port) {
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+            server.createContext("/", new HttpHandler() {
+                @Override
+                public void handle(HttpExchange exchange) throws IOException {
+                    byte[] response = ReloadMetrics.report().getBytes("UTF-8");
+                    exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+                    exchange.sendResponseHeaders(200, response.length);
+                    OutputStream os = exchange.getResponseBody();
+                    try {
+                        os.write(response);
+                    } finally {
+                        os.close();
+                    }
+                }
+            });
+            server.start();
+            LOGGER.info("Reload metrics available at http://localhost:{}/", port);
+        } catch (Throwable e) {
+            LOGGER.error("Unable to start reload metrics endpoint on port {}.", e, port);
+        }
+    }
+
+    /**
+     * Stop the endpoint.
+     */
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+}
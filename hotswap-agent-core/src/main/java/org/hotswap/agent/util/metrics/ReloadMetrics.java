@@ -0,0 +1,174 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.util.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Latency metrics of the reload pipeline.
+ * <p/>
+ * Usage pattern on the hot path:
+ * <pre>
+ * long start = ReloadMetrics.start();
+ * ... measured code ...
+ * ReloadMetrics.record(Stage.TRANSFORM, pluginName, start);
+ * </pre>
+ * If metrics are disabled, start() returns 0 and record() returns immediately, hence no time is measured
+ * and nothing is allocated. Callers should compute the name only if start is not 0.
+ */
+public class ReloadMetrics {
+
+    /**
+     * Stages of the reload pipeline.
+     */
+    public enum Stage {
+        /** Watcher thread processing of a signaled watch key (events queued to dispatcher). */
+        WATCH_EVENT,
+        /** Watch event waiting in the dispatcher queue and calling all listeners. */
+        DISPATCH,
+        /** Command scheduled until command execution started. */
+        SCHEDULE,
+        /** Command execution - typically plugin refresh after a change. */
+        EXECUTE,
+        /** Class transformation by a single transformer. */
+        TRANSFORM,
+        /** Instrumentation.redefineClasses() call. */
+        REDEFINE
+    }
+
+    private static volatile boolean enabled;
+
+    private static final Histogram[] stageHistograms = new Histogram[Stage.values().length];
+
+    @SuppressWarnings("unchecked")
+    private static final ConcurrentMap<String, Histogram>[] namedHistograms = new ConcurrentMap[Stage.values().length];
+
+    static {
+        for (int i = 0; i < stageHistograms.length; i++) {
+            stageHistograms[i] = new Histogram();
+            namedHistograms[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * @return true if metrics are collected
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enable/disable metrics collection.
+     */
+    public static void setEnabled(boolean enabled) {
+        ReloadMetrics.enabled = enabled;
+    }
+
+    /**
+     * Start measurement.
+     *
+     * @return start time in nanoseconds or 0 if metrics are disabled
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Record duration of a stage.
+     *
+     * @param stage the stage
+     * @param startNanos value returned by start(), nothing is recorded if 0
+     */
+    public static void record(Stage stage, long startNanos) {
+        if (startNanos != 0L) {
+            stageHistograms[stage.ordinal()].record(System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Record duration of a stage for a plugin (or command).
+     *
+     * @param stage the stage
+     * @param name plugin or command name, stage total is recorded only if null
+     * @param startNanos value returned by start(), nothing is recorded if 0
+     */
+    public static void record(Stage stage, String name, long startNanos) {
+        if (startNanos != 0L) {
+            long duration = System.nanoTime() - startNanos;
+            stageHistograms[stage.ordinal()].record(duration);
+            if (name != null) {
+                ConcurrentMap<String, Histogram> histograms = namedHistograms[stage.ordinal()];
+                Histogram histogram = histograms.get(name);
+                if (histogram == null) {
+                    Histogram newHistogram = new Histogram();
+                    histogram = histograms.putIfAbsent(name, newHistogram);
+                    if (histogram == null) {
+                        histogram = newHistogram;
+                    }
+                }
+                histogram.record(duration);
+            }
+        }
+    }
+
+    /**
+     * Returns statistics snapshot - stage totals followed by per plugin (command) breakdown.
+     */
+    public static List<StageStatistics> getStatistics() {
+        List<StageStatistics> result = new ArrayList<>();
+        for (Stage stage : Stage.values()) {
+            result.add(new StageStatistics(stage.name(), null, stageHistograms[stage.ordinal()]));
+            Map<String, Histogram> sorted = new TreeMap<>(namedHistograms[stage.ordinal()]);
+            for (Map.Entry<String, Histogram> entry : sorted.entrySet()) {
+                result.add(new StageStatistics(stage.name(), entry.getKey(), entry.getValue()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns statistics as plain text report, one line per stage and plugin.
+     */
+    public static String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Hotswap agent reload metrics (").append(enabled ? "enabled" : "disabled").append(")\n");
+        for (StageStatistics statistics : getStatistics()) {
+            if (statistics.getName() != null) {
+                sb.append("    ");
+            }
+            sb.append(statistics).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Reset all collected metrics.
+     */
+    public static void reset() {
+        for (int i = 0; i < stageHistograms.length; i++) {
+            stageHistograms[i].reset();
+            namedHistograms[i].clear();
+        }
+    }
+}
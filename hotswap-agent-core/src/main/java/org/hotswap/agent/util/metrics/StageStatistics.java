@@ -0,0 +1,91 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.util.metrics;
+
+/**
+ * Snapshot of latency statistics of a reload stage, optionally for a single plugin (or command).
+ * Times are in microseconds.
+ */
+public class StageStatistics {
+    private final String stage;
+    private final String name;
+    private final long count;
+    private final long meanMicros;
+    private final long p50Micros;
+    private final long p99Micros;
+    private final long maxMicros;
+
+    public StageStatistics(String stage, String name, Histogram histogram) {
+        this.stage = stage;
+        this.name = name;
+        this.count = histogram.getCount();
+        this.meanMicros = toMicros(histogram.getMean());
+        this.p50Micros = toMicros(histogram.getPercentile(50));
+        this.p99Micros = toMicros(histogram.getPercentile(99));
+        this.maxMicros = toMicros(histogram.getMax());
+    }
+
+    private static long toMicros(long nanos) {
+        return nanos / 1000;
+    }
+
+    /**
+     * @return stage name
+     */
+    public String getStage() {
+        return stage;
+    }
+
+    /**
+     * @return plugin or command name, null for the stage total
+     */
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMeanMicros() {
+        return meanMicros;
+    }
+
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    @Override
+    public String toString() {
+        return stage + (name != null ? " [" + name + "]" : "") +
+                " count=" + count +
+                ", mean=" + meanMicros + "us" +
+                ", p50=" + p50Micros + "us" +
+                ", p99=" + p99Micros + "us" +
+                ", max=" + maxMicros + "us";
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.watch;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hotswap.agent.logging.AgentLogger;
+
+/**
+ * Count of watch events lost by watchers (event queue overflow of the OS or of the agent dispatcher).
+ * <p/>
+ * State kept current by watch events (e.g. a resource index) is not reliable after a loss. Remember the count
+ * when the state is built and rebuild it when the count changes.
+ */
+public class LostWatchEvents {
+    private static AgentLogger LOGGER = AgentLogger.getLogger(LostWatchEvents.class);
+
+    private static final AtomicLong count = new AtomicLong();
+
+    /**
+     * Record lost events.
+     *
+     * @param reason reason for the log
+     */
+    public static void record(String reason) {
+        if (count.getAndIncrement() == 0) {
+            LOGGER.warning("Watch events lost ({}), state kept current by watch events will be rebuilt.", reason);
+        } else {
+            LOGGER.debug("Watch events lost ({}).", reason);
+        }
+    }
+
+    /**
+     * @return number of losses so far
+     */
+    public static long getCount() {
+        return count.get();
+    }
+}
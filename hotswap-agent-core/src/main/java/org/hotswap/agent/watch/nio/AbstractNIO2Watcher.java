@@ -47,6 +47,8 @@ import java.util.concurrent.TimeUnit;
 
 import org.hotswap.agent.logging.AgentLogger;
 import org.hotswap.agent.logging.AgentLogger.Level;
+import org.hotswap.agent.util.metrics.ReloadMetrics;
+import org.hotswap.agent.watch.LostWatchEvents;
 import org.hotswap.agent.watch.WatchEventListener;
 import org.hotswap.agent.watch.Watcher;
 
@@ -222,6 +224,8 @@ public abstract class AbstractNIO2Watcher implements Watcher {
             return true;
         }
 
+        long start = ReloadMetrics.start();
+
         Path dir = keys.get(key);
 
         if (dir == null) {
@@ -234,6 +238,7 @@ public abstract class AbstractNIO2Watcher implements Watcher {
 
             if (kind == OVERFLOW) {
                 LOGGER.warning("WatchKey '{}' overflowed", key);
+                LostWatchEvents.record("overflow of " + dir);
                 continue;
             }
 
@@ -275,6 +280,7 @@ public abstract class AbstractNIO2Watcher implements Watcher {
                 return false;
             }
         }
+        ReloadMetrics.record(ReloadMetrics.Stage.WATCH_EVENT, start);
         return true;
     }
 
@@ -18,6 +18,8 @@
  */
 package org.hotswap.agent.watch.nio;
 
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+
 import java.nio.file.Path;
 import java.nio.file.WatchEvent;
 import java.util.ArrayList;
@@ -25,7 +27,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
 
+import org.hotswap.agent.javassist.ClassPool;
 import org.hotswap.agent.logging.AgentLogger;
+import org.hotswap.agent.util.metrics.ReloadMetrics;
+import org.hotswap.agent.watch.LostWatchEvents;
 import org.hotswap.agent.watch.WatchEventListener;
 import org.hotswap.agent.watch.WatchFileEvent;
 
@@ -55,6 +60,9 @@ public class EventDispatcher implements Runnable {
         /** The path. */
         final Path path;
 
+        /** Time when the event was queued (0 if metrics are disabled). */
+        final long time;
+
         /**
          * Instantiates a new event.
          *
@@ -67,6 +75,7 @@ public class EventDispatcher implements Runnable {
             super();
             this.event = event;
             this.path = path;
+            this.time = ReloadMetrics.start();
         }
     }
 
@@ -112,6 +121,7 @@ public class EventDispatcher implements Runnable {
             // finish any pending ones
             for (Event e : working) {
                 callListeners(e.event, e.path);
+                ReloadMetrics.record(ReloadMetrics.Stage.DISPATCH, e.time);
                 if (Thread.interrupted()) {
                     return;
                 }
@@ -123,6 +133,7 @@ public class EventDispatcher implements Runnable {
             // work on new events.
             for (Event e : working) {
                 callListeners(e.event, e.path);
+                ReloadMetrics.record(ReloadMetrics.Stage.DISPATCH, e.time);
                 if (Thread.interrupted()) {
                     return;
                 }
@@ -150,7 +161,9 @@ public class EventDispatcher implements Runnable {
      *            the path
      */
     public void add(WatchEvent<Path> event, Path path) {
-        eventQueue.offer(new Event(event, path));
+        if (!eventQueue.offer(new Event(event, path))) {
+            LostWatchEvents.record("dispatcher queue full, dropped " + path);
+        }
     }
 
     /**
@@ -162,8 +175,12 @@ public class EventDispatcher implements Runnable {
      * @param path
      *            the path
      */
-    // notify listeners about new event
-    private void callListeners(final WatchEvent<?> event, final Path path) {
+    // notify listeners about new event (package visibility for benchmarks)
+    void callListeners(final WatchEvent<?> event, final Path path) {
+        if (event.kind() == ENTRY_CREATE) {
+            // class pools may have cached the class as missing
+            ClassPool.clearMissingLookups();
+        }
         boolean matchedOne = false;
         for (Map.Entry<Path, List<WatchEventListener>> list : listeners.entrySet()) {
             if (path.startsWith(list.getKey())) {
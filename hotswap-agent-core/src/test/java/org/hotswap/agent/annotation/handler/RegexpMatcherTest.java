@@ -0,0 +1,74 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.annotation.handler;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RegexpMatcherTest {
+
+    private static final String[] REGEXPS = {
+            ".*", ".*.xml", ".*\\.xml", ".*.hbm.xml", ".*.properties", "persistence.xml",
+            ".*\\w+\\.xml", "org.hotswap.*", ".*(a|b).xml", ".*\\$Proxy"
+    };
+
+    private static final String[] INPUTS = {
+            "", "xml", ".xml", "axml", "file:/tmp/a.xml", "file:/tmp/a.hbm.xml", "file:/tmp/a.properties",
+            "persistence.xml", "file:/tmp/persistence.xml", "org.hotswap.Test", "org.hotswap.Test$Proxy",
+            "file:/tmp/b.xml", "a\n.xml", "file:/tmp/a.xml\n"
+    };
+
+    @Test
+    public void testSameAsStringMatches() {
+        for (String regexp : REGEXPS) {
+            RegexpMatcher matcher = RegexpMatcher.compile(regexp);
+            for (String input : INPUTS) {
+                assertEquals(regexp + " on '" + input + "'", input.matches(regexp), matcher.matches(input));
+            }
+        }
+    }
+
+    @Test
+    public void testPrefix() {
+        assertEquals("", RegexpMatcher.compile(".*.xml").getPrefix());
+        assertEquals("persistence", RegexpMatcher.compile("persistence.xml").getPrefix());
+        assertEquals("org", RegexpMatcher.compile("org.hotswap.*").getPrefix());
+        assertEquals("file:/tmp/a.", RegexpMatcher.compile("file:/tmp/a\\..*").getPrefix());
+        assertEquals("file:/tm", RegexpMatcher.compile("file:/tmp?/.*").getPrefix());
+        assertEquals("", RegexpMatcher.compile("a.*|b.*").getPrefix());
+
+        for (String regexp : REGEXPS) {
+            RegexpMatcher matcher = RegexpMatcher.compile(regexp);
+            for (String input : INPUTS) {
+                if (matcher.matches(input)) {
+                    assertTrue(regexp + " on '" + input + "'", input.startsWith(matcher.getPrefix()));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        assertNull(RegexpMatcher.compile(null));
+        assertNull(RegexpMatcher.compile(""));
+    }
+}
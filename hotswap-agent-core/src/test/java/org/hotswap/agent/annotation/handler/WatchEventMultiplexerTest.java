@@ -0,0 +1,155 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.annotation.handler;
+
+import org.hotswap.agent.annotation.FileEvent;
+import org.hotswap.agent.annotation.OnResourceFileEvent;
+import org.hotswap.agent.annotation.Plugin;
+import org.hotswap.agent.command.Command;
+import org.hotswap.agent.command.Scheduler;
+import org.hotswap.agent.config.PluginManager;
+import org.hotswap.agent.watch.WatchEventListener;
+import org.hotswap.agent.watch.WatchFileEvent;
+import org.hotswap.agent.watch.Watcher;
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.lib.legacy.ClassImposteriser;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.net.URI;
+
+import static org.junit.Assert.assertEquals;
+
+public class WatchEventMultiplexerTest {
+
+    Mockery context = new Mockery() {{
+        setImposteriser(ClassImposteriser.INSTANCE);
+    }};
+
+    PluginManager pluginManager = context.mock(PluginManager.class);
+    Watcher watcher = context.mock(Watcher.class);
+    Scheduler scheduler = context.mock(Scheduler.class);
+
+    @Plugin(name = "WatchPlugin", testedVersions = {})
+    public static class WatchPlugin {
+        @OnResourceFileEvent(path = "/", filter = ".*\\.xml", events = FileEvent.MODIFY)
+        public void onXml() {
+        }
+
+        @OnResourceFileEvent(path = "/", events = {FileEvent.CREATE, FileEvent.MODIFY})
+        public void onAny() {
+        }
+
+        @OnResourceFileEvent(path = "/", filter = "file:/tmp/root/conf/.*", events = FileEvent.DELETE)
+        public void onConfDelete() {
+        }
+    }
+
+    @Test
+    public void testSingleListenerAndRouting() throws Exception {
+        final URI root = new URI("file:/tmp/root/");
+        final ClassLoader classLoader = getClass().getClassLoader();
+        final WatchEventListener[] registered = new WatchEventListener[1];
+        final int[] scheduled = new int[1];
+
+        context.checking(new Expectations() {{
+            allowing(pluginManager).getWatcher();
+            will(returnValue(watcher));
+            allowing(pluginManager).getScheduler();
+            will(returnValue(scheduler));
+            oneOf(watcher).addEventListener(with(classLoader), with(root), with(any(WatchEventListener.class)));
+            will(new org.jmock.lib.action.CustomAction("capture listener") {
+                @Override
+                public Object invoke(org.jmock.api.Invocation invocation) {
+                    registered[0] = (WatchEventListener) invocation.getParameter(2);
+                    return null;
+                }
+            });
+            allowing(scheduler).scheduleCommand(with(any(Command.class)), with(any(int.class)));
+            will(new org.jmock.lib.action.CustomAction("count") {
+                @Override
+                public Object invoke(org.jmock.api.Invocation invocation) {
+                    scheduled[0]++;
+                    return null;
+                }
+            });
+        }});
+
+        WatchEventMultiplexer multiplexer = new WatchEventMultiplexer(pluginManager);
+        WatchPlugin plugin = new WatchPlugin();
+        for (String methodName : new String[]{"onXml", "onAny", "onConfDelete"}) {
+            Method method = WatchPlugin.class.getMethod(methodName);
+            PluginAnnotation<OnResourceFileEvent> pluginAnnotation = new PluginAnnotation<>(WatchPlugin.class, plugin,
+                    method.getAnnotation(OnResourceFileEvent.class), method);
+            multiplexer.register(pluginAnnotation, WatchEventDTO.parse(pluginAnnotation.getAnnotation()), classLoader, root);
+        }
+
+        // both methods
+        registered[0].onEvent(event(FileEvent.MODIFY, "file:/tmp/root/a.xml"));
+        assertEquals(2, scheduled[0]);
+
+        // filter does not match
+        registered[0].onEvent(event(FileEvent.MODIFY, "file:/tmp/root/a.txt"));
+        assertEquals(3, scheduled[0]);
+
+        // event type registered only by onAny
+        registered[0].onEvent(event(FileEvent.CREATE, "file:/tmp/root/a.xml"));
+        assertEquals(4, scheduled[0]);
+
+        // outside of the filter prefix
+        registered[0].onEvent(event(FileEvent.DELETE, "file:/tmp/root/a.xml"));
+        assertEquals(4, scheduled[0]);
+
+        registered[0].onEvent(event(FileEvent.DELETE, "file:/tmp/root/conf/a.xml"));
+        assertEquals(5, scheduled[0]);
+
+        // closed classloader
+        multiplexer.closeClassLoader(classLoader);
+        registered[0].onEvent(event(FileEvent.MODIFY, "file:/tmp/root/a.xml"));
+        assertEquals(5, scheduled[0]);
+
+        context.assertIsSatisfied();
+    }
+
+    private static WatchFileEvent event(final FileEvent fileEvent, final String uri) throws Exception {
+        final URI eventUri = new URI(uri);
+        return new WatchFileEvent() {
+            @Override
+            public FileEvent getEventType() {
+                return fileEvent;
+            }
+
+            @Override
+            public URI getURI() {
+                return eventUri;
+            }
+
+            @Override
+            public boolean isFile() {
+                return true;
+            }
+
+            @Override
+            public boolean isDirectory() {
+                return false;
+            }
+        };
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.harness;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Approximate number of bytes allocated on heap by all threads of the JVM.
+ * <p/>
+ * Allocated bytes = current heap usage + bytes reclaimed by all garbage collections so far. Per thread
+ * counters can't be used, because agent commands run in short lived threads. GC notifications are
+ * delivered asynchronously, hence the value is precise only when no collection is in progress.
+ */
+class AllocationCounter implements NotificationListener {
+
+    private final Set<String> heapPools = new HashSet<>();
+    private final AtomicLong reclaimed = new AtomicLong();
+    private final com.sun.management.ThreadMXBean threadMXBean;
+
+    AllocationCounter() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool.getName());
+            }
+        }
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter) {
+                ((NotificationEmitter) gc).addNotificationListener(this, null, null);
+            }
+        }
+        threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GcInfo gcInfo = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData()).getGcInfo();
+        long before = heapUsed(gcInfo.getMemoryUsageBeforeGc());
+        long after = heapUsed(gcInfo.getMemoryUsageAfterGc());
+        reclaimed.addAndGet(Math.max(0, before - after));
+    }
+
+    private long heapUsed(Map<String, MemoryUsage> usages) {
+        long used = 0;
+        for (Map.Entry<String, MemoryUsage> usage : usages.entrySet()) {
+            if (heapPools.contains(usage.getKey())) {
+                used += usage.getValue().getUsed();
+            }
+        }
+        return used;
+    }
+
+    /**
+     * Bytes allocated by all threads since JVM start.
+     */
+    long allocatedBytes() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                used += pool.getUsage().getUsed();
+            }
+        }
+        return used + reclaimed.get();
+    }
+
+    /**
+     * Bytes allocated by the current thread, used to exclude harness own work from the total.
+     */
+    long currentThreadAllocatedBytes() {
+        return threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
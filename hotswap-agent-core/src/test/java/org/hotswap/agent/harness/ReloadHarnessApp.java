@@ -0,0 +1,221 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.harness;
+
+import org.hotswap.agent.javassist.ClassPool;
+import org.hotswap.agent.util.metrics.Histogram;
+import org.hotswap.agent.util.metrics.ReloadMetrics;
+
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Synthetic application started by {@link ReloadLatencyIT} in a separate JVM with the agent
+ * (<code>-javaagent:hotswap-agent-core.jar=autoHotswap=true</code>).
+ * <p/>
+ * Loads all classes generated by {@link SyntheticApplication} via one child class loader per root directory,
+ * then in each round rewrites K class files with a new version and measures time from the file write until
+ * the new method body is observable. The first round is a warm-up and is not included in results.
+ * <p/>
+ * Arguments: baseDir classes classLoaders changes rounds timeoutMillis.
+ * Exit code is 0 if all reloads were observed within the timeout.
+ */
+public class ReloadHarnessApp {
+
+    private final Path baseDir;
+    private final int classes;
+    private final int classLoaders;
+    private final int changes;
+    private final int rounds;
+    private final long timeoutNanos;
+
+    private final Method[] versionMethods;
+    private final int[] versions;
+
+    private final ClassPool classPool = new ClassPool(true);
+    private final Random random = new Random(42);
+    private final AllocationCounter allocationCounter = new AllocationCounter();
+
+    private final Histogram latency = new Histogram();
+    private long reloads;
+    private long timedOut;
+    private long roundNanos;
+    private long allocatedBytes;
+
+    public ReloadHarnessApp(Path baseDir, int classes, int classLoaders, int changes, int rounds, long timeoutMillis) {
+        this.baseDir = baseDir;
+        this.classes = classes;
+        this.classLoaders = classLoaders;
+        this.changes = Math.min(changes, classes);
+        this.rounds = rounds;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        this.versionMethods = new Method[classes];
+        this.versions = new int[classes];
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 6) {
+            System.err.println("Usage: ReloadHarnessApp baseDir classes classLoaders changes rounds timeoutMillis");
+            System.exit(2);
+        }
+
+        ReloadHarnessApp app = new ReloadHarnessApp(Paths.get(args[0]), Integer.parseInt(args[1]),
+                Integer.parseInt(args[2]), Integer.parseInt(args[3]), Integer.parseInt(args[4]), Long.parseLong(args[5]));
+
+        long loadMillis = app.load();
+        app.round(false);
+        for (int i = 0; i < app.rounds; i++) {
+            app.round(true);
+        }
+        System.out.println(app.report(loadMillis));
+        if (ReloadMetrics.isEnabled()) {
+            System.out.println(ReloadMetrics.report());
+        }
+
+        System.exit(app.timedOut == 0 ? 0 : 1);
+    }
+
+    /**
+     * Load and initialize all classes.
+     *
+     * @return load time in milliseconds
+     */
+    long load() throws Exception {
+        long start = System.nanoTime();
+
+        ClassLoader[] loaders = new ClassLoader[classLoaders];
+        for (int loader = 0; loader < classLoaders; loader++) {
+            URL root = SyntheticApplication.loaderRoot(baseDir, loader).toUri().toURL();
+            loaders[loader] = new URLClassLoader(new URL[]{root}, ReloadHarnessApp.class.getClassLoader());
+        }
+
+        for (int i = 0; i < classes; i++) {
+            Class<?> clazz = loaders[i % classLoaders].loadClass(SyntheticApplication.className(i, classLoaders));
+            versionMethods[i] = clazz.getMethod("version");
+            versions[i] = (Integer) versionMethods[i].invoke(null);
+        }
+
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    /**
+     * Rewrite class files of random classes and wait until all new versions are observable.
+     *
+     * @param measure false for warm-up round
+     */
+    void round(boolean measure) throws Exception {
+        int[] changed = pickClasses();
+        long[] writeNanos = new long[changed.length];
+
+        long allocatedStart = allocationCounter.allocatedBytes();
+        long harnessAllocatedStart = allocationCounter.currentThreadAllocatedBytes();
+        long start = System.nanoTime();
+
+        for (int i = 0; i < changed.length; i++) {
+            int classIndex = changed[i];
+            String className = SyntheticApplication.className(classIndex, classLoaders);
+            byte[] bytes = SyntheticApplication.classBytes(classPool, className, versions[classIndex] + 1);
+            Path classFile = SyntheticApplication.classFile(
+                    SyntheticApplication.loaderRoot(baseDir, classIndex % classLoaders), className);
+            writeNanos[i] = System.nanoTime();
+            SyntheticApplication.write(classFile, bytes);
+        }
+
+        long[] observedNanos = new long[changed.length];
+        int pending = changed.length;
+        while (pending > 0 && System.nanoTime() - start < timeoutNanos) {
+            for (int i = 0; i < changed.length; i++) {
+                if (observedNanos[i] == 0
+                        && (Integer) versionMethods[changed[i]].invoke(null) == versions[changed[i]] + 1) {
+                    observedNanos[i] = System.nanoTime();
+                    pending--;
+                }
+            }
+            if (pending > 0) {
+                Thread.sleep(1);
+            }
+        }
+
+        long end = System.nanoTime();
+        long harnessAllocated = allocationCounter.currentThreadAllocatedBytes() - harnessAllocatedStart;
+        long allocated = allocationCounter.allocatedBytes() - allocatedStart - harnessAllocated;
+
+        for (int i = 0; i < changed.length; i++) {
+            if (observedNanos[i] != 0) {
+                versions[changed[i]]++;
+                if (measure) {
+                    latency.record(observedNanos[i] - writeNanos[i]);
+                    reloads++;
+                }
+            } else {
+                System.err.println("Reload of " + SyntheticApplication.className(changed[i], classLoaders)
+                        + " not observed within timeout.");
+                if (measure) {
+                    timedOut++;
+                }
+            }
+        }
+
+        if (measure) {
+            roundNanos += end - start;
+            allocatedBytes += Math.max(0, allocated);
+        }
+    }
+
+    private int[] pickClasses() {
+        List<Integer> picked = new ArrayList<>();
+        while (picked.size() < changes) {
+            int classIndex = random.nextInt(classes);
+            if (!picked.contains(classIndex)) {
+                picked.add(classIndex);
+            }
+        }
+        int[] ret = new int[picked.size()];
+        for (int i = 0; i < ret.length; i++) {
+            ret[i] = picked.get(i);
+        }
+        return ret;
+    }
+
+    String report(long loadMillis) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Reload harness: %d classes, %d class loaders, %d changes x %d rounds%n",
+                classes, classLoaders, changes, rounds));
+        sb.append(String.format("  class loading     : %d ms%n", loadMillis));
+        sb.append(String.format("  reloads           : %d (%d timed out)%n", reloads, timedOut));
+        sb.append(String.format("  throughput        : %.1f reloads/s%n",
+                roundNanos == 0 ? 0.0 : reloads * 1e9 / roundNanos));
+        sb.append(String.format("  latency (ms)      : mean %.1f, p50 %.1f, p90 %.1f, p99 %.1f, max %.1f%n",
+                millis(latency.getMean()), millis(latency.getPercentile(50)), millis(latency.getPercentile(90)),
+                millis(latency.getPercentile(99)), millis(latency.getMax())));
+        sb.append(String.format("  allocation/reload : %d KB", reloads == 0 ? 0 : allocatedBytes / reloads / 1024));
+        return sb.toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
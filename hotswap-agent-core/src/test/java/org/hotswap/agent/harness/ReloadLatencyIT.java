@@ -0,0 +1,127 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.harness;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * End to end reload latency harness.
+ * <p/>
+ * Generates a synthetic application, starts it in a new JVM with the agent jar and autoHotswap enabled
+ * and measures reload latency of changed class files (see {@link ReloadHarnessApp}). Run it with
+ * <code>mvn verify -Preload-harness</code>, the size is configured by system properties:
+ * <ul>
+ * <li>harness.classes - number of classes (default 2000)</li>
+ * <li>harness.classLoaders - number of child class loaders (default 4)</li>
+ * <li>harness.changes - number of class files rewritten per round (default 10)</li>
+ * <li>harness.rounds - number of measured rounds (default 5)</li>
+ * <li>harness.timeout - timeout in milliseconds for a round (default 30000)</li>
+ * <li>harness.agentArgs - javaagent options (default autoHotswap=true), e.g. autoHotswap=true,metrics=true</li>
+ * <li>harness.jvmArgs - additional space separated JVM arguments, e.g. -Xmx4g</li>
+ * </ul>
+ */
+public class ReloadLatencyIT {
+
+    Path baseDir;
+
+    @Before
+    public void setup() throws IOException {
+        baseDir = Files.createTempDirectory("reloadHarness");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.walkFileTree(baseDir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @Test
+    public void reloadLatency() throws Exception {
+        String agentJar = System.getProperty("harness.agentJar");
+        Assume.assumeTrue("Agent jar not available, run with -Preload-harness",
+                agentJar != null && new File(agentJar).isFile());
+
+        int classes = Integer.getInteger("harness.classes", 2000);
+        int classLoaders = Integer.getInteger("harness.classLoaders", 4);
+        int changes = Integer.getInteger("harness.changes", 10);
+        int rounds = Integer.getInteger("harness.rounds", 5);
+        long timeout = Long.getLong("harness.timeout", 30000);
+
+        SyntheticApplication.generate(baseDir, classes, classLoaders);
+
+        String harnessClasses = Paths.get(ReloadHarnessApp.class.getProtectionDomain().getCodeSource()
+                .getLocation().toURI()).toString();
+
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-javaagent:" + agentJar + "=" + System.getProperty("harness.agentArgs", "autoHotswap=true"));
+        String jvmArgs = System.getProperty("harness.jvmArgs", "").trim();
+        if (!jvmArgs.isEmpty()) {
+            command.addAll(Arrays.asList(jvmArgs.split("\\s+")));
+        }
+        command.add("-cp");
+        command.add(harnessClasses + File.pathSeparator + agentJar);
+        command.add(ReloadHarnessApp.class.getName());
+        command.add(baseDir.toString());
+        command.add(String.valueOf(classes));
+        command.add(String.valueOf(classLoaders));
+        command.add(String.valueOf(changes));
+        command.add(String.valueOf(rounds));
+        command.add(String.valueOf(timeout));
+
+        Process process = new ProcessBuilder(command).inheritIO().start();
+        boolean finished = process.waitFor(timeout * (rounds + 2) + TimeUnit.MINUTES.toMillis(5), TimeUnit.MILLISECONDS);
+        if (!finished) {
+            process.destroyForcibly();
+        }
+
+        assertTrue("Harness application did not finish in time", finished);
+        assertEquals("Some reloads were not observed, see the harness output", 0, process.exitValue());
+    }
+}
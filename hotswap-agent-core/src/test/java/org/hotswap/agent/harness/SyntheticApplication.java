@@ -0,0 +1,103 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.harness;
+
+import org.hotswap.agent.javassist.ClassPool;
+import org.hotswap.agent.javassist.CtClass;
+import org.hotswap.agent.javassist.CtField;
+import org.hotswap.agent.javassist.CtNewMethod;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generator of a synthetic application for the reload latency harness.
+ * <p/>
+ * Classes are spread round robin over class loader roots (one directory per child class loader). Each class
+ * has a static <code>version()</code> method returning the class version, so a reload is observable simply
+ * by calling it.
+ */
+public class SyntheticApplication {
+
+    public static final String PACKAGE = "harness.app";
+
+    /**
+     * Class loader root directory.
+     */
+    public static Path loaderRoot(Path baseDir, int loader) {
+        return baseDir.resolve("loader" + loader);
+    }
+
+    /**
+     * Class name of a class, classes are distributed round robin over class loaders.
+     */
+    public static String className(int classIndex, int classLoaders) {
+        return PACKAGE + ".l" + (classIndex % classLoaders) + ".Class" + classIndex;
+    }
+
+    /**
+     * Location of the class file inside the class loader root.
+     */
+    public static Path classFile(Path loaderRoot, String className) {
+        return loaderRoot.resolve(className.replace('.', '/') + ".class");
+    }
+
+    /**
+     * Create bytecode of the class in given version.
+     */
+    public static byte[] classBytes(ClassPool classPool, String className, int version) throws Exception {
+        CtClass ctClass = classPool.makeClass(className);
+        try {
+            ctClass.addField(CtField.make("private int counter;", ctClass));
+            ctClass.addMethod(CtNewMethod.make("public static int version() { return " + version + "; }", ctClass));
+            ctClass.addMethod(CtNewMethod.make("public int next() { return ++counter + version(); }", ctClass));
+            ctClass.addMethod(CtNewMethod.make("public String toString() { return \"" + className + "#\" + counter; }", ctClass));
+            return ctClass.toBytecode();
+        } finally {
+            ctClass.detach();
+        }
+    }
+
+    /**
+     * Write all classes of the application in version 0.
+     *
+     * @return class loader roots
+     */
+    public static List<Path> generate(Path baseDir, int classes, int classLoaders) throws Exception {
+        List<Path> roots = new ArrayList<>();
+        for (int loader = 0; loader < classLoaders; loader++) {
+            roots.add(Files.createDirectories(loaderRoot(baseDir, loader)));
+        }
+
+        ClassPool classPool = new ClassPool(true);
+        for (int i = 0; i < classes; i++) {
+            String className = className(i, classLoaders);
+            write(classFile(roots.get(i % classLoaders), className), classBytes(classPool, className, 0));
+        }
+        return roots;
+    }
+
+    static void write(Path classFile, byte[] bytes) throws IOException {
+        Files.createDirectories(classFile.getParent());
+        Files.write(classFile, bytes);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.javassist;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class ClassPoolTailTest {
+
+    Path root;
+
+    @Before
+    public void setup() throws IOException {
+        root = Files.createTempDirectory("classPoolTailTest");
+        Files.createDirectories(root.resolve("org/example"));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        delete(root.toFile());
+    }
+
+    @Test
+    public void testMissInDirectoryIsCachedUntilCleared() throws Exception {
+        ClassPool pool = new ClassPool(false);
+        pool.appendClassPath(root.toString());
+        assertNull(pool.find("org.example.Late"));
+
+        Files.write(root.resolve("org/example/Late.class"), new byte[0]);
+        assertNull("Miss is cached", pool.find("org.example.Late"));
+
+        ClassPool.clearMissingLookups();
+        assertNotNull(pool.find("org.example.Late"));
+    }
+
+    @Test
+    public void testFoundIsRevalidated() throws Exception {
+        Path file = root.resolve("org/example/Gone.class");
+        Files.write(file, new byte[0]);
+        ClassPool pool = new ClassPool(false);
+        pool.appendClassPath(root.toString());
+        assertNotNull(pool.find("org.example.Gone"));
+
+        Files.delete(file);
+        assertNull(pool.find("org.example.Gone"));
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
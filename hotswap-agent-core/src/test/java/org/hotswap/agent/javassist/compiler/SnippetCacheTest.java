@@ -0,0 +1,123 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.javassist.compiler;
+
+import org.hotswap.agent.javassist.ClassPool;
+import org.hotswap.agent.javassist.CtClass;
+import org.hotswap.agent.javassist.CtField;
+import org.hotswap.agent.javassist.CtMethod;
+import org.hotswap.agent.javassist.CtNewMethod;
+import org.hotswap.agent.javassist.LoaderClassPath;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+
+import static org.junit.Assert.assertEquals;
+
+public class SnippetCacheTest {
+
+    private static final String SNIPPET = "{ if ($1 == null) throw new IllegalArgumentException(\"name\"); "
+            + "try { count = count + Integer.parseInt($1); } catch (NumberFormatException e) { count = -1; } "
+            + "$1 = prefix + $1; }";
+
+    @Before
+    public void setup() {
+        SnippetCache.clear();
+    }
+
+    @Test
+    public void testReplayInOtherClassPool() throws Exception {
+        long hits = SnippetCache.getHitCount();
+
+        Class<?> first = createClass("first_", 0);
+        Class<?> second = createClass("second_", 0);
+        assertEquals(hits + 1, SnippetCache.getHitCount());
+
+        assertEquals("first_3:3", invoke(first, "3"));
+        assertEquals("second_4:4", invoke(second, "4"));
+        assertEquals("second_x:-1", invoke(second, "x"));
+    }
+
+    @Test
+    public void testDifferentStructureIsCompiled() throws Exception {
+        long hits = SnippetCache.getHitCount();
+
+        createClass("first_", 0);
+        // an extra field shifts constant pool and changes class structure
+        Class<?> second = createClass("second_", 1);
+        assertEquals(hits, SnippetCache.getHitCount());
+
+        assertEquals("second_5:5", invoke(second, "5"));
+    }
+
+    @Test
+    public void testDifferentImportsAreCompiled() throws Exception {
+        long hits = SnippetCache.getHitCount();
+
+        createClass("first_", 0);
+        // a simple class name of the snippet may resolve to another class
+        Class<?> second = createClass("second_", 0, "java.util");
+        assertEquals(hits, SnippetCache.getHitCount());
+
+        assertEquals("second_7:7", invoke(second, "7"));
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        long hits = SnippetCache.getHitCount();
+
+        SnippetCache.setEnabled(false);
+        try {
+            createClass("first_", 0);
+            Class<?> second = createClass("second_", 0);
+            assertEquals(hits, SnippetCache.getHitCount());
+            assertEquals("second_6:6", invoke(second, "6"));
+        } finally {
+            SnippetCache.setEnabled(true);
+        }
+    }
+
+    private static Class<?> createClass(String prefix, int extraFields, String... importedPackages) throws Exception {
+        ClassPool cp = new ClassPool();
+        cp.appendSystemPath();
+        for (String importedPackage : importedPackages) {
+            cp.importPackage(importedPackage);
+        }
+        cp.appendClassPath(new LoaderClassPath(SnippetCacheTest.class.getClassLoader()));
+
+        CtClass ctClass = cp.makeClass("org.hotswap.agent.javassist.compiler.SnippetTarget");
+        for (int i = 0; i < extraFields; i++) {
+            ctClass.addField(CtField.make("public String extra" + i + " = \"extra\";", ctClass));
+        }
+        ctClass.addField(CtField.make("public int count;", ctClass));
+        ctClass.addField(CtField.make("public String prefix = \"" + prefix + "\";", ctClass));
+        CtMethod method = CtNewMethod.make("public String test(String name) { return name + \":\" + count; }", ctClass);
+        ctClass.addMethod(method);
+        method.insertBefore(SNIPPET);
+
+        return ctClass.toClass(new ClassLoader(SnippetCacheTest.class.getClassLoader()) {}, null);
+    }
+
+    private static Object invoke(Class<?> clazz, String arg) throws Exception {
+        Object instance = clazz.newInstance();
+        Method method = clazz.getMethod("test", String.class);
+        return method.invoke(instance, arg);
+    }
+}
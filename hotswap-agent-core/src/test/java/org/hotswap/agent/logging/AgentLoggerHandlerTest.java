@@ -27,6 +27,8 @@ import org.junit.Test;
 
 import java.io.PrintStream;
 
+import static org.junit.Assert.assertEquals;
+
 /**
  * Created by bubnik on 14.10.13.
  */
@@ -49,4 +51,17 @@ public class AgentLoggerHandlerTest {
         handler.print(PluginManager.class, AgentLogger.Level.DEBUG, "A {} B {} C {}", null, "1", 2, 3L);
     }
 
+    @Test
+    public void testAppendMessage() {
+        assertEquals("A 1 B {}", format("A {} B {}", 1));
+        assertEquals("A 1 B", format("A {} B", 1, 2));
+        assertEquals("{} null", format("{} {}", "{}", null));
+        assertEquals("no args", format("no args"));
+    }
+
+    private static String format(String message, Object... args) {
+        StringBuilder sb = new StringBuilder();
+        AgentLoggerHandler.appendMessage(sb, message, args);
+        return sb.toString();
+    }
 }
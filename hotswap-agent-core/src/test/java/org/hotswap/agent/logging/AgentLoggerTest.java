@@ -24,6 +24,9 @@ import org.jmock.Mockery;
 import org.jmock.lib.legacy.ClassImposteriser;
 import org.junit.Test;
 
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
 /**
  * Created by bubnik on 12.10.13.
  */
@@ -59,4 +62,23 @@ public class AgentLoggerTest {
 
         context.assertIsSatisfied();
     }
+
+    @Test
+    public void testLevelChangeInvalidatesCachedLevel() throws Exception {
+        AgentLogger logger = AgentLogger.getLogger(SimplePlugin.class);
+        assertFalse(logger.isLevelEnabled(AgentLogger.Level.TRACE));
+        assertTrue(logger.isLevelEnabled(AgentLogger.Level.INFO));
+
+        AgentLogger.setLevel("org.hotswap.agent.testData", AgentLogger.Level.TRACE);
+        assertTrue(logger.isLevelEnabled(AgentLogger.Level.TRACE));
+
+        // longer prefix wins
+        AgentLogger.setLevel("org.hotswap.agent.testData.Simple", AgentLogger.Level.ERROR);
+        assertFalse(logger.isLevelEnabled(AgentLogger.Level.WARNING));
+        assertTrue(logger.isLevelEnabled(AgentLogger.Level.ERROR));
+
+        AgentLogger.setLevel("org.hotswap.agent.testData.Simple", AgentLogger.Level.INFO);
+        AgentLogger.setLevel("org.hotswap.agent.testData", AgentLogger.Level.INFO);
+        assertFalse(logger.isLevelEnabled(AgentLogger.Level.DEBUG));
+    }
 }
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.logging;
+
+import org.hotswap.agent.config.PluginManager;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncAgentLoggerHandlerTest {
+
+    @Test
+    public void testWaitPolicyWritesAllLines() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AsyncAgentLoggerHandler handler = new AsyncAgentLoggerHandler(4, AsyncAgentLoggerHandler.OverflowPolicy.WAIT);
+        handler.setPrintStream(new PrintStream(out, true));
+
+        for (int i = 0; i < 100; i++) {
+            handler.print(PluginManager.class, AgentLogger.Level.DEBUG, "line {}", null, i);
+        }
+        handler.flush();
+
+        String[] lines = out.toString().split("\\r?\\n");
+        assertEquals(100, lines.length);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(lines[i], lines[i].endsWith("DEBUG (org.hotswap.agent.config.PluginManager) - line " + i));
+        }
+        assertEquals(0, handler.getDroppedCount());
+    }
+
+    @Test
+    public void testDropPolicyCountsDroppedLines() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AsyncAgentLoggerHandler handler = new AsyncAgentLoggerHandler(2, AsyncAgentLoggerHandler.OverflowPolicy.DROP);
+        handler.setPrintStream(new PrintStream(out, true));
+
+        for (int i = 0; i < 200; i++) {
+            handler.print(PluginManager.class, AgentLogger.Level.DEBUG, "line {}", null, i);
+        }
+        handler.flush();
+
+        String[] lines = out.toString().split("\\r?\\n");
+        long written = 0;
+        for (String line : lines) {
+            if (line.contains(" - line ")) {
+                written++;
+            }
+        }
+        assertEquals(200, written + handler.getDroppedCount());
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.util;
+
+import org.hotswap.agent.javassist.ClassPool;
+import org.hotswap.agent.javassist.CtClass;
+import org.hotswap.agent.javassist.CtField;
+import org.hotswap.agent.javassist.CtNewMethod;
+import org.hotswap.agent.javassist.bytecode.AnnotationsAttribute;
+import org.hotswap.agent.javassist.bytecode.ClassFile;
+import org.hotswap.agent.javassist.bytecode.annotation.Annotation;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ClassFilePatcherTest {
+
+    private static final String CLASS_NAME = "org.hotswap.agent.util.PatchedClass";
+
+    @Test
+    public void testNotModified() throws Exception {
+        byte[] bytes = createClass();
+        ClassFilePatcher patcher = new ClassFilePatcher(bytes);
+        assertEquals(CLASS_NAME, patcher.getClassName());
+        assertFalse(patcher.isModified());
+        assertArrayEquals(bytes, patcher.toBytecode());
+    }
+
+    @Test
+    public void testAccessFlags() throws Exception {
+        ClassFilePatcher patcher = new ClassFilePatcher(createClass());
+        assertTrue(Modifier.isFinal(patcher.getAccessFlags()));
+        patcher.setAccessFlags(patcher.getAccessFlags() & ~Modifier.FINAL);
+        assertTrue(patcher.setMethodAccessFlags("secret", null, Modifier.PUBLIC));
+        assertTrue(patcher.setFieldAccessFlags("value", Modifier.PUBLIC));
+        assertFalse(patcher.setMethodAccessFlags("missing", null, Modifier.PUBLIC));
+        assertEquals(Modifier.PUBLIC, patcher.getMethodAccessFlags("secret", "()Ljava/lang/String;"));
+
+        Class<?> clazz = define(patcher.toBytecode());
+        assertFalse(Modifier.isFinal(clazz.getModifiers()));
+        Method secret = clazz.getDeclaredMethod("secret");
+        assertTrue(Modifier.isPublic(secret.getModifiers()));
+        assertEquals("secret", secret.invoke(clazz.newInstance()));
+        assertTrue(Modifier.isPublic(clazz.getDeclaredField("value").getModifiers()));
+    }
+
+    @Test
+    public void testAddField() throws Exception {
+        ClassFilePatcher patcher = new ClassFilePatcher(createClass());
+        patcher.addField(Modifier.PUBLIC | Modifier.STATIC, "registry", "Ljava/util/Map;");
+        patcher.addField(Modifier.PUBLIC, "value2", "Ljava/lang/String;");
+        assertTrue(patcher.isModified());
+
+        byte[] patched = patcher.toBytecode();
+        Class<?> clazz = define(patched);
+        Field registry = clazz.getDeclaredField("registry");
+        assertEquals(java.util.Map.class, registry.getType());
+        assertTrue(Modifier.isStatic(registry.getModifiers()));
+        assertEquals(String.class, clazz.getDeclaredField("value2").getType());
+        assertEquals("secret", clazz.getDeclaredMethod("toString").invoke(clazz.newInstance()));
+
+        // still a valid class file for further processing
+        ClassFilePatcher again = new ClassFilePatcher(patched);
+        assertTrue(again.hasField("registry"));
+        assertTrue(again.hasMethod("secret", null));
+        new ClassPool().makeClass(new ByteArrayInputStream(patched)).detach();
+    }
+
+    @Test
+    public void testHasAttribute() throws Exception {
+        ClassPool cp = new ClassPool(true);
+        CtClass ctClass = cp.makeClass(CLASS_NAME + "Annotated");
+        ClassFile classFile = ctClass.getClassFile();
+        AnnotationsAttribute attribute = new AnnotationsAttribute(classFile.getConstPool(), AnnotationsAttribute.visibleTag);
+        attribute.addAnnotation(new Annotation(Deprecated.class.getName(), classFile.getConstPool()));
+        classFile.addAttribute(attribute);
+        byte[] annotated = ctClass.toBytecode();
+        ctClass.detach();
+
+        assertTrue(new ClassFilePatcher(annotated).hasAttribute(AnnotationsAttribute.visibleTag));
+        assertTrue(new ClassFilePatcher(annotated).hasAttribute("SourceFile"));
+        assertFalse(new ClassFilePatcher(createClass()).hasAttribute(AnnotationsAttribute.visibleTag));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testExistingField() throws Exception {
+        new ClassFilePatcher(createClass()).addField(Modifier.PUBLIC, "value", "Ljava/lang/String;");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNotClassFile() {
+        new ClassFilePatcher(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10});
+    }
+
+    private static byte[] createClass() throws Exception {
+        ClassPool cp = new ClassPool(true);
+        CtClass ctClass = cp.makeClass(CLASS_NAME);
+        ctClass.setModifiers(Modifier.PUBLIC | Modifier.FINAL);
+        ctClass.addField(CtField.make("private String value = \"secret\";", ctClass));
+        ctClass.addMethod(CtNewMethod.make("private String secret() { return value; }", ctClass));
+        ctClass.addMethod(CtNewMethod.make("public String toString() { return secret(); }", ctClass));
+        byte[] bytes = ctClass.toBytecode();
+        ctClass.detach();
+        return bytes;
+    }
+
+    private static Class<?> define(final byte[] bytes) throws Exception {
+        return new ClassLoader(ClassFilePatcherTest.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                if (CLASS_NAME.equals(name)) {
+                    return defineClass(name, bytes, 0, bytes.length);
+                }
+                throw new ClassNotFoundException(name);
+            }
+        }.loadClass(CLASS_NAME);
+    }
+}
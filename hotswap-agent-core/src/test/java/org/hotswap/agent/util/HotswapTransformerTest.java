@@ -0,0 +1,71 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.util;
+
+import java.lang.instrument.IllegalClassFormatException;
+import java.security.ProtectionDomain;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class HotswapTransformerTest {
+
+    static class TestTransformer implements HaClassFileTransformer {
+        boolean called;
+
+        @Override
+        public boolean isForRedefinitionOnly() {
+            return false;
+        }
+
+        @Override
+        public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined,
+                                ProtectionDomain protectionDomain, byte[] classfileBuffer) throws IllegalClassFormatException {
+            called = true;
+            return classfileBuffer;
+        }
+    }
+
+    @Test
+    public void testPassiveTransform() throws Exception {
+        HotswapTransformer hotswapTransformer = new HotswapTransformer();
+        TestTransformer transformer = new TestTransformer();
+        hotswapTransformer.registerTransformer(null, "org.example.Test.*", transformer);
+        hotswapTransformer.setPassive(true);
+
+        assertNull(hotswapTransformer.transform(getClass().getClassLoader(), "org/example/TestClass", null, null, new byte[0]));
+        // classloader already recorded
+        assertNull(hotswapTransformer.transform(getClass().getClassLoader(), "org/example/TestClass2", null, null, new byte[0]));
+        assertNull(hotswapTransformer.transform(null, "org/example/TestClass3", null, null, new byte[0]));
+        assertFalse("Transformer not called in passive mode", transformer.called);
+        assertTrue(hotswapTransformer.isPassive());
+    }
+
+    @Test
+    public void testHasDefinitionTransformer() throws Exception {
+        HotswapTransformer hotswapTransformer = new HotswapTransformer();
+        hotswapTransformer.registerTransformer(null, "org.example.Test.*", new TestTransformer());
+
+        assertTrue(hotswapTransformer.hasDefinitionTransformer("org.example.TestClass"));
+        assertFalse(hotswapTransformer.hasDefinitionTransformer("org.example.Other"));
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.util;
+
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class ReflectionHelperTest {
+
+    static class Base {
+        private String name = "base";
+    }
+
+    static class Target extends Base {
+        private int count;
+
+        private int increment(Integer delta) {
+            return count += delta;
+        }
+    }
+
+    @Test
+    public void testInvokeAndFields() {
+        Target target = new Target();
+        assertEquals(1, ReflectionHelper.invoke(target, Target.class, "increment", new Class[]{Integer.class}, 1));
+        assertEquals(3, ReflectionHelper.invoke(target, Target.class, "increment", new Class[]{Integer.class}, 2));
+        assertEquals("base", ReflectionHelper.get(target, "name"));
+
+        ReflectionHelper.set(target, Target.class, "count", 10);
+        assertEquals(10, ReflectionHelper.get(target, Target.class, "count"));
+    }
+
+    @Test
+    public void testMissingMember() {
+        for (int i = 0; i < 2; i++) {
+            try {
+                ReflectionHelper.invoke(new Target(), Target.class, "missing", new Class[]{});
+                fail("Missing method must throw IllegalArgumentException (cached or not)");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+            assertNull(ReflectionHelper.getNoException(new Target(), Target.class, "missing"));
+        }
+    }
+
+    @Test
+    public void testCache() throws Exception {
+        Method method = ReflectionHelper.getMethod(Target.class, "increment", Integer.class);
+        assertSame(method, ReflectionHelper.getMethod(Target.class, "increment", Integer.class));
+
+        ReflectionHelper.clearCache();
+        assertNotSame(method, ReflectionHelper.getMethod(Target.class, "increment", Integer.class));
+
+        try {
+            ReflectionHelper.getDeclaredMethod(Target.class, "increment", int.class);
+            fail("Method with different parameter types must not be found");
+        } catch (NoSuchMethodException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testSuspendedCache() throws Exception {
+        ReflectionHelper.suspendCache();
+        try {
+            Method method = ReflectionHelper.getMethod(Target.class, "increment", Integer.class);
+            assertNotSame("Not cached during redefinition", method, ReflectionHelper.getMethod(Target.class, "increment", Integer.class));
+        } finally {
+            ReflectionHelper.resumeCache();
+        }
+
+        Method method = ReflectionHelper.getMethod(Target.class, "increment", Integer.class);
+        assertSame(method, ReflectionHelper.getMethod(Target.class, "increment", Integer.class));
+    }
+}
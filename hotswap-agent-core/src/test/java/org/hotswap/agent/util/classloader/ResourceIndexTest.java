@@ -0,0 +1,161 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.util.classloader;
+
+import org.hotswap.agent.annotation.FileEvent;
+import org.hotswap.agent.watch.LostWatchEvents;
+import org.hotswap.agent.watch.WatchFileEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ResourceIndexTest {
+
+    Path root;
+
+    @Before
+    public void setup() throws IOException {
+        root = Files.createTempDirectory("resourceIndexTest");
+        Files.createDirectories(root.resolve("org/example"));
+        Files.write(root.resolve("org/example/test.xml"), "<xml/>".getBytes());
+        Files.write(root.resolve("test.properties"), "a=1".getBytes());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        delete(root.toFile());
+    }
+
+    @Test
+    public void testLookup() throws Exception {
+        ResourceIndex index = ResourceIndex.create(root.toUri().toURL());
+        assertTrue("Not built index can't tell", index.mayContain("missing.xml"));
+        index.build();
+
+        assertEquals(4, index.size());
+        assertTrue(index.mayContain("test.properties"));
+        assertTrue(index.mayContain("/org/example/test.xml"));
+        assertTrue(index.mayContain("org/example/"));
+        assertFalse(index.mayContain("missing.xml"));
+        assertFalse(index.mayContain("org/example/missing.xml"));
+        assertTrue("Not normalized name is resolved by filesystem", index.mayContain("org/../missing.xml"));
+
+        assertEquals(3, index.getHitCount());
+        assertEquals(2, index.getMissCount());
+    }
+
+    @Test
+    public void testCreateAndDelete() throws Exception {
+        ResourceIndex index = ResourceIndex.create(root.toUri().toURL());
+        index.build();
+
+        Path dir = root.resolve("org/example/sub");
+        Files.createDirectories(dir);
+        Files.write(dir.resolve("new.xml"), "<xml/>".getBytes());
+        assertFalse(index.mayContain("org/example/sub/new.xml"));
+
+        // directory create event indexes files created before the directory was watched
+        index.onEvent(event(FileEvent.CREATE, dir));
+        assertTrue(index.mayContain("org/example/sub"));
+        assertTrue(index.mayContain("org/example/sub/new.xml"));
+
+        index.onEvent(event(FileEvent.DELETE, root.resolve("org")));
+        assertFalse(index.mayContain("org/example/sub/new.xml"));
+        assertFalse(index.mayContain("org/example/test.xml"));
+        assertTrue(index.mayContain("test.properties"));
+    }
+
+    @Test
+    public void testMissDoesNotTouchFilesystem() throws Exception {
+        ResourceIndex index = ResourceIndex.create(root.toUri().toURL());
+        index.build();
+        assertFalse(index.mayContain("late.xml"));
+
+        Files.write(root.resolve("late.xml"), "<xml/>".getBytes());
+        assertFalse("Index is trusted for misses", index.mayContain("late.xml"));
+        assertEquals(2, index.getMissCount());
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    public void testRebuildAfterLostEvents() throws Exception {
+        ResourceIndex index = ResourceIndex.create(root.toUri().toURL());
+        index.build();
+        delete(root.resolve("test.properties").toFile());
+        assertTrue("Delete event not received", index.mayContain("test.properties"));
+
+        LostWatchEvents.record("test");
+        assertTrue("Index is rebuilt, filesystem is used meanwhile", index.mayContain("test.properties"));
+        for (int i = 0; i < 100 && index.size() != 3; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(3, index.size());
+        assertFalse(index.mayContain("test.properties"));
+    }
+
+    @Test
+    public void testNotDirectory() throws Exception {
+        assertNull(ResourceIndex.create(root.resolve("test.properties").toUri().toURL()));
+    }
+
+    private static WatchFileEvent event(final FileEvent fileEvent, final Path path) {
+        return new WatchFileEvent() {
+            @Override
+            public FileEvent getEventType() {
+                return fileEvent;
+            }
+
+            @Override
+            public URI getURI() {
+                return path.toUri();
+            }
+
+            @Override
+            public boolean isFile() {
+                return !isDirectory();
+            }
+
+            @Override
+            public boolean isDirectory() {
+                return Files.isDirectory(path);
+            }
+        };
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
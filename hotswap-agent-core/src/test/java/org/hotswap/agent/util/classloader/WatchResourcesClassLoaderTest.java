@@ -0,0 +1,179 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.util.classloader;
+
+import org.hotswap.agent.annotation.FileEvent;
+import org.hotswap.agent.watch.WatchEventListener;
+import org.hotswap.agent.watch.WatchFileEvent;
+import org.hotswap.agent.watch.Watcher;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class WatchResourcesClassLoaderTest {
+
+    Path extraPath;
+    List<WatchEventListener> listeners = new ArrayList<>();
+
+    Watcher watcher = new Watcher() {
+        @Override
+        public void addEventListener(ClassLoader classLoader, URI pathPrefix, WatchEventListener listener) {
+            listeners.add(listener);
+        }
+
+        @Override
+        public void addEventListener(ClassLoader classLoader, URL pathPrefix, WatchEventListener listener) {
+            listeners.add(listener);
+        }
+
+        @Override
+        public void closeClassLoader(ClassLoader classLoader) {
+        }
+
+        @Override
+        public void run() {
+        }
+
+        @Override
+        public void stop() {
+        }
+    };
+
+    @Before
+    public void setup() throws IOException {
+        extraPath = Files.createTempDirectory("watchResourcesClassLoaderTest");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (File file : extraPath.toFile().listFiles()) {
+            file.delete();
+        }
+        Files.delete(extraPath);
+    }
+
+    @Test
+    public void testContentCacheInvalidation() throws Exception {
+        Path file = extraPath.resolve("test.properties");
+        Files.write(file, "a=1".getBytes());
+
+        WatchResourcesClassLoader classLoader = new WatchResourcesClassLoader(false);
+        classLoader.initExtraPath(new URL[]{extraPath.toUri().toURL()}, watcher);
+        assertEquals(1, listeners.size());
+
+        assertEquals("a=1", read(classLoader, "test.properties"));
+        assertEquals("a=1", read(classLoader, "test.properties"));
+        assertEquals(1, classLoader.resourceCache.getHitCount());
+
+        Files.write(file, "a=2".getBytes());
+        fire(FileEvent.MODIFY, file);
+        assertEquals("a=2", read(classLoader, "test.properties"));
+    }
+
+    @Test
+    public void testResourceIndex() throws Exception {
+        WatchResourcesClassLoader classLoader = new WatchResourcesClassLoader(false);
+        classLoader.initExtraPath(new URL[]{extraPath.toUri().toURL()}, watcher);
+
+        assertNull(classLoader.getResource("new.xml"));
+        assertEquals(1, classLoader.getIndexMissCount());
+
+        Path file = extraPath.resolve("new.xml");
+        Files.write(file, "<xml/>".getBytes());
+        // not visible until the watcher reports it
+        assertNull(classLoader.getResource("new.xml"));
+
+        fire(FileEvent.CREATE, file);
+        assertNotNull(classLoader.getResource("new.xml"));
+        assertEquals(Collections.list(classLoader.getResources("new.xml")).size(), 1);
+        assertTrue(classLoader.getIndexHitCount() > 0);
+    }
+
+    @Test
+    public void testWatchResources() throws Exception {
+        Path file = extraPath.resolve("test.properties");
+        Files.write(file, "a=1".getBytes());
+
+        WatchResourcesClassLoader classLoader = new WatchResourcesClassLoader(false);
+        classLoader.initWatchResources(new URL[]{extraPath.toUri().toURL()}, watcher);
+        // single listener tracks changes and invalidates the cache
+        assertEquals(1, listeners.size());
+        assertNull("Unchanged resource", classLoader.getResource("test.properties"));
+
+        fire(FileEvent.MODIFY, file);
+        assertEquals("a=1", read(classLoader, "test.properties"));
+        assertEquals("a=1", read(classLoader, "test.properties"));
+        assertEquals(1, classLoader.resourceCache.getHitCount());
+
+        Files.write(file, "a=2".getBytes());
+        fire(FileEvent.MODIFY, file);
+        assertEquals("a=2", read(classLoader, "test.properties"));
+    }
+
+    private void fire(final FileEvent fileEvent, final Path path) {
+        WatchFileEvent event = new WatchFileEvent() {
+            @Override
+            public FileEvent getEventType() {
+                return fileEvent;
+            }
+
+            @Override
+            public URI getURI() {
+                return path.toUri();
+            }
+
+            @Override
+            public boolean isFile() {
+                return true;
+            }
+
+            @Override
+            public boolean isDirectory() {
+                return false;
+            }
+        };
+        for (WatchEventListener listener : listeners) {
+            listener.onEvent(event);
+        }
+    }
+
+    private static String read(ClassLoader classLoader, String name) throws IOException {
+        try (InputStream is = classLoader.getResourceAsStream(name)) {
+            byte[] buffer = new byte[100];
+            int length = is.read(buffer);
+            return new String(buffer, 0, length);
+        }
+    }
+}
@@ -29,6 +29,7 @@ import org.hotswap.agent.javassist.NotFoundException;
 import org.hotswap.agent.javassist.bytecode.AccessFlag;
 import org.hotswap.agent.logging.AgentLogger;
 import org.hotswap.agent.plugin.hibernate.proxy.SessionFactoryProxy;
+import org.hotswap.agent.util.ClassFilePatcher;
 import org.hotswap.agent.util.PluginManagerInvoker;
 
 /**
@@ -82,8 +83,8 @@ public class HibernateTransformers {
      * use SessionFactory interface, because hibernate makes type cast to impl.
      */
     @OnClassLoadEvent(classNameRegexp = "org.hibernate.internal.SessionFactoryImpl")
-    public static void removeSessionFactoryImplFinalFlag(CtClass clazz) throws Exception {
-        clazz.getClassFile().setAccessFlags(AccessFlag.PUBLIC);
+    public static void removeSessionFactoryImplFinalFlag(ClassFilePatcher patcher) {
+        patcher.setAccessFlags(patcher.getAccessFlags() & ~AccessFlag.FINAL);
     }
 
     @OnClassLoadEvent(classNameRegexp = "org.hibernate.cfg.Configuration")
@@ -20,16 +20,25 @@ package org.hotswap.agent.plugin.spring;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import org.hotswap.agent.logging.AgentLogger;
+import org.hotswap.agent.util.ReflectionHelper;
 import org.springframework.beans.factory.BeanFactoryUtils;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 
 /**
  * Support for Spring MVC mapping caches.
+ * <p/>
+ * If the changed beans are known and Spring provides register/unregister API (4.2+), only mappings
+ * of the changed beans are updated. Otherwise all mappings are cleared and handlers are detected again.
  */
 public class ResetRequestMappingCaches {
 
@@ -98,4 +107,99 @@ public class ResetRequestMappingCaches {
 
     }
 
+    /**
+     * Incremental update - unregister mappings of changed beans and detect handler methods only for these beans
+     * (changed bean names and names of beans with unregistered mappings).
+     * Falls back to {@link #reset(DefaultListableBeanFactory)} for Spring versions without unregister API.
+     *
+     * @param beanFactory     the bean factory
+     * @param beanNames       names of removed or (re)registered beans
+     * @param beanClassNames  class names of redefined or re-created beans
+     */
+    public static void reset(DefaultListableBeanFactory beanFactory, Collection<String> beanNames, Collection<String> beanClassNames) {
+
+        Class<?> c = getHandlerMethodMappingClassOrNull();
+        if (c == null)
+            return;
+
+        Method getHandlerMethods;
+        Method unregisterMapping;
+        Method detectHandlerMethods;
+        Method isHandler;
+        try {
+            getHandlerMethods = c.getDeclaredMethod("getHandlerMethods");
+            unregisterMapping = c.getDeclaredMethod("unregisterMapping", Object.class);
+            detectHandlerMethods = c.getDeclaredMethod("detectHandlerMethods", Object.class);
+            isHandler = c.getDeclaredMethod("isHandler", Class.class);
+            detectHandlerMethods.setAccessible(true);
+            isHandler.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            LOGGER.trace("Probably using Spring 4.1 or below, incremental update not supported", e);
+            reset(beanFactory);
+            return;
+        }
+
+        Map<String, ?> mappings =
+                BeanFactoryUtils.beansOfTypeIncludingAncestors(beanFactory, c, true, false);
+        if (mappings.isEmpty()) {
+            LOGGER.trace("Spring: no HandlerMappings found");
+        }
+        try {
+            for (Entry<String, ?> e : mappings.entrySet()) {
+                Object am = e.getValue();
+                LOGGER.debug("Spring: updating HandlerMapping for {}, beans {}", am.getClass(), beanNames);
+
+                Map<?,?> handlerMethods = (Map<?,?>) getHandlerMethods.invoke(am);
+                List<Object> keys = new ArrayList<>();
+                Set<String> detectedBeanNames = new LinkedHashSet<>(beanNames);
+                for (Entry<?,?> handlerMethod : handlerMethods.entrySet()) {
+                    Object bean = getHandlerBean(handlerMethod.getValue());
+                    if (isChangedHandler(handlerMethod.getValue(), bean, beanNames, beanClassNames)) {
+                        keys.add(handlerMethod.getKey());
+                        // e.g. bean of a redefined class, its definition did not change
+                        if (bean instanceof String) {
+                            detectedBeanNames.add((String) bean);
+                        }
+                    }
+                }
+                handlerMethods = null;
+                for (Object key : keys) {
+                    LOGGER.trace("Unregistering handler method {}", key);
+                    unregisterMapping.invoke(am, key);
+                }
+
+                // mapping from a child context detects handlers from ancestor contexts only if configured so
+                if (!beanFactory.containsBeanDefinition(e.getKey()) &&
+                        !Boolean.TRUE.equals(ReflectionHelper.getNoException(am, c, "detectHandlerMethodsInAncestorContexts"))) {
+                    continue;
+                }
+                for (String beanName : detectedBeanNames) {
+                    if (!beanFactory.containsBeanDefinition(beanName)) {
+                        continue;
+                    }
+                    Class<?> beanType = beanFactory.getType(beanName);
+                    if (beanType != null && (Boolean) isHandler.invoke(am, beanType)) {
+                        LOGGER.trace("Detecting handler methods of bean {}", beanName);
+                        detectHandlerMethods.invoke(am, beanName);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.error("Failed to update HandlerMappings", e);
+        }
+    }
+
+    // HandlerMethod holds either bean name or bean instance
+    private static Object getHandlerBean(Object handlerMethod) throws Exception {
+        return handlerMethod.getClass().getMethod("getBean").invoke(handlerMethod);
+    }
+
+    private static boolean isChangedHandler(Object handlerMethod, Object bean, Collection<String> beanNames,
+            Collection<String> beanClassNames) throws Exception {
+        if (bean instanceof String && beanNames.contains(bean)) {
+            return true;
+        }
+        Class<?> beanType = (Class<?>) handlerMethod.getClass().getMethod("getBeanType").invoke(handlerMethod);
+        return beanType != null && beanClassNames.contains(beanType.getName());
+    }
 }
@@ -18,8 +18,14 @@
  */
 package org.hotswap.agent.plugin.spring;
 
+import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 
 import org.hotswap.agent.logging.AgentLogger;
 import org.hotswap.agent.util.ReflectionHelper;
@@ -32,18 +38,67 @@ import org.springframework.util.ReflectionUtils;
 /**
  * Reset various Spring static caches. It is safe to run multiple times,
  * basically every time any configuration is changed.
+ * <p/>
+ * If the refreshed classes are known, only cache entries related to these classes are evicted
+ * (see {@link #reset(Collection)} and {@link #beginRefresh(Collection)}), otherwise the caches are cleared.
  *
  * @author Jiri Bubnik
  */
 public class ResetSpringStaticCaches {
     private static AgentLogger LOGGER = AgentLogger.getLogger(ResetSpringStaticCaches.class);
 
+    // AnnotationUtils caches keyed by annotated element or annotation type (names differ between versions)
+    private static final String[] ANNOTATION_UTILS_CACHES = {"findAnnotationCache", "metaPresentCache",
+            "annotatedBaseTypeCache", "annotatedInterfaceCache", "synthesizableCache", "attributeAliasesCache",
+            "attributeMethodsCache", "aliasDescriptorCache"};
+
+    // refresh in progress in the current thread, null if refreshed classes are not known
+    private static final ThreadLocal<RefreshScope> refreshScope = new ThreadLocal<>();
+
+    /**
+     * Start refresh of classes in the current thread. Until {@link #endRefresh()},
+     * {@link #resetRefreshed()} and {@link #resetBeanNamesByType(DefaultListableBeanFactory)} evict
+     * only entries related to the classes.
+     *
+     * @param classes refreshed classes, null if unknown (all caches are cleared)
+     */
+    public static void beginRefresh(Collection<Class<?>> classes) {
+        if (classes != null) {
+            refreshScope.set(new RefreshScope(classes));
+        } else {
+            refreshScope.remove();
+        }
+    }
+
+    /**
+     * Register name of a bean (re)defined by the current refresh.
+     */
+    public static void addRefreshedBeanName(String beanName) {
+        RefreshScope scope = refreshScope.get();
+        if (scope != null) {
+            scope.beanNames.add(beanName);
+        }
+    }
+
+    /**
+     * Finish refresh started by {@link #beginRefresh(Collection)}.
+     */
+    public static void endRefresh() {
+        refreshScope.remove();
+    }
+
     /**
      * Spring bean by type cache.
      *
      * Cache names change between versions, call via reflection and ignore errors.
      */
     public static void resetBeanNamesByType(DefaultListableBeanFactory defaultListableBeanFactory) {
+        RefreshScope scope = refreshScope.get();
+        if (scope != null) {
+            evictBeanNamesByType(defaultListableBeanFactory, scope);
+            return;
+        }
+
         try {
             Field field = DefaultListableBeanFactory.class.getDeclaredField("singletonBeanNamesByType");
             field.setAccessible(true);
@@ -76,6 +131,71 @@ public class ResetSpringStaticCaches {
 
     }
 
+    /**
+     * Evict bean names cached for a type the refreshed classes are assignable to or containing a refreshed bean
+     * (the class may not implement the type anymore).
+     */
+    private static void evictBeanNamesByType(DefaultListableBeanFactory defaultListableBeanFactory, RefreshScope scope) {
+        for (String cacheName : new String[]{"singletonBeanNamesByType", "allBeanNamesByType", "nonSingletonBeanNamesByType"}) {
+            Map beanNamesByType = (Map) ReflectionHelper.getNoException(defaultListableBeanFactory,
+                    DefaultListableBeanFactory.class, cacheName);
+            if (beanNamesByType == null) {
+                LOGGER.trace("Unable to evict DefaultListableBeanFactory.{} cache (is Ok for pre 3.2 Spring version)", cacheName);
+                continue;
+            }
+            for (Iterator<Map.Entry> it = beanNamesByType.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry entry = it.next();
+                if (scope.isSupertype(entry.getKey()) || scope.containsBeanName(entry.getValue())) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Reset caches for classes of the refresh in progress in the current thread, all caches if the
+     * classes are not known.
+     */
+    public static void resetRefreshed() {
+        RefreshScope scope = refreshScope.get();
+        if (scope != null) {
+            reset(scope.classes);
+        } else {
+            reset();
+        }
+    }
+
+    /**
+     * Evict only cache entries keyed by the classes or their subtypes. Caches that do not exist in the target
+     * Spring version or cannot be evicted per class are cleared.
+     *
+     * @param classes refreshed classes, null or empty to reset all caches
+     */
+    public static void reset(Collection<Class<?>> classes) {
+        if (classes == null || classes.isEmpty()) {
+            reset();
+            return;
+        }
+
+        Set<Class<?>> classSet = classes instanceof Set ? (Set<Class<?>>) classes : new HashSet<>(classes);
+        if (!evict(GenericTypeResolver.class, "typeVariableCache", classSet)) {
+            resetTypeVariableCache();
+        }
+        evictAnnotationUtilsCache(classSet);
+        if (!evict(ReflectionUtils.class, "declaredMethodsCache", classSet)
+                | !evict(ReflectionUtils.class, "declaredFieldsCache", classSet)) {
+            resetReflectionUtilsCache();
+        }
+        resetResolvableTypeCache();
+        resetPropetyCache();
+        if (!evict(CachedIntrospectionResults.class, "strongClassCache", classSet)
+                | !evict(CachedIntrospectionResults.class, "softClassCache", classSet)) {
+            if (!evict(CachedIntrospectionResults.class, "classCache", classSet)) {
+                CachedIntrospectionResults.clearClassLoader(ResetSpringStaticCaches.class.getClassLoader());
+            }
+        }
+    }
+
     /**
      * Reset all caches.
      */
@@ -143,6 +263,87 @@ public class ResetSpringStaticCaches {
 
     }
 
+    private static void evictAnnotationUtilsCache(Set<Class<?>> classes) {
+        boolean evicted = false;
+        for (String cacheName : ANNOTATION_UTILS_CACHES) {
+            evicted |= evict(AnnotationUtils.class, cacheName, classes);
+        }
+        // Spring 5.2+ moved the caches to package private classes
+        ClassLoader classLoader = ResetSpringStaticCaches.class.getClassLoader();
+        evicted |= evict(classLoader, "org.springframework.core.annotation.AnnotationsScanner", "declaredAnnotationCache", classes);
+        evicted |= evict(classLoader, "org.springframework.core.annotation.AnnotationsScanner", "baseTypeMethodsCache", classes);
+        evicted |= evict(classLoader, "org.springframework.core.annotation.AttributeMethods", "cache", classes);
+
+        // annotation type mappings are keyed by filters, changed annotation types need full reset
+        boolean annotationChanged = false;
+        for (Class<?> clazz : classes) {
+            annotationChanged |= clazz.isAnnotation();
+        }
+
+        if (!evicted || annotationChanged) {
+            resetAnnotationUtilsCache();
+        }
+    }
+
+    private static boolean evict(ClassLoader classLoader, String cacheOwner, String cacheName, Set<Class<?>> classes) {
+        try {
+            return evict(classLoader.loadClass(cacheOwner), cacheName, classes);
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Remove static cache entries keyed by the classes or their subtypes.
+     *
+     * @return false if the cache does not exist
+     */
+    private static boolean evict(Class<?> cacheOwner, String cacheName, Set<Class<?>> classes) {
+        Map cache = (Map) ReflectionHelper.getNoException(null, cacheOwner, cacheName);
+        if (cache == null) {
+            return false;
+        }
+        int size = cache.size();
+        // synchronized map (older Spring versions) requires manual synchronization on iteration
+        synchronized (cache) {
+            for (Iterator it = cache.keySet().iterator(); it.hasNext(); ) {
+                if (isSubtypeKey(it.next(), classes)) {
+                    it.remove();
+                }
+            }
+        }
+        LOGGER.trace("Cache evicted: {}.{} ({} of {} entries)", cacheOwner.getSimpleName(), cacheName, size - cache.size(), size);
+        return true;
+    }
+
+    // check if the cache key is a class, member or annotated element of the classes or their subtypes. Unknown keys are evicted.
+    private static boolean isSubtypeKey(Object key, Set<Class<?>> classes) {
+        if (key == null) {
+            return false;
+        }
+        Object element = key;
+        if (!(key instanceof AnnotatedElement)) {
+            // AnnotationUtils.AnnotationCacheKey / DefaultCacheKey
+            element = ReflectionHelper.getNoException(key, key.getClass(), "element");
+        }
+
+        Class<?> clazz;
+        if (element instanceof Class) {
+            clazz = (Class<?>) element;
+        } else if (element instanceof Member) {
+            clazz = ((Member) element).getDeclaringClass();
+        } else {
+            return true;
+        }
+
+        for (Class<?> refreshed : classes) {
+            if (refreshed.isAssignableFrom(clazz)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private static void resetPropetyCache() {
         try {
             ClassLoader classLoader = ResetSpringStaticCaches.class.getClassLoader();
@@ -154,4 +355,37 @@ public class ResetSpringStaticCaches {
             LOGGER.trace("Unable to clear Property.annotationCache (ok before Spring 3.2.x)", e);
         }
     }
+
+    private static class RefreshScope {
+        final Set<Class<?>> classes;
+        final Set<String> beanNames = new HashSet<>();
+
+        private RefreshScope(Collection<Class<?>> classes) {
+            this.classes = new HashSet<>(classes);
+        }
+
+        private boolean isSupertype(Object key) {
+            if (!(key instanceof Class)) {
+                return true;
+            }
+            for (Class<?> clazz : classes) {
+                if (((Class<?>) key).isAssignableFrom(clazz)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean containsBeanName(Object value) {
+            if (value instanceof String[]) {
+                for (String beanName : (String[]) value) {
+                    if (beanNames.contains(beanName)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            return true;
+        }
+    }
 }
@@ -18,6 +18,11 @@
  */
 package org.hotswap.agent.plugin.spring;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
 import org.hotswap.agent.javassist.ClassPool;
 import org.hotswap.agent.javassist.CtClass;
 import org.hotswap.agent.javassist.LoaderClassPath;
@@ -27,6 +32,12 @@ import org.hotswap.agent.plugin.spring.signature.ClassSignatureComparer;
 /**
  * Determines if a full Spring reload is needed. Changes to synthetic and known generated classes are ignored. For other
  * classes, changes to method bodies are ignored.
+ * <p/>
+ * Signatures of the analyzed class definitions are cached, hence only the new class definition is analyzed on subsequent
+ * reloads. The new definition becomes the loaded one only if the redefinition succeeds, so the cached signature is
+ * trusted only if it is the same as the signature before the redefinition. Otherwise the signature of the loaded class
+ * is obtained again on the next reload of the class. The class pool keeps at most
+ * {@link #MAX_POOL_SIZE} classes, least recently used classes are evicted.
  *
  * @author Erki Ehtla
  *
@@ -34,16 +45,15 @@ import org.hotswap.agent.plugin.spring.signature.ClassSignatureComparer;
 public class SpringChangesAnalyzer {
     private static AgentLogger LOGGER = AgentLogger.getLogger(SpringPlugin.class);
 
+    static final int MAX_POOL_SIZE = 2000;
+
     private ClassPool cp;
 
-    public SpringChangesAnalyzer(final ClassLoader classLoader) {
-        this.cp = new ClassPool() {
+    // {signature before redefinition, signature of the new definition} of the last analyzed redefinition
+    private final Map<Class<?>, String[]> analyzedSignatures = Collections.synchronizedMap(new WeakHashMap<Class<?>, String[]>());
 
-            @Override
-            public ClassLoader getClassLoader() {
-                return classLoader;
-            }
-        };
+    public SpringChangesAnalyzer(final ClassLoader classLoader) {
+        this.cp = new BoundedClassPool(classLoader, MAX_POOL_SIZE);
         cp.appendSystemPath();
         cp.appendClassPath(new LoaderClassPath(classLoader));
     }
@@ -58,10 +68,16 @@ public class SpringChangesAnalyzer {
         CtClass makeClass = null;
         try {
             makeClass = cp.makeClass(new java.io.ByteArrayInputStream(classfileBuffer));
-            return ClassSignatureComparer.isPoolClassDifferent(classBeingRedefined, cp);
+            String newSignature = ClassSignatureComparer.getSignature(makeClass);
+
+            String loadedSignature = getLoadedSignature(classBeingRedefined);
+            analyzedSignatures.put(classBeingRedefined, new String[] {loadedSignature, newSignature});
+
+            return !newSignature.equals(loadedSignature);
         } catch (Exception e) {
             LOGGER.error("Error analyzing class {} for reload necessity. Defaulting to yes.", e,
                     classBeingRedefined.getName());
+            analyzedSignatures.remove(classBeingRedefined);
         } finally {
             if (makeClass != null)
                 makeClass.detach();
@@ -69,6 +85,67 @@ public class SpringChangesAnalyzer {
         return true;
     }
 
+    // the previous redefinition might have failed, the cached signature is valid only if it did not change the signature
+    private String getLoadedSignature(Class<?> classBeingRedefined) throws Exception {
+        String[] signatures = analyzedSignatures.get(classBeingRedefined);
+        if (signatures != null && signatures[0].equals(signatures[1])) {
+            return signatures[1];
+        }
+        return ClassSignatureComparer.getSignature(classBeingRedefined);
+    }
+
+    /**
+     * Class pool with bounded count of cached classes, the least recently used classes are evicted.
+     */
+    static class BoundedClassPool extends ClassPool {
+        private final ClassLoader classLoader;
+        private final Map<String, Boolean> cachedNames;
+
+        BoundedClassPool(ClassLoader classLoader, final int maxSize) {
+            this.classLoader = classLoader;
+            this.cachedNames = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    if (size() > maxSize) {
+                        BoundedClassPool.super.removeCached(eldest.getKey());
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        @Override
+        public ClassLoader getClassLoader() {
+            return classLoader;
+        }
+
+        @Override
+        protected synchronized CtClass getCached(String classname) {
+            CtClass cached = super.getCached(classname);
+            if (cached != null) {
+                cachedNames.get(classname);
+            }
+            return cached;
+        }
+
+        @Override
+        protected synchronized void cacheCtClass(String classname, CtClass c, boolean dynamic) {
+            super.cacheCtClass(classname, c, dynamic);
+            cachedNames.put(classname, Boolean.TRUE);
+        }
+
+        @Override
+        protected synchronized CtClass removeCached(String classname) {
+            cachedNames.remove(classname);
+            return super.removeCached(classname);
+        }
+
+        int getCachedCount() {
+            return cachedNames.size();
+        }
+    }
+
     protected boolean isSyntheticClass(Class<?> classBeingRedefined) {
         return classBeingRedefined.getSimpleName().contains("$$_javassist")
                 || classBeingRedefined.getName().startsWith("com.sun.proxy.$Proxy")
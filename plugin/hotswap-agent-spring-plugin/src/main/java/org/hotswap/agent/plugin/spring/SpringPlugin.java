@@ -75,6 +75,17 @@ public class SpringPlugin {
 
     public static String[] basePackagePrefixes;
 
+    /**
+     * Create refreshed beans in background after reload instead of lazily on first use (spring.warmUpBeans).
+     */
+    public static boolean warmUpBeans;
+
+    /**
+     * Rebuild @Bean definitions of changed configuration classes, other beans keep their singletons
+     * (spring.rebuildConfigurationClasses).
+     */
+    public static boolean rebuildConfigurationClasses;
+
     @Init
     HotswapTransformer hotswapTransformer;
 
@@ -100,6 +111,12 @@ public class SpringPlugin {
 
     private void initBasePackagePrefixes() {
         PluginConfiguration pluginConfiguration = new PluginConfiguration(this.appClassLoader);
+        if (pluginConfiguration.getPropertyBoolean("spring.warmUpBeans")) {
+            warmUpBeans = true;
+        }
+        if (pluginConfiguration.getPropertyBoolean("spring.rebuildConfigurationClasses")) {
+            rebuildConfigurationClasses = true;
+        }
         if (basePackagePrefixes == null || basePackagePrefixes.length == 0) {
             basePackagePrefixes = pluginConfiguration.getBasePackagePrefixes();
         } else {
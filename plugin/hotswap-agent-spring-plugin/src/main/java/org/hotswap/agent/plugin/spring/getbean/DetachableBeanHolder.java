@@ -19,15 +19,26 @@
 package org.hotswap.agent.plugin.spring.getbean;
 
 import java.io.Serializable;
-import java.lang.ref.WeakReference;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import org.hotswap.agent.logging.AgentLogger;
+import org.hotswap.agent.plugin.spring.SpringPlugin;
+import org.hotswap.agent.plugin.spring.scanner.ClassPathBeanDefinitionScannerAgent;
 
 /**
  *
@@ -40,12 +51,19 @@ public class DetachableBeanHolder implements Serializable {
 
     private static final long serialVersionUID = -7443802320153815102L;
 
-    private Object bean;
+    private volatile Object bean;
     private Object beanFactory;
     private Class<?>[] paramClasses;
     private Object[] paramValues;
-    private static List<WeakReference<DetachableBeanHolder>> beanProxies =
-            Collections.synchronizedList(new ArrayList<WeakReference<DetachableBeanHolder>>());
+    private static Set<DetachableBeanHolder> beanProxies = newWeakSet();
+    // proxies indexed by bean name and by type name (requested type and bean class)
+    private static Map<String, Set<DetachableBeanHolder>> beanProxiesByName = new ConcurrentHashMap<>();
+    private static Map<String, Set<DetachableBeanHolder>> beanProxiesByType = new ConcurrentHashMap<>();
+    // resolved ProxyReplacer.FACTORY_METHOD_NAME method per bean factory class and parameter classes
+    private static Map<Class<?>, Map<List<Class<?>>, Method>> factoryMethods = new ConcurrentHashMap<>();
+    // detached proxies of refreshed beans waiting for warm up (SpringPlugin.warmUpBeans)
+    private static Set<DetachableBeanHolder> warmUpHolders = newWeakSet();
+    private static ExecutorService warmUpExecutor;
     private static AgentLogger LOGGER = AgentLogger.getLogger(DetachableBeanHolder.class);
 
     /**
@@ -62,25 +80,88 @@ public class DetachableBeanHolder implements Serializable {
         this.beanFactory = beanFactry;
         this.paramClasses = paramClasses;
         this.paramValues = paramValues;
-        beanProxies.add(new WeakReference<DetachableBeanHolder>(this));
+        beanProxies.add(this);
+        index(bean, paramValues);
+    }
+
+    private static <T> Set<T> newWeakSet() {
+        return Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<T, Boolean>()));
+    }
+
+    // getBean(String name, ...) or getBean(Class type, ...) / getBean(String name, Class type)
+    private void index(Object bean, Object[] paramValues) {
+        if (paramValues != null) {
+            for (Object paramValue : paramValues) {
+                if (paramValue instanceof String) {
+                    index(beanProxiesByName, (String) paramValue);
+                } else if (paramValue instanceof Class) {
+                    index(beanProxiesByType, ((Class<?>) paramValue).getName());
+                }
+            }
+        }
+        // cglib proxy extends the bean class, java proxy implements bean interfaces
+        Class<?> beanClass = bean.getClass();
+        if (Proxy.isProxyClass(beanClass)) {
+            for (Class<?> beanInterface : beanClass.getInterfaces()) {
+                index(beanProxiesByType, beanInterface.getName());
+            }
+        } else {
+            index(beanProxiesByType, beanClass.getSuperclass() != null ? beanClass.getSuperclass().getName() : beanClass.getName());
+        }
+    }
+
+    private void index(Map<String, Set<DetachableBeanHolder>> index, String key) {
+        Set<DetachableBeanHolder> holders = index.get(key);
+        if (holders == null) {
+            synchronized (index) {
+                holders = index.get(key);
+                if (holders == null) {
+                    holders = newWeakSet();
+                    index.put(key, holders);
+                }
+            }
+        }
+        holders.add(this);
     }
 
     /**
      * Clears the bean references inside all of the proxies
      */
     public static void detachBeans() {
-        int i = 0;
-        synchronized (beanProxies) {
-            while (i < beanProxies.size()) {
-                DetachableBeanHolder beanHolder = beanProxies.get(i).get();
-                if (beanHolder != null) {
-                    beanHolder.detach();
-                    i++;
-                } else {
-                    beanProxies.remove(i);
-                }
+        int i = detach(beanProxies);
+        if (i > 0) {
+            LOGGER.info("{} Spring proxies reset", i);
+        } else {
+            LOGGER.debug("No spring proxies reset");
+        }
+    }
+
+    /**
+     * Clears the bean references only inside proxies of the beans. A proxy is affected if it was obtained
+     * by one of the bean names or its requested type or bean class is one of the types or their supertypes.
+     *
+     * @param beanNames names of the affected beans
+     * @param beanTypes types of the affected beans
+     */
+    public static void detachBeans(Collection<String> beanNames, Collection<Class<?>> beanTypes) {
+        Set<DetachableBeanHolder> holders = new HashSet<>();
+        for (String beanName : beanNames) {
+            addHolders(holders, beanProxiesByName.get(beanName));
+        }
+
+        Set<Class<?>> visited = new HashSet<>();
+        List<Class<?>> types = new ArrayList<>(beanTypes);
+        while (!types.isEmpty()) {
+            Class<?> type = types.remove(types.size() - 1);
+            if (type == null || type == Object.class || !visited.add(type)) {
+                continue;
             }
+            addHolders(holders, beanProxiesByType.get(type.getName()));
+            types.add(type.getSuperclass());
+            types.addAll(Arrays.asList(type.getInterfaces()));
         }
+
+        int i = detach(holders);
         if (i > 0) {
             LOGGER.info("{} Spring proxies reset", i);
         } else {
@@ -88,6 +169,103 @@ public class DetachableBeanHolder implements Serializable {
         }
     }
 
+    private static void addHolders(Set<DetachableBeanHolder> result, Set<DetachableBeanHolder> holders) {
+        if (holders != null) {
+            synchronized (holders) {
+                result.addAll(holders);
+            }
+        }
+    }
+
+    private static int detach(Set<DetachableBeanHolder> holders) {
+        int i = 0;
+        synchronized (holders) {
+            for (DetachableBeanHolder beanHolder : holders) {
+                // the previous singleton may be destroyed, never dispatch to it
+                beanHolder.detach();
+                if (SpringPlugin.warmUpBeans) {
+                    warmUpHolders.add(beanHolder);
+                }
+                i++;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Load new beans into proxies reset by previous detachBeans() calls on a background thread, hence the first
+     * request usually finds the bean already created. A proxy called before its bean is warmed up loads the bean
+     * itself (Spring creates a singleton only once, the caller waits for the creation in progress).
+     * Call after the whole refresh batch is registered in the bean factory. Does nothing unless
+     * SpringPlugin.warmUpBeans is set (beans are loaded lazily on first use).
+     */
+    public static void warmUpBeans() {
+        final List<DetachableBeanHolder> holders;
+        synchronized (warmUpHolders) {
+            if (warmUpHolders.isEmpty()) {
+                return;
+            }
+            holders = new ArrayList<>(warmUpHolders);
+            warmUpHolders.clear();
+        }
+
+        final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        getWarmUpExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                Thread thread = Thread.currentThread();
+                ClassLoader originalClassLoader = thread.getContextClassLoader();
+                thread.setContextClassLoader(contextClassLoader);
+                try {
+                    warmUp(holders);
+                } finally {
+                    thread.setContextClassLoader(originalClassLoader);
+                }
+            }
+        });
+    }
+
+    private static synchronized ExecutorService getWarmUpExecutor() {
+        if (warmUpExecutor == null) {
+            // single thread - warm up batches are applied in order of the refreshes
+            warmUpExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "HotswapAgent Spring warm up");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return warmUpExecutor;
+    }
+
+    // serialized with refresh of bean definitions (ClassPathBeanDefinitionScannerAgent.defineBeans()), a bean is not
+    // created while its definition is being replaced by a next refresh
+    static void warmUp(List<DetachableBeanHolder> holders) {
+        synchronized (ClassPathBeanDefinitionScannerAgent.class) {
+            long start = System.currentTimeMillis();
+            int i = 0;
+            for (DetachableBeanHolder beanHolder : holders) {
+                if (beanHolder.bean != null) {
+                    // loaded on use meanwhile
+                    continue;
+                }
+                try {
+                    Object freshBean = beanHolder.loadBean();
+                    if (freshBean != null) {
+                        beanHolder.setTarget(freshBean);
+                        i++;
+                    }
+                } catch (Throwable e) {
+                    // e.g. request scoped bean, leave it on the lazy path to report the error on use
+                    LOGGER.debug("Unable to warm up Spring bean, it will be loaded on first use.", e);
+                }
+            }
+            LOGGER.info("{} Spring beans warmed up in {}ms", i, System.currentTimeMillis() - start);
+        }
+    }
+
     /**
      * Clear the bean for this proxy
      */
@@ -122,30 +300,57 @@ public class DetachableBeanHolder implements Serializable {
     public Object getBean() throws IllegalAccessException, InvocationTargetException {
         Object beanCopy = bean;
         if (beanCopy == null) {
-            Method[] methods = beanFactory.getClass().getMethods();
-            for (Method factoryMethod : methods) {
-                if (ProxyReplacer.FACTORY_METHOD_NAME.equals(factoryMethod.getName())
-                        && Arrays.equals(factoryMethod.getParameterTypes(), paramClasses)) {
-
-                    Object freshBean = factoryMethod.invoke(beanFactory, paramValues);
-
-                    // Factory returns HA proxy, but current method is invoked from HA proxy!
-                    // It might be the same object (if factory returns same object - meaning
-                    // that although clearAllProxies() was called, this bean did not change)
-                    // Unwrap the target bean, it is always available
-                    // see org.hotswap.agent.plugin.spring.getbean.EnhancerProxyCreater.create()
-                    if (freshBean instanceof SpringHotswapAgentProxy) {
-                        freshBean = ((SpringHotswapAgentProxy) freshBean).$$ha$getTarget();
-                    }
+            Object freshBean = loadBean();
+            if (freshBean != null) {
+                bean = freshBean;
+                beanCopy = freshBean;
+                LOGGER.info("Bean '{}' loaded", freshBean.getClass().getName());
+            }
+        }
+        return beanCopy;
+    }
+
+    // retrieve bean from the Spring BeanFactory, null if the factory method is not found
+    private Object loadBean() throws IllegalAccessException, InvocationTargetException {
+        Method factoryMethod = getFactoryMethod();
+        if (factoryMethod == null) {
+            return null;
+        }
+        Object freshBean = factoryMethod.invoke(beanFactory, paramValues);
 
-                    bean = freshBean;
-                    beanCopy = bean;
-                    LOGGER.info("Bean '{}' loaded", bean.getClass().getName());
+        // Factory returns HA proxy, but current method is invoked from HA proxy!
+        // It might be the same object (if factory returns same object - meaning
+        // that although clearAllProxies() was called, this bean did not change)
+        // Unwrap the target bean, it is always available
+        // see org.hotswap.agent.plugin.spring.getbean.EnhancerProxyCreater.create()
+        if (freshBean instanceof SpringHotswapAgentProxy) {
+            freshBean = ((SpringHotswapAgentProxy) freshBean).$$ha$getTarget();
+        }
+        return freshBean;
+    }
+
+    // resolve the factory method once per bean factory class and parameter classes
+    private Method getFactoryMethod() {
+        Class<?> beanFactoryClass = beanFactory.getClass();
+        Map<List<Class<?>>, Method> methods = factoryMethods.get(beanFactoryClass);
+        if (methods == null) {
+            methods = new ConcurrentHashMap<>();
+            factoryMethods.put(beanFactoryClass, methods);
+        }
+
+        List<Class<?>> key = Arrays.asList(paramClasses);
+        Method factoryMethod = methods.get(key);
+        if (factoryMethod == null) {
+            for (Method method : beanFactoryClass.getMethods()) {
+                if (ProxyReplacer.FACTORY_METHOD_NAME.equals(method.getName())
+                        && Arrays.equals(method.getParameterTypes(), paramClasses)) {
+                    factoryMethod = method;
+                    methods.put(key, factoryMethod);
                     break;
                 }
             }
         }
-        return beanCopy;
+        return factoryMethod;
     }
 
     protected boolean isBeanLoaded(){
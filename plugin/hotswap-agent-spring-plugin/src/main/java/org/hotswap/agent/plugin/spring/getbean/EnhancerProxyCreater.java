@@ -231,8 +231,10 @@ public class EnhancerProxyCreater {
         }
 
         // do not know why 4.2.6 AND 4.3.0 does not work, probably cglib version and cache problem
-        if (SpringVersion.getVersion().startsWith("4.2.6") ||
-                SpringVersion.getVersion().startsWith("4.3.0")) {
+        // version is null if spring-core manifest is not available (repackaged jar)
+        String springVersion = SpringVersion.getVersion();
+        if (springVersion != null && (springVersion.startsWith("4.2.6") ||
+                springVersion.startsWith("4.3.0"))) {
             return "";
         }
 
@@ -18,9 +18,11 @@
  */
 package org.hotswap.agent.plugin.spring.getbean;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Proxy;
 import java.util.Arrays;
+import java.util.Collection;
 
 import org.hotswap.agent.logging.AgentLogger;
 import org.hotswap.agent.plugin.spring.SpringPlugin;
@@ -46,6 +48,56 @@ public class ProxyReplacer {
         DetachableBeanHolder.detachBeans();
     }
 
+    /**
+     * Clears the bean references only inside proxies of the affected beans. Aspects and bean post processors
+     * may change any bean, all proxies are cleared if such bean is affected.
+     *
+     * @param beanNames names of the affected beans (including dependent beans)
+     * @param beanTypes types of the affected beans, null if not known
+     */
+    public static void clearProxies(Collection<String> beanNames, Collection<Class<?>> beanTypes) {
+        if (beanTypes == null) {
+            clearAllProxies();
+            return;
+        }
+        for (Class<?> beanType : beanTypes) {
+            if (isInfrastructureType(beanType)) {
+                LOGGER.debug("Infrastructure bean type {} changed, clearing all proxies", beanType.getName());
+                clearAllProxies();
+                return;
+            }
+        }
+        DetachableBeanHolder.detachBeans(beanNames, beanTypes);
+    }
+
+    /**
+     * Load new beans into the cleared proxies in background if SpringPlugin.warmUpBeans is enabled.
+     * Call once the refresh batch is finished.
+     */
+    public static void warmUpProxies() {
+        DetachableBeanHolder.warmUpBeans();
+    }
+
+    private static boolean isInfrastructureType(Class<?> beanType) {
+        for (Annotation annotation : beanType.getAnnotations()) {
+            if (annotation.annotationType().getName().equals("org.aspectj.lang.annotation.Aspect")) {
+                return true;
+            }
+        }
+        return isAssignableTo(beanType, "org.springframework.aop.Advisor")
+                || isAssignableTo(beanType, "org.aopalliance.aop.Advice")
+                || isAssignableTo(beanType, "org.springframework.beans.factory.config.BeanPostProcessor")
+                || isAssignableTo(beanType, "org.springframework.beans.factory.config.BeanFactoryPostProcessor");
+    }
+
+    private static boolean isAssignableTo(Class<?> beanType, String className) {
+        try {
+            return Class.forName(className, false, beanType.getClassLoader()).isAssignableFrom(beanType);
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
     /**
      * Creates a proxied Spring bean. Called from within WebApp code by modification of Spring classes
      *
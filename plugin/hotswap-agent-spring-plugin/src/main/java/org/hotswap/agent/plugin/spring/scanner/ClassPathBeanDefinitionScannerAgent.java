@@ -19,10 +19,19 @@
 package org.hotswap.agent.plugin.spring.scanner;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import org.hotswap.agent.logging.AgentLogger;
 import org.hotswap.agent.plugin.spring.ResetBeanPostProcessorCaches;
@@ -30,6 +39,7 @@ import org.hotswap.agent.plugin.spring.ResetRequestMappingCaches;
 import org.hotswap.agent.plugin.spring.ResetSpringStaticCaches;
 import org.hotswap.agent.plugin.spring.SpringPlugin;
 import org.hotswap.agent.plugin.spring.getbean.ProxyReplacer;
+import org.hotswap.agent.util.ClassFilePatcher;
 import org.hotswap.agent.util.PluginManagerInvoker;
 import org.hotswap.agent.util.ReflectionHelper;
 import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
@@ -51,6 +61,9 @@ import org.springframework.core.io.Resource;
 import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
 import org.springframework.core.type.classreading.MetadataReader;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
+import org.springframework.core.type.filter.AbstractTypeHierarchyTraversingFilter;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
 
 /**
  * Registers
@@ -62,6 +75,9 @@ public class ClassPathBeanDefinitionScannerAgent {
 
     private static Map<ClassPathBeanDefinitionScanner, ClassPathBeanDefinitionScannerAgent> instances = new HashMap<>();
 
+    // read class metadata in parallel if at least this number of classes is refreshed at once
+    private static final int PARALLEL_THRESHOLD = 16;
+
     /**
      * Flag to check reload status.
      * In unit test we need to wait for reload finish before the test can continue. Set flag to true
@@ -91,6 +107,10 @@ public class ClassPathBeanDefinitionScannerAgent {
      * @return agent instance
      */
     public static ClassPathBeanDefinitionScannerAgent getInstance(ClassPathBeanDefinitionScanner scanner) {
+        if (ConfigurationClassRebuilder.isRebuilding()) {
+            // nested component scan of a rebuilt configuration class, the registry is only a view of the bean factory
+            return new ClassPathBeanDefinitionScannerAgent(scanner);
+        }
         ClassPathBeanDefinitionScannerAgent classPathBeanDefinitionScannerAgent = instances.get(scanner);
         // registry may be different if there is multiple app. (this is just a temporary solution)
         if (classPathBeanDefinitionScannerAgent == null || classPathBeanDefinitionScannerAgent.registry != scanner.getRegistry()) {
@@ -128,6 +148,11 @@ public class ClassPathBeanDefinitionScannerAgent {
      * @param basePackage package that Spring will scan
      */
     public void registerBasePackage(String basePackage) {
+        if (ConfigurationClassRebuilder.isRebuilding()) {
+            // registered by the agent of the rebuilt configuration classes after rebuild
+            ConfigurationClassRebuilder.addBasePackage(basePackage);
+            return;
+        }
         this.basePackages.add(basePackage);
 
         PluginManagerInvoker.callPluginMethod(SpringPlugin.class, getClass().getClassLoader(),
@@ -142,85 +167,280 @@ public class ClassPathBeanDefinitionScannerAgent {
      * @throws IOException error working with classDefinition
      */
     public static void refreshClass(String basePackage, byte[] classDefinition) throws IOException {
-        ResetSpringStaticCaches.reset();
+        refreshClasses(new String[]{basePackage}, new byte[][]{classDefinition});
+    }
 
-        ClassPathBeanDefinitionScannerAgent scannerAgent = getInstance(basePackage);
-        if (scannerAgent == null) {
-            LOGGER.error("basePackage '{}' not associated with any scannerAgent", basePackage);
-            return;
+    /**
+     * Refresh a batch of classes at once. All bean definitions are resolved first, than they are
+     * (re)registered together per scanner agent and Spring caches are reset only once for the whole batch.
+     *
+     * @param basePackages     base package for each class definition, used to obtain associated scanner.
+     * @param classDefinitions new class definitions
+     * @throws IOException error working with classDefinition
+     */
+    public static void refreshClasses(String[] basePackages, byte[][] classDefinitions) throws IOException {
+        Set<Class<?>> refreshedClasses = loadRefreshedClasses(basePackages, classDefinitions);
+        ResetSpringStaticCaches.reset(refreshedClasses);
+        ResetSpringStaticCaches.beginRefresh(refreshedClasses);
+        try {
+            defineBeans(basePackages, classDefinitions);
+        } finally {
+            ResetSpringStaticCaches.endRefresh();
         }
+        ProxyReplacer.warmUpProxies();
+
+        reloadFlag = false;
+    }
 
-        BeanDefinition beanDefinition = scannerAgent.resolveBeanDefinition(classDefinition);
-        if (beanDefinition != null) {
-            scannerAgent.defineBean(beanDefinition);
+    private static void defineBeans(String[] basePackages, byte[][] classDefinitions) throws IOException {
+        Map<ClassPathBeanDefinitionScannerAgent, List<byte[]>> agentClassDefinitions = new LinkedHashMap<>();
+        for (int i = 0; i < classDefinitions.length; i++) {
+            ClassPathBeanDefinitionScannerAgent scannerAgent = getInstance(basePackages[i]);
+            if (scannerAgent == null) {
+                LOGGER.error("basePackage '{}' not associated with any scannerAgent", basePackages[i]);
+                continue;
+            }
+
+            List<byte[]> definitions = agentClassDefinitions.get(scannerAgent);
+            if (definitions == null) {
+                definitions = new ArrayList<>();
+                agentClassDefinitions.put(scannerAgent, definitions);
+            }
+            definitions.add(classDefinitions[i]);
         }
 
-        reloadFlag = false;
+        for (Map.Entry<ClassPathBeanDefinitionScannerAgent, List<byte[]>> entry : agentClassDefinitions.entrySet()) {
+            ClassPathBeanDefinitionScannerAgent scannerAgent = entry.getKey();
+            scannerAgent.resetCachingMetadataReaderFactoryCache();
+            List<BeanDefinition> candidates = scannerAgent.resolveBeanDefinitionsNoReset(entry.getValue());
+            if (!candidates.isEmpty()) {
+                scannerAgent.defineBeans(candidates);
+            }
+        }
+    }
+
+    /**
+     * Load refreshed classes to evict only related Spring cache entries.
+     *
+     * @return the classes or null if any of the classes cannot be resolved
+     */
+    private static Set<Class<?>> loadRefreshedClasses(String[] basePackages, byte[][] classDefinitions) {
+        Set<Class<?>> classes = new HashSet<>();
+        for (int i = 0; i < classDefinitions.length; i++) {
+            ClassPathBeanDefinitionScannerAgent scannerAgent = getInstance(basePackages[i]);
+            ClassLoader classLoader = scannerAgent != null ? scannerAgent.getBeanClassLoader() : null;
+            if (classLoader == null) {
+                classLoader = ClassPathBeanDefinitionScannerAgent.class.getClassLoader();
+            }
+            try {
+                classes.add(Class.forName(new ClassFilePatcher(classDefinitions[i]).getClassName(), false, classLoader));
+            } catch (Throwable e) {
+                LOGGER.debug("Unable to resolve refreshed class, all Spring caches will be reset.", e);
+                return null;
+            }
+        }
+        return classes;
     }
 
 
     /**
      * Resolve candidate to a bean definition and (re)load in Spring.
-     * Synchronize to avoid parallel bean definition - usually on reload the beans are interrelated
-     * and parallel load will cause concurrent modification exception.
      *
      * @param candidate the candidate to reload
      */
     public void defineBean(BeanDefinition candidate) {
+        defineBeans(Collections.singletonList(candidate));
+    }
+
+    /**
+     * Resolve candidates to bean definitions and (re)load them in Spring. Existing definitions are
+     * removed first, than all new definitions are registered and caches are reset once for the batch.
+     * Synchronize to avoid parallel bean definition - usually on reload the beans are interrelated
+     * and parallel load will cause concurrent modification exception.
+     *
+     * @param candidates the candidates to reload
+     */
+    public void defineBeans(List<BeanDefinition> candidates) {
         synchronized (getClass()) { // TODO sychronize on DefaultListableFactory.beanDefinitionMap?
 
-            ScopeMetadata scopeMetadata = this.scopeMetadataResolver.resolveScopeMetadata(candidate);
-            candidate.setScope(scopeMetadata.getScopeName());
-            String beanName = this.beanNameGenerator.generateBeanName(candidate, registry);
+            Map<String, BeanDefinition> namedCandidates = new LinkedHashMap<>();
+            Map<String, ScopeMetadata> scopes = new HashMap<>();
+            for (BeanDefinition candidate : candidates) {
+                ScopeMetadata scopeMetadata;
+                String beanName;
+                try {
+                    scopeMetadata = this.scopeMetadataResolver.resolveScopeMetadata(candidate);
+                    candidate.setScope(scopeMetadata.getScopeName());
+                    beanName = this.beanNameGenerator.generateBeanName(candidate, registry);
+
+                    if (candidate instanceof AbstractBeanDefinition) {
+                        postProcessBeanDefinition((AbstractBeanDefinition) candidate, beanName);
+                    }
+                    if (candidate instanceof AnnotatedBeanDefinition) {
+                        processCommonDefinitionAnnotations((AnnotatedBeanDefinition) candidate);
+                    }
+                } catch (Throwable e) {
+                    // do not break reload of other classes in the batch
+                    LOGGER.error("Unable to process bean definition of class '{}', it is skipped.", e,
+                            candidate.getBeanClassName());
+                    continue;
+                }
+                namedCandidates.put(beanName, candidate);
+                ResetSpringStaticCaches.addRefreshedBeanName(beanName);
+                scopes.put(beanName, scopeMetadata);
+            }
 
-            if (candidate instanceof AbstractBeanDefinition) {
-                postProcessBeanDefinition((AbstractBeanDefinition) candidate, beanName);
+            DefaultListableBeanFactory bf = maybeRegistryToBeanFactory();
+
+            // @Bean definitions of configuration classes are removed and rebuilt together with the classes
+            Map<String, BeanDefinition> configurations = new HashMap<>();
+            if (SpringPlugin.rebuildConfigurationClasses && bf != null) {
+                for (Map.Entry<String, BeanDefinition> entry : namedCandidates.entrySet()) {
+                    if (ConfigurationClassRebuilder.isConfigurationClass(entry.getValue())) {
+                        configurations.put(entry.getKey(), entry.getValue());
+                    }
+                }
             }
-            if (candidate instanceof AnnotatedBeanDefinition) {
-                processCommonDefinitionAnnotations((AnnotatedBeanDefinition) candidate);
+            Set<String> removedBeans = new HashSet<>(namedCandidates.keySet());
+            if (!configurations.isEmpty()) {
+                removedBeans.addAll(ConfigurationClassRebuilder.getBeanMethodBeans(bf, configurations));
             }
 
-            removeIfExists(beanName);
-            if (checkCandidate(beanName, candidate)) {
+            // collect beans destroyed together with the removed beans before the dependencies are lost
+            Set<String> affectedBeans = new HashSet<>(removedBeans);
+            Set<Class<?>> affectedTypes = new HashSet<>();
+            if (bf != null) {
+                collectAffectedBeans(bf, removedBeans, affectedBeans, affectedTypes);
+            }
+            for (BeanDefinition candidate : namedCandidates.values()) {
+                Class<?> beanClass = loadBeanClass(candidate.getBeanClassName());
+                if (beanClass == null) {
+                    affectedTypes = null;
+                    break;
+                }
+                affectedTypes.add(beanClass);
+            }
 
-                BeanDefinitionHolder definitionHolder = new BeanDefinitionHolder(candidate, beanName);
-                definitionHolder = applyScopedProxyMode(scopeMetadata, definitionHolder, registry);
+            boolean removed = removeIfExists(removedBeans);
+
+            boolean registered = false;
+            for (Map.Entry<String, BeanDefinition> entry : namedCandidates.entrySet()) {
+                String beanName = entry.getKey();
+                BeanDefinition candidate = entry.getValue();
+                try {
+                    if (checkCandidate(beanName, candidate)) {
+
+                        BeanDefinitionHolder definitionHolder = new BeanDefinitionHolder(candidate, beanName);
+                        definitionHolder = applyScopedProxyMode(scopes.get(beanName), definitionHolder, registry);
+
+                        LOGGER.reload("Registering Spring bean '{}'", beanName);
+                        LOGGER.debug("Bean definition '{}'", beanName, candidate);
+                        registerBeanDefinition(definitionHolder, registry);
+                        registered = true;
+                    }
+                } catch (Throwable e) {
+                    LOGGER.error("Unable to register Spring bean '{}', it is skipped.", e, beanName);
+                }
+            }
 
-                LOGGER.reload("Registering Spring bean '{}'", beanName);
-                LOGGER.debug("Bean definition '{}'", beanName, candidate);
-                registerBeanDefinition(definitionHolder, registry);
+            Set<String> changedBeans = new HashSet<>(removedBeans);
+            if (!configurations.isEmpty()) {
+                Set<String> scannedPackages = new HashSet<>();
+                changedBeans.addAll(ConfigurationClassRebuilder.rebuild(bf, scanner, configurations.keySet(), scannedPackages));
+                for (String basePackage : scannedPackages) {
+                    if (!basePackages.contains(basePackage)) {
+                        registerBasePackage(basePackage);
+                    }
+                }
+                registered = true;
+                // types of beans defined by @Bean methods are not known, reset all caches and proxies
+                affectedTypes = null;
+                ResetSpringStaticCaches.beginRefresh(null);
+            }
 
-                DefaultListableBeanFactory bf = maybeRegistryToBeanFactory();
-                if (bf != null)
-                    ResetRequestMappingCaches.reset(bf);
+            if (bf != null && (removed || registered)) {
+                Set<String> beanClassNames = new HashSet<>();
+                for (BeanDefinition candidate : namedCandidates.values()) {
+                    beanClassNames.add(candidate.getBeanClassName());
+                }
+                ResetRequestMappingCaches.reset(bf, changedBeans, beanClassNames);
+            }
 
-                ProxyReplacer.clearAllProxies();
+            if (registered) {
+                ProxyReplacer.clearProxies(affectedBeans, affectedTypes);
                 freezeConfiguration();
             }
         }
+    }
 
+    // beans and all their dependent beans (transitively) with their current types
+    static void collectAffectedBeans(DefaultListableBeanFactory bf, Collection<String> beanNames,
+            Set<String> affectedBeans, Set<Class<?>> affectedTypes) {
+        List<String> toVisit = new ArrayList<>(beanNames);
+        while (!toVisit.isEmpty()) {
+            String beanName = toVisit.remove(toVisit.size() - 1);
+            if (!bf.containsBeanDefinition(beanName) && !bf.containsSingleton(beanName)) {
+                continue;
+            }
+            try {
+                Class<?> beanType = bf.getType(beanName);
+                if (beanType != null) {
+                    affectedTypes.add(beanType);
+                }
+            } catch (RuntimeException e) {
+                LOGGER.debug("Unable to resolve type of bean '{}'", e, beanName);
+            }
+            for (String dependentBean : bf.getDependentBeans(beanName)) {
+                if (affectedBeans.add(dependentBean)) {
+                    toVisit.add(dependentBean);
+                }
+            }
+        }
+    }
 
+    private Class<?> loadBeanClass(String className) {
+        ClassLoader classLoader = getBeanClassLoader();
+        try {
+            return Class.forName(className, false, classLoader != null ? classLoader : getClass().getClassLoader());
+        } catch (Throwable e) {
+            LOGGER.debug("Unable to load bean class {}", e, className);
+            return null;
+        }
     }
 
     /**
-     * If registry contains the bean, remove it first (destroying existing singletons).
+     * If registry contains the beans, remove them first (destroying existing singletons).
      *
-     * @param beanName name of the bean
+     * @param beanNames names of the beans
+     * @return true if any bean was removed
      */
-    private void removeIfExists(String beanName) {
-        if (registry.containsBeanDefinition(beanName)) {
-            LOGGER.debug("Removing bean definition '{}'", beanName);
-            DefaultListableBeanFactory bf = maybeRegistryToBeanFactory();
-            if (bf != null) {
-                ResetRequestMappingCaches.reset(bf);
+    private boolean removeIfExists(Collection<String> beanNames) {
+        List<String> existing = new ArrayList<>();
+        for (String beanName : beanNames) {
+            if (registry.containsBeanDefinition(beanName)) {
+                existing.add(beanName);
             }
+        }
+        if (existing.isEmpty()) {
+            return false;
+        }
+
+        DefaultListableBeanFactory bf = maybeRegistryToBeanFactory();
+        for (String beanName : existing) {
+            LOGGER.debug("Removing bean definition '{}'", beanName);
             registry.removeBeanDefinition(beanName);
+        }
 
-            ResetSpringStaticCaches.reset();
-            if (bf != null) {
-                ResetBeanPostProcessorCaches.reset(bf);
-            }
+        ResetSpringStaticCaches.resetRefreshed();
+        if (bf != null) {
+            ResetBeanPostProcessorCaches.reset(bf);
         }
+        return true;
+    }
+
+    private ClassLoader getBeanClassLoader() {
+        DefaultListableBeanFactory bf = maybeRegistryToBeanFactory();
+        return bf != null ? bf.getBeanClassLoader() : null;
     }
 
     private DefaultListableBeanFactory maybeRegistryToBeanFactory() {
@@ -249,10 +469,107 @@ public class ClassPathBeanDefinitionScannerAgent {
      * @throws IOException
      */
     public BeanDefinition resolveBeanDefinition(byte[] bytes) throws IOException {
-        Resource resource = new ByteArrayResource(bytes);
         resetCachingMetadataReaderFactoryCache();
-        MetadataReader metadataReader = getMetadataReaderFactory().getMetadataReader(resource);
+        return resolveBeanDefinitionNoReset(bytes);
+    }
+
+    // resolve bean definition, caller is responsible to reset metadataReader cache
+    private BeanDefinition resolveBeanDefinitionNoReset(byte[] bytes) throws IOException {
+        return resolveBeanDefinition(getMetadataReaderFactory().getMetadataReader(new ByteArrayResource(bytes)));
+    }
+
+    /**
+     * Resolve bean definitions of a batch of classes (e.g. after a branch switch). Class files without any annotation
+     * are skipped by a lightweight class file scan if only annotation filters are used, metadata of the others
+     * are read in parallel for large batches. Candidate filtering remains sequential. A class which cannot be
+     * read or resolved is logged and skipped, bean definitions of the other classes are still returned.
+     * Caller is responsible to reset metadataReader cache.
+     *
+     * @param classDefinitions class definitions
+     * @return bean definitions of candidate components
+     * @throws IOException interrupted while reading class definitions
+     */
+    private List<BeanDefinition> resolveBeanDefinitionsNoReset(List<byte[]> classDefinitions) throws IOException {
+        MetadataReader[] metadataReaders = readMetadata(classDefinitions);
+        List<BeanDefinition> result = new ArrayList<>();
+        for (MetadataReader metadataReader : metadataReaders) {
+            if (metadataReader != null) {
+                try {
+                    BeanDefinition beanDefinition = resolveBeanDefinition(metadataReader);
+                    if (beanDefinition != null) {
+                        result.add(beanDefinition);
+                    }
+                } catch (Throwable e) {
+                    LOGGER.error("Unable to resolve bean definition of class '{}', it is skipped.", e,
+                            metadataReader.getClassMetadata().getClassName());
+                }
+            }
+        }
+        return result;
+    }
+
+    private MetadataReader[] readMetadata(final List<byte[]> classDefinitions) throws IOException {
+        final MetadataReader[] metadataReaders = new MetadataReader[classDefinitions.size()];
+        final boolean annotatedOnly = isAnnotationFilterOnly();
+        SimpleMetadataReaderFactory simpleFactory = getSimpleMetadataReaderFactory();
+        final MetadataReaderFactory factory = simpleFactory != null ? simpleFactory : getMetadataReaderFactory();
 
+        if (simpleFactory == null || classDefinitions.size() < PARALLEL_THRESHOLD) {
+            for (int i = 0; i < metadataReaders.length; i++) {
+                metadataReaders[i] = readMetadataOrSkip(factory, classDefinitions.get(i), annotatedOnly);
+            }
+            return metadataReaders;
+        }
+
+        long start = System.currentTimeMillis();
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int i = 0; i < metadataReaders.length; i++) {
+            final int index = i;
+            tasks.add(ForkJoinPool.commonPool().submit(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    metadataReaders[index] = readMetadataOrSkip(factory, classDefinitions.get(index), annotatedOnly);
+                    return null;
+                }
+            }));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while reading class metadata.", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException("Unable to read class metadata.", e.getCause());
+            }
+        }
+        LOGGER.debug("Read metadata of {} classes in {}ms.", metadataReaders.length, System.currentTimeMillis() - start);
+        return metadataReaders;
+    }
+
+    // null if the class cannot be a candidate component or its metadata cannot be read (the error is logged)
+    private static MetadataReader readMetadataOrSkip(MetadataReaderFactory factory, byte[] bytes, boolean annotatedOnly) {
+        try {
+            return readMetadata(factory, bytes, annotatedOnly);
+        } catch (Throwable e) {
+            LOGGER.error("Unable to read metadata of a refreshed class, it is skipped.", e);
+            return null;
+        }
+    }
+
+    // null if the class cannot be a candidate component
+    static MetadataReader readMetadata(MetadataReaderFactory factory, byte[] bytes, boolean annotatedOnly) throws IOException {
+        if (annotatedOnly && !new ClassFilePatcher(bytes).hasAttribute("RuntimeVisibleAnnotations")) {
+            return null;
+        }
+        return factory.getMetadataReader(new ByteArrayResource(bytes));
+    }
+
+    private BeanDefinition resolveBeanDefinition(MetadataReader metadataReader) {
+        Resource resource = metadataReader.getResource();
         if (isCandidateComponent(metadataReader)) {
             ScannedGenericBeanDefinition sbd = new ScannedGenericBeanDefinition(metadataReader);
             sbd.setResource(resource);
@@ -274,6 +591,32 @@ public class ClassPathBeanDefinitionScannerAgent {
         return (MetadataReaderFactory) ReflectionHelper.get(scanner, "metadataReaderFactory");
     }
 
+    // thread safe factory without cache equivalent to the scanner factory, null for custom factories
+    private SimpleMetadataReaderFactory getSimpleMetadataReaderFactory() {
+        MetadataReaderFactory factory = getMetadataReaderFactory();
+        if (factory.getClass() == CachingMetadataReaderFactory.class || factory.getClass() == SimpleMetadataReaderFactory.class) {
+            return new SimpleMetadataReaderFactory(((SimpleMetadataReaderFactory) factory).getResourceLoader());
+        }
+        return null;
+    }
+
+    // true if all include filters match only annotations present on the class itself (e.g. default @Component filter)
+    boolean isAnnotationFilterOnly() {
+        List<?> includeFilters = (List<?>) ReflectionHelper.getNoException(scanner,
+                ClassPathScanningCandidateComponentProvider.class, "includeFilters");
+        if (includeFilters == null || includeFilters.isEmpty()) {
+            return false;
+        }
+        for (Object filter : includeFilters) {
+            if (filter.getClass() != AnnotationTypeFilter.class
+                    || !Boolean.FALSE.equals(ReflectionHelper.getNoException(filter, AbstractTypeHierarchyTraversingFilter.class, "considerInherited"))
+                    || !Boolean.FALSE.equals(ReflectionHelper.getNoException(filter, AbstractTypeHierarchyTraversingFilter.class, "considerInterfaces"))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     // metadataReader contains cache of loaded classes, reset this cache before BeanDefinition is resolved
     private void resetCachingMetadataReaderFactoryCache() {
         if (getMetadataReaderFactory() instanceof CachingMetadataReaderFactory) {
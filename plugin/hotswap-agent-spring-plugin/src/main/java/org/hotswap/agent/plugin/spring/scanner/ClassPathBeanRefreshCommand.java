@@ -28,12 +28,16 @@ import org.hotswap.agent.watch.WatchFileEvent;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Do refresh Spring class (scanned by classpath scanner) based on URI or byte[] definition.
  *
  * This commands merges events of watcher.event(CREATE) and transformer hotswap reload to a single refresh command.
+ * Commands are equal per application classloader, hence all classes changed within the scheduler timeout
+ * are merged and refreshed in Spring as a single batch.
  */
 public class ClassPathBeanRefreshCommand extends MergeableCommand {
     private static AgentLogger LOGGER = AgentLogger.getLogger(ClassPathBeanRefreshCommand.class);
@@ -68,31 +72,46 @@ public class ClassPathBeanRefreshCommand extends MergeableCommand {
 
     @Override
     public void executeCommand() {
-        if (isDeleteEvent()) {
-            LOGGER.trace("Skip Spring reload for delete event on class '{}'", className);
-            return;
+        // for all merged commands including this command, grouped by class name
+        Map<String, List<ClassPathBeanRefreshCommand>> commandsByClass = new LinkedHashMap<>();
+        for (Command command : popMergedCommands()) {
+            addCommand(commandsByClass, (ClassPathBeanRefreshCommand) command);
         }
+        addCommand(commandsByClass, this);
+
+        List<String> basePackages = new ArrayList<>();
+        List<byte[]> classDefinitions = new ArrayList<>();
+        for (Map.Entry<String, List<ClassPathBeanRefreshCommand>> entry : commandsByClass.entrySet()) {
+            String refreshClassName = entry.getKey();
+            List<ClassPathBeanRefreshCommand> classCommands = entry.getValue();
+            if (isDeleteEvent(classCommands)) {
+                LOGGER.trace("Skip Spring reload for delete event on class '{}'", refreshClassName);
+                continue;
+            }
 
-        try {
-            if (classDefinition == null) {
-                try {
-                    this.classDefinition = IOUtils.toByteArray(event.getURI());
-                } catch (IllegalArgumentException e) {
-                    LOGGER.debug("File {} not found on filesystem (deleted?). Unable to refresh associated Spring bean.", event.getURI());
-                    return;
-                }
+            byte[] definition = resolveClassDefinition(classCommands);
+            if (definition != null) {
+                basePackages.add(classCommands.get(classCommands.size() - 1).basePackage);
+                classDefinitions.add(definition);
             }
+        }
 
-            LOGGER.debug("Executing ClassPathBeanDefinitionScannerAgent.refreshClass('{}')", className);
+        if (classDefinitions.isEmpty()) {
+            return;
+        }
+
+        try {
+            LOGGER.debug("Executing ClassPathBeanDefinitionScannerAgent.refreshClasses('{}')", commandsByClass.keySet());
 
             Class<?> clazz = Class.forName("org.hotswap.agent.plugin.spring.scanner.ClassPathBeanDefinitionScannerAgent", true, appClassLoader);
             Method method  = clazz.getDeclaredMethod(
-                    "refreshClass", new Class[] {String.class, byte[].class});
-            method.invoke(null, basePackage, classDefinition);
+                    "refreshClasses", new Class[] {String[].class, byte[][].class});
+            method.invoke(null, basePackages.toArray(new String[basePackages.size()]),
+                    classDefinitions.toArray(new byte[classDefinitions.size()][]));
         } catch (NoSuchMethodException e) {
             throw new IllegalStateException("Plugin error, method not found", e);
         } catch (InvocationTargetException e) {
-            LOGGER.error("Error refreshing class {} in classLoader {}", e, className, appClassLoader);
+            LOGGER.error("Error refreshing classes {} in classLoader {}", e, commandsByClass.keySet(), appClassLoader);
         } catch (IllegalAccessException e) {
             throw new IllegalStateException("Plugin error, illegal access", e);
         } catch (ClassNotFoundException e) {
@@ -101,21 +120,47 @@ public class ClassPathBeanRefreshCommand extends MergeableCommand {
 
     }
 
+    private static void addCommand(Map<String, List<ClassPathBeanRefreshCommand>> commandsByClass, ClassPathBeanRefreshCommand command) {
+        List<ClassPathBeanRefreshCommand> classCommands = commandsByClass.get(command.className);
+        if (classCommands == null) {
+            classCommands = new ArrayList<>();
+            commandsByClass.put(command.className, classCommands);
+        }
+        classCommands.add(command);
+    }
+
     /**
-     * Check all merged events for delete and create events. If delete without create is found, than assume
-     * file was deleted.
+     * Prefer the latest class definition from hotswap transformer, otherwise load the class file from the latest event.
      */
-    private boolean isDeleteEvent() {
-        // for all merged commands including this command
-        List<ClassPathBeanRefreshCommand> mergedCommands = new ArrayList<>();
-        for (Command command : getMergedCommands()) {
-            mergedCommands.add((ClassPathBeanRefreshCommand) command);
+    private static byte[] resolveClassDefinition(List<ClassPathBeanRefreshCommand> classCommands) {
+        for (int i = classCommands.size() - 1; i >= 0; i--) {
+            if (classCommands.get(i).classDefinition != null) {
+                return classCommands.get(i).classDefinition;
+            }
         }
-        mergedCommands.add(this);
 
+        for (int i = classCommands.size() - 1; i >= 0; i--) {
+            WatchFileEvent classEvent = classCommands.get(i).event;
+            if (classEvent != null && !classEvent.getEventType().equals(FileEvent.DELETE)) {
+                try {
+                    return IOUtils.toByteArray(classEvent.getURI());
+                } catch (IllegalArgumentException e) {
+                    LOGGER.debug("File {} not found on filesystem (deleted?). Unable to refresh associated Spring bean.", classEvent.getURI());
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Check all merged events of a class for delete and create events. If delete without create is found, than assume
+     * file was deleted.
+     */
+    private static boolean isDeleteEvent(List<ClassPathBeanRefreshCommand> classCommands) {
         boolean createFound = false;
         boolean deleteFound = false;
-        for (ClassPathBeanRefreshCommand command : mergedCommands) {
+        for (ClassPathBeanRefreshCommand command : classCommands) {
             if (command.event != null) {
                 if (command.event.getEventType().equals(FileEvent.DELETE))
                     deleteFound = true;
@@ -135,17 +180,12 @@ public class ClassPathBeanRefreshCommand extends MergeableCommand {
 
         ClassPathBeanRefreshCommand that = (ClassPathBeanRefreshCommand) o;
 
-        if (!appClassLoader.equals(that.appClassLoader)) return false;
-        if (!className.equals(that.className)) return false;
-
-        return true;
+        return appClassLoader.equals(that.appClassLoader);
     }
 
     @Override
     public int hashCode() {
-        int result = appClassLoader.hashCode();
-        result = 31 * result + className.hashCode();
-        return result;
+        return appClassLoader.hashCode();
     }
 
     @Override
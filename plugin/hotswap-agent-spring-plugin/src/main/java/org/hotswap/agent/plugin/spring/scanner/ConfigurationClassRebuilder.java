@@ -0,0 +1,192 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.plugin.spring.scanner;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.hotswap.agent.logging.AgentLogger;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ClassPathBeanDefinitionScanner;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ConfigurationClassPostProcessor;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.ImportResource;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Rebuild bean definitions of changed configuration classes in place (@Bean methods, imports, nested component scans).
+ *
+ * The application part of the context (refreshed configuration classes and beans created by their @Bean methods) is
+ * removed and processed again by a new ConfigurationClassPostProcessor, the rest of the context (e.g. datasources,
+ * JPA or caches from auto-configuration) keeps its bean definitions and singletons. Existing bean definitions are
+ * never overridden by the rebuild, only new definitions are registered.
+ */
+public class ConfigurationClassRebuilder {
+    private static AgentLogger LOGGER = AgentLogger.getLogger(ConfigurationClassRebuilder.class);
+
+    // set while configuration classes are processed, scanners created by @ComponentScan are not registered,
+    // their base packages are collected instead and registered by the caller of rebuild()
+    private static final ThreadLocal<Set<String>> rebuildBasePackages = new ThreadLocal<>();
+
+    /**
+     * @return true if configuration classes are rebuilt in the current thread
+     */
+    public static boolean isRebuilding() {
+        return rebuildBasePackages.get() != null;
+    }
+
+    /**
+     * Record base package of a nested component scan during rebuild.
+     *
+     * @param basePackage package that Spring scans
+     */
+    public static void addBasePackage(String basePackage) {
+        Set<String> basePackages = rebuildBasePackages.get();
+        if (basePackages != null) {
+            basePackages.add(basePackage);
+        }
+    }
+
+    /**
+     * Check if the bean definition is processed by ConfigurationClassPostProcessor - @Configuration class,
+     * a class with @Bean methods or with imports and component scan.
+     */
+    public static boolean isConfigurationClass(BeanDefinition beanDefinition) {
+        if (!(beanDefinition instanceof AnnotatedBeanDefinition)) {
+            return false;
+        }
+        AnnotationMetadata metadata = ((AnnotatedBeanDefinition) beanDefinition).getMetadata();
+        return metadata.isAnnotated(Configuration.class.getName())
+                || metadata.hasAnnotatedMethods(Bean.class.getName())
+                || metadata.isAnnotated(Import.class.getName())
+                || metadata.isAnnotated(ImportResource.class.getName())
+                || metadata.isAnnotated(ComponentScan.class.getName());
+    }
+
+    /**
+     * Find bean definitions registered by @Bean methods of the configuration classes. Static @Bean methods
+     * have only the configuration class name without the factory bean.
+     *
+     * @param bf             the bean factory
+     * @param configurations configuration bean definitions by bean name
+     * @return bean names
+     */
+    public static Set<String> getBeanMethodBeans(DefaultListableBeanFactory bf, Map<String, BeanDefinition> configurations) {
+        Set<String> classNames = new HashSet<>();
+        for (BeanDefinition configuration : configurations.values()) {
+            classNames.add(configuration.getBeanClassName());
+        }
+
+        Set<String> result = new HashSet<>();
+        for (String beanName : bf.getBeanDefinitionNames()) {
+            BeanDefinition beanDefinition = bf.getBeanDefinition(beanName);
+            if (beanDefinition instanceof AnnotatedBeanDefinition && beanDefinition.getFactoryMethodName() != null) {
+                String factoryBeanName = beanDefinition.getFactoryBeanName();
+                if (factoryBeanName != null ? configurations.containsKey(factoryBeanName)
+                        : classNames.contains(beanDefinition.getBeanClassName())) {
+                    result.add(beanName);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Process registered configuration classes and enhance them (CGLIB subclass of @Configuration classes).
+     * The configuration bean definitions must be registered and their previous @Bean definitions removed.
+     *
+     * @param bf                 the bean factory
+     * @param scanner            scanner of the configuration classes, provides environment and resource loader
+     * @param configurationBeans names of the configuration beans
+     * @param basePackages       filled with base packages of nested component scans
+     * @return names of newly registered bean definitions (@Bean methods, imports, nested component scans)
+     */
+    public static Set<String> rebuild(DefaultListableBeanFactory bf, ClassPathBeanDefinitionScanner scanner,
+            Set<String> configurationBeans, Set<String> basePackages) {
+        LOGGER.reload("Rebuilding Spring configuration classes {}", configurationBeans);
+
+        // new instance - the context post processor refuses to process the same registry twice and caches metadata
+        ConfigurationClassPostProcessor processor = new ConfigurationClassPostProcessor();
+        processor.setEnvironment(scanner.getEnvironment());
+        processor.setResourceLoader(scanner.getResourceLoader());
+        processor.setBeanClassLoader(bf.getBeanClassLoader());
+
+        Set<String> registered = new HashSet<>();
+        Set<String> scannedPackages = new HashSet<>();
+        rebuildBasePackages.set(scannedPackages);
+        try {
+            processor.processConfigBeanDefinitions((BeanDefinitionRegistry) newDefinitionsOnly(bf, null, registered));
+            processor.enhanceConfigurationClasses(newDefinitionsOnly(bf, configurationBeans, null));
+        } finally {
+            rebuildBasePackages.remove();
+        }
+        basePackages.addAll(scannedPackages);
+        return registered;
+    }
+
+    /**
+     * Bean factory view which does not override existing bean definitions. Unchanged imported configuration and its
+     * beans are kept, hence their singletons are not destroyed.
+     *
+     * @param bf         the bean factory
+     * @param beanNames  visible bean definition names, null for all
+     * @param registered collects names of registered bean definitions, may be null
+     */
+    private static ConfigurableListableBeanFactory newDefinitionsOnly(final DefaultListableBeanFactory bf, final Set<String> beanNames,
+            final Set<String> registered) {
+        InvocationHandler handler = new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if ("registerBeanDefinition".equals(method.getName())) {
+                    if (bf.containsBeanDefinition((String) args[0])) {
+                        LOGGER.debug("Keeping existing bean definition '{}'", args[0]);
+                        return null;
+                    }
+                    if (registered != null) {
+                        registered.add((String) args[0]);
+                    }
+                }
+                if (beanNames != null && "getBeanDefinitionNames".equals(method.getName())) {
+                    return beanNames.toArray(new String[beanNames.size()]);
+                }
+                try {
+                    return method.invoke(bf, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        };
+        ClassLoader classLoader = bf.getClass().getClassLoader();
+        return (ConfigurableListableBeanFactory) Proxy.newProxyInstance(classLoader,
+                ClassUtils.getAllInterfacesForClass(bf.getClass(), classLoader), handler);
+    }
+}
@@ -22,9 +22,12 @@ import org.hotswap.agent.logging.AgentLogger;
 import org.hotswap.agent.plugin.spring.ResetBeanPostProcessorCaches;
 import org.hotswap.agent.plugin.spring.SpringPlugin;
 import org.hotswap.agent.plugin.spring.getbean.ProxyReplacer;
+import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.support.BeanDefinitionReader;
+import org.springframework.beans.factory.support.BeanDefinitionReaderUtils;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.SimpleBeanDefinitionRegistry;
 import org.springframework.beans.factory.xml.XmlBeanDefinitionReader;
 import org.springframework.context.annotation.ClassPathBeanDefinitionScanner;
 import org.springframework.context.support.GenericApplicationContext;
@@ -33,9 +36,21 @@ import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
 
 /**
  * IMPORTANT: DON'T REFER TO THIS CLASS IN OTHER CLASS!!
@@ -45,9 +60,25 @@ public class XmlBeanDefinitionScannerAgent {
 
     private static Map<String, XmlBeanDefinitionScannerAgent> instances = new HashMap<>();
 
+    // XML namespaces which define only beans without side effects (scanning, post processors), supported by diff reload
+    private static final List<String> DIFF_NAMESPACES = Arrays.asList(
+            "http://www.springframework.org/schema/beans",
+            "http://www.springframework.org/schema/util",
+            "http://www.springframework.org/schema/p",
+            "http://www.springframework.org/schema/c");
+
+    // true while the new XML is parsed into a temporary registry, do not register the temporary reader
+    private static final ThreadLocal<Boolean> parsingDiff = new ThreadLocal<>();
+
     // xmlReader for corresponding url
     BeanDefinitionReader reader;
 
+    // description of the resource loaded by Spring
+    String resourceDescription;
+
+    // names of beans defined in the XML by last reload, null before first reload
+    Set<String> beanNames;
+
     /**
      * Flag to check reload status.
      * In unit test we need to wait for reload finish before the test can continue. Set flag to true
@@ -60,6 +91,9 @@ public class XmlBeanDefinitionScannerAgent {
      * so this class is will be loaded by appClassLoader
      */
     public static void registerXmlBeanDefinitionScannerAgent(XmlBeanDefinitionReader reader, Resource resource) {
+        if (Boolean.TRUE.equals(parsingDiff.get())) {
+            return;
+        }
         String path;
         if (resource instanceof ClassPathResource) {
             path = ((ClassPathResource)resource).getPath();
@@ -73,7 +107,9 @@ public class XmlBeanDefinitionScannerAgent {
             }
         }
 
-        instances.put(path, new XmlBeanDefinitionScannerAgent(reader));
+        XmlBeanDefinitionScannerAgent agent = new XmlBeanDefinitionScannerAgent(reader);
+        agent.resourceDescription = resource.getDescription();
+        instances.put(path, agent);
     }
 
     public static void reloadXml(URL url) {
@@ -143,6 +179,10 @@ public class XmlBeanDefinitionScannerAgent {
      *  @param url url of xml
      */
     public void reloadBeanFromXml(URL url) {
+        if (isDiffReloadSupported(url)) {
+            reloadChangedBeansFromXml(url);
+            return;
+        }
         LOGGER.info("Reloading XML file: " + url);
         // this will call registerBeanDefinition which in turn call resetBeanDefinition to destroy singleton
         // maybe should use watchResourceClassLoader.getResource?
@@ -151,9 +191,180 @@ public class XmlBeanDefinitionScannerAgent {
         // which lead to singletons depend on beans in xml won't be destroy and recreate, may be a spring bug?
         ResetBeanPostProcessorCaches.reset(maybeRegistryToBeanFactory());
         ProxyReplacer.clearAllProxies();
+        ProxyReplacer.warmUpProxies();
         reloadFlag = false;
     }
 
+    /**
+     * Reload only changed beans. The XML is parsed into a temporary registry and each bean definition is compared
+     * with the registered one. Changed beans are replaced (Spring destroys the singleton and its dependent beans),
+     * new beans are added and beans no longer in the XML are removed. Unchanged singletons stay alive.
+     *
+     * @param url url of xml
+     */
+    public void reloadChangedBeansFromXml(URL url) {
+        LOGGER.info("Reloading changed beans from XML file: " + url);
+        BeanDefinitionRegistry registry = this.reader.getRegistry();
+
+        SimpleBeanDefinitionRegistry newRegistry = new SimpleBeanDefinitionRegistry();
+        XmlBeanDefinitionReader newReader = new XmlBeanDefinitionReader(newRegistry);
+        newReader.setEnvironment(((XmlBeanDefinitionReader) reader).getEnvironment());
+        newReader.setResourceLoader(reader.getResourceLoader());
+        newReader.setBeanClassLoader(reader.getBeanClassLoader());
+        parsingDiff.set(Boolean.TRUE);
+        try {
+            newReader.loadBeanDefinitions(new FileSystemResource(url.getPath()));
+        } finally {
+            parsingDiff.remove();
+        }
+
+        Set<String> newBeanNames = new LinkedHashSet<>(Arrays.asList(newRegistry.getBeanDefinitionNames()));
+        for (String beanName : newBeanNames) {
+            // generated names depend on registry content, cannot be matched with registered beans
+            if (beanName.contains(BeanDefinitionReaderUtils.GENERATED_BEAN_NAME_SEPARATOR)) {
+                LOGGER.debug("Bean '{}' without id in XML file, reloading all beans.", beanName);
+                this.reader.loadBeanDefinitions(new FileSystemResource(url.getPath()));
+                afterReload(newBeanNames, null, null);
+                return;
+            }
+        }
+
+        List<String> removedBeans = new ArrayList<>();
+        for (String beanName : getBeanNames(registry)) {
+            if (!newBeanNames.contains(beanName) && registry.containsBeanDefinition(beanName)) {
+                removedBeans.add(beanName);
+            }
+        }
+        List<String> registeredBeans = new ArrayList<>();
+        for (String beanName : newBeanNames) {
+            if (!registry.containsBeanDefinition(beanName)
+                    || !newRegistry.getBeanDefinition(beanName).equals(registry.getBeanDefinition(beanName))) {
+                registeredBeans.add(beanName);
+            }
+        }
+
+        // collect beans destroyed together with the changed beans before the dependencies are lost, types are
+        // not known without the bean factory (all proxies are cleared)
+        DefaultListableBeanFactory bf = maybeRegistryToBeanFactory();
+        Set<String> affectedBeans = new HashSet<>(removedBeans);
+        affectedBeans.addAll(registeredBeans);
+        Set<Class<?>> affectedTypes = null;
+        if (bf != null) {
+            affectedTypes = new HashSet<>();
+            ClassPathBeanDefinitionScannerAgent.collectAffectedBeans(bf, new ArrayList<>(affectedBeans),
+                    affectedBeans, affectedTypes);
+        }
+
+        for (String beanName : removedBeans) {
+            LOGGER.reload("Removing Spring bean '{}'", beanName);
+            registry.removeBeanDefinition(beanName);
+        }
+
+        for (String beanName : registeredBeans) {
+            BeanDefinition newDefinition = newRegistry.getBeanDefinition(beanName);
+            if (registry.containsBeanDefinition(beanName)) {
+                LOGGER.reload("Replacing Spring bean '{}'", beanName);
+            } else {
+                LOGGER.reload("Registering Spring bean '{}'", beanName);
+            }
+            // this will call resetBeanDefinition to destroy singleton and dependent beans
+            registry.registerBeanDefinition(beanName, newDefinition);
+            for (String alias : newRegistry.getAliases(beanName)) {
+                if (!registry.isAlias(alias)) {
+                    registry.registerAlias(beanName, alias);
+                }
+            }
+            if (affectedTypes != null) {
+                // type of the new definition may differ, e.g. proxies obtained by type of a new bean
+                Class<?> beanType = getNewBeanType(bf, beanName);
+                if (beanType != null) {
+                    affectedTypes.add(beanType);
+                } else {
+                    affectedTypes = null;
+                }
+            }
+        }
+
+        if (!removedBeans.isEmpty() || !registeredBeans.isEmpty()) {
+            afterReload(newBeanNames, affectedBeans, affectedTypes);
+        } else {
+            LOGGER.info("No bean definition changed in XML file: " + url);
+            beanNames = newBeanNames;
+            reloadFlag = false;
+        }
+    }
+
+    // affectedBeans null if not known (all proxies are cleared), affectedTypes null if not known
+    private void afterReload(Set<String> newBeanNames, Set<String> affectedBeans, Set<Class<?>> affectedTypes) {
+        beanNames = newBeanNames;
+        ResetBeanPostProcessorCaches.reset(maybeRegistryToBeanFactory());
+        if (affectedBeans != null) {
+            ProxyReplacer.clearProxies(affectedBeans, affectedTypes);
+        } else {
+            ProxyReplacer.clearAllProxies();
+        }
+        ProxyReplacer.warmUpProxies();
+        reloadFlag = false;
+    }
+
+    // type of the registered bean without creating it, null if it cannot be resolved
+    private static Class<?> getNewBeanType(DefaultListableBeanFactory bf, String beanName) {
+        try {
+            return bf.getType(beanName);
+        } catch (RuntimeException e) {
+            LOGGER.debug("Unable to resolve type of bean '{}'", e, beanName);
+            return null;
+        }
+    }
+
+    // beans defined by last reload or by the original resource
+    private Set<String> getBeanNames(BeanDefinitionRegistry registry) {
+        if (beanNames != null) {
+            return beanNames;
+        }
+        Set<String> result = new HashSet<>();
+        if (resourceDescription != null) {
+            for (String beanName : registry.getBeanDefinitionNames()) {
+                if (resourceDescription.equals(registry.getBeanDefinition(beanName).getResourceDescription())) {
+                    result.add(beanName);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Diff reload is supported for XML files with plain bean definitions. Elements from other namespaces (e.g.
+     * component-scan, annotation-config) and imports register beans as a side effect, full reload is used.
+     */
+    private boolean isDiffReloadSupported(URL url) {
+        if (!(reader instanceof XmlBeanDefinitionReader)) {
+            return false;
+        }
+        try (InputStream is = url.openStream()) {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            factory.setValidating(false);
+            // only element namespaces are checked, do not load DTDs and external entities
+            factory.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+            factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+            factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+            factory.setExpandEntityReferences(false);
+            NodeList elements = factory.newDocumentBuilder().parse(is).getElementsByTagName("*");
+            for (int i = 0; i < elements.getLength(); i++) {
+                Element element = (Element) elements.item(i);
+                if (!DIFF_NAMESPACES.contains(element.getNamespaceURI()) || "import".equals(element.getLocalName())) {
+                    LOGGER.debug("XML element '{}' not supported by diff reload of {}.", element.getTagName(), url);
+                    return false;
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            LOGGER.debug("Unable to parse XML {}, using full reload.", e, url);
+            return false;
+        }
+    }
+
     private DefaultListableBeanFactory maybeRegistryToBeanFactory() {
         BeanDefinitionRegistry registry = this.reader.getRegistry();
         if (registry instanceof DefaultListableBeanFactory) {
@@ -19,6 +19,7 @@
 package org.hotswap.agent.plugin.spring.signature;
 
 import org.hotswap.agent.javassist.ClassPool;
+import org.hotswap.agent.javassist.CtClass;
 import org.hotswap.agent.util.signature.ClassSignatureElement;
 import org.hotswap.agent.util.signature.ClassSignatureComparerHelper;
 
@@ -48,4 +49,20 @@ public class ClassSignatureComparer {
     public static boolean isPoolClassDifferent(Class<?> classBeingRedefined, ClassPool cp) {
         return ClassSignatureComparerHelper.isPoolClassDifferent(classBeingRedefined, cp, SIGNATURE_ELEMENTS);
     }
+
+    /**
+     * @param ctClass new class definition
+     * @return signature of the Spring relevant elements
+     */
+    public static String getSignature(CtClass ctClass) throws Exception {
+        return ClassSignatureComparerHelper.getCtClassSignature(ctClass, SIGNATURE_ELEMENTS);
+    }
+
+    /**
+     * @param clazz loaded class
+     * @return signature of the Spring relevant elements
+     */
+    public static String getSignature(Class<?> clazz) throws Exception {
+        return ClassSignatureComparerHelper.getJavaClassSignature(clazz, SIGNATURE_ELEMENTS);
+    }
 }
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.plugin.spring;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+
+import org.hotswap.agent.plugin.spring.getbean.DetachableBeanHolder;
+import org.hotswap.agent.plugin.spring.getbean.ProxyReplacer;
+import org.hotswap.agent.plugin.spring.scanner.ClassPathBeanDefinitionScannerAgent;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+/**
+ * Selective detach of getBean proxies - only proxies of affected beans lose their target.
+ */
+public class ProxyReplacerTest {
+
+    public interface Service {
+    }
+
+    public static class ServiceImpl implements Service {
+    }
+
+    public static class Repository {
+    }
+
+    public static class Unrelated {
+    }
+
+    // bean classes as seen by the proxy holder (CGLIB subclass of the bean class)
+    public static class ServiceImplEnhanced extends ServiceImpl {
+    }
+
+    public static class RepositoryEnhanced extends Repository {
+    }
+
+    public static class UnrelatedEnhanced extends Unrelated {
+    }
+
+    public static class PostProcessor implements BeanPostProcessor {
+        @Override
+        public Object postProcessBeforeInitialization(Object bean, String beanName) {
+            return bean;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            return bean;
+        }
+    }
+
+    public static class BeanFactory {
+        public Object getBean(String name) {
+            return "repository".equals(name) ? new RepositoryEnhanced() : new UnrelatedEnhanced();
+        }
+
+        public Object getBean(Class<?> type) {
+            return new ServiceImplEnhanced();
+        }
+    }
+
+    private final BeanFactory beanFactory = new BeanFactory();
+
+    @After
+    public void tearDown() {
+        SpringPlugin.warmUpBeans = false;
+    }
+
+    private DetachableBeanHolder byName(Object bean, String beanName) {
+        return new DetachableBeanHolder(bean, beanFactory, new Class[]{String.class}, new Object[]{beanName});
+    }
+
+    private DetachableBeanHolder byType(Object bean, Class<?> type) {
+        return new DetachableBeanHolder(bean, beanFactory, new Class[]{Class.class}, new Object[]{type});
+    }
+
+    @Test
+    public void testClearProxiesByName() throws Exception {
+        DetachableBeanHolder repository = byName(new RepositoryEnhanced(), "repository");
+        DetachableBeanHolder unrelated = byName(new UnrelatedEnhanced(), "unrelated");
+        Object unrelatedBean = unrelated.getTarget();
+
+        ProxyReplacer.clearProxies(Collections.singleton("repository"), Collections.<Class<?>>emptySet());
+
+        assertNull(repository.getTarget());
+        assertSame(unrelatedBean, unrelated.getTarget());
+
+        // detached proxy loads the new bean from the factory
+        assertNotNull(repository.getBean());
+        assertSame(repository.getBean(), repository.getTarget());
+    }
+
+    @Test
+    public void testClearProxiesByType() throws Exception {
+        DetachableBeanHolder service = byType(new ServiceImplEnhanced(), Service.class);
+        DetachableBeanHolder serviceImpl = byName(new ServiceImplEnhanced(), "serviceImpl");
+        DetachableBeanHolder unrelated = byName(new UnrelatedEnhanced(), "unrelated");
+        Object unrelatedBean = unrelated.getTarget();
+
+        // the proxy requested by interface is affected by the implementation class
+        ProxyReplacer.clearProxies(Collections.<String>emptySet(), Collections.<Class<?>>singleton(ServiceImpl.class));
+
+        assertNull(service.getTarget());
+        assertNull(serviceImpl.getTarget());
+        assertSame(unrelatedBean, unrelated.getTarget());
+
+        assertNotNull(service.getBean());
+    }
+
+    @Test
+    public void testClearAllProxies() throws Exception {
+        DetachableBeanHolder repository = byName(new RepositoryEnhanced(), "repository");
+        DetachableBeanHolder unrelated = byName(new UnrelatedEnhanced(), "unrelated");
+
+        // types unknown
+        ProxyReplacer.clearProxies(Collections.singleton("repository"), null);
+
+        assertNull(repository.getTarget());
+        assertNull(unrelated.getTarget());
+    }
+
+    @Test
+    public void testClearProxiesOfInfrastructureType() throws Exception {
+        DetachableBeanHolder repository = byName(new RepositoryEnhanced(), "repository");
+        DetachableBeanHolder unrelated = byName(new UnrelatedEnhanced(), "unrelated");
+
+        // post processor may change any bean
+        ProxyReplacer.clearProxies(Collections.singleton("postProcessor"), Collections.<Class<?>>singleton(PostProcessor.class));
+
+        assertNull(repository.getTarget());
+        assertNull(unrelated.getTarget());
+    }
+
+    @Test
+    public void testWarmUpDetachesPreviousBean() throws Exception {
+        SpringPlugin.warmUpBeans = true;
+        DetachableBeanHolder repository = byName(new RepositoryEnhanced(), "repository");
+        Object previousBean = repository.getTarget();
+
+        synchronized (ClassPathBeanDefinitionScannerAgent.class) {
+            ProxyReplacer.clearProxies(Collections.singleton("repository"), Collections.<Class<?>>emptySet());
+            // the previous singleton may be already destroyed
+            assertNull(repository.getTarget());
+
+            ProxyReplacer.warmUpProxies();
+            Thread.sleep(100);
+            assertNull("Warm up waits for the refresh", repository.getTarget());
+        }
+
+        waitForTarget(repository);
+        assertNotSame(previousBean, repository.getTarget());
+    }
+
+    @Test
+    public void testWarmUpKeepsBeanLoadedOnUse() throws Exception {
+        SpringPlugin.warmUpBeans = true;
+        DetachableBeanHolder repository = byName(new RepositoryEnhanced(), "repository");
+        DetachableBeanHolder unrelated = byName(new UnrelatedEnhanced(), "unrelated");
+
+        Object loadedBean;
+        synchronized (ClassPathBeanDefinitionScannerAgent.class) {
+            ProxyReplacer.clearProxies(Collections.singleton("repository"), null);
+            ProxyReplacer.warmUpProxies();
+            loadedBean = repository.getBean();
+        }
+
+        waitForTarget(unrelated);
+        assertSame(loadedBean, repository.getTarget());
+    }
+
+    private static void waitForTarget(DetachableBeanHolder holder) throws InterruptedException {
+        for (int i = 0; i < 200 && holder.getTarget() == null; i++) {
+            Thread.sleep(10);
+        }
+        assertNotNull(holder.getTarget());
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.plugin.spring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+/**
+ * Incremental update of request mappings - only handler methods of changed beans are registered again.
+ */
+public class ResetRequestMappingCachesTest {
+
+    @Controller
+    public static class FirstController {
+        @RequestMapping("/first")
+        public String first() {
+            return "first";
+        }
+    }
+
+    @Controller
+    public static class SecondController {
+        @RequestMapping("/second")
+        public String second() {
+            return "second";
+        }
+    }
+
+    private GenericApplicationContext context;
+    private RequestMappingHandlerMapping mapping;
+
+    @Before
+    public void setup() {
+        context = new GenericApplicationContext();
+        context.registerBeanDefinition("first", new RootBeanDefinition(FirstController.class));
+        context.registerBeanDefinition("second", new RootBeanDefinition(SecondController.class));
+        context.registerBeanDefinition("handlerMapping", new RootBeanDefinition(RequestMappingHandlerMapping.class));
+        context.refresh();
+        mapping = context.getBean(RequestMappingHandlerMapping.class);
+    }
+
+    @After
+    public void tearDown() {
+        context.close();
+    }
+
+    @Test
+    public void testChangedBeanName() throws Exception {
+        HandlerMethod first = getHandlerMethod("/first");
+        HandlerMethod second = getHandlerMethod("/second");
+
+        ResetRequestMappingCaches.reset(context.getDefaultListableBeanFactory(),
+                Collections.singleton("first"), Collections.<String>emptySet());
+
+        assertEquals(2, mapping.getHandlerMethods().size());
+        assertNotSame(first, getHandlerMethod("/first"));
+        assertSame(second, getHandlerMethod("/second"));
+    }
+
+    @Test
+    public void testChangedBeanClass() throws Exception {
+        HandlerMethod first = getHandlerMethod("/first");
+        HandlerMethod second = getHandlerMethod("/second");
+
+        // class redefined, bean definition unchanged - the bean name is known only from the handler method
+        ResetRequestMappingCaches.reset(context.getDefaultListableBeanFactory(),
+                Collections.<String>emptySet(), Collections.singleton(FirstController.class.getName()));
+
+        assertEquals(2, mapping.getHandlerMethods().size());
+        assertNotSame(first, getHandlerMethod("/first"));
+        assertSame(second, getHandlerMethod("/second"));
+    }
+
+    private HandlerMethod getHandlerMethod(String pattern) {
+        for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : mapping.getHandlerMethods().entrySet()) {
+            if (entry.getKey().getPatternsCondition().getPatterns().contains(pattern)) {
+                return entry.getValue();
+            }
+        }
+        fail("No handler method for " + pattern);
+        return null;
+    }
+}
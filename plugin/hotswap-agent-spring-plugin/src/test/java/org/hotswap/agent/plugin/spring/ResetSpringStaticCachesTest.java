@@ -0,0 +1,99 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.plugin.spring;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.hotswap.agent.util.ReflectionHelper;
+import org.junit.Test;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.CachedIntrospectionResults;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Per class eviction of Spring static caches - entries of unaffected classes survive.
+ */
+public class ResetSpringStaticCachesTest {
+
+    @Component
+    public static class Changed {
+        public String getName() {
+            return "changed";
+        }
+    }
+
+    public static class ChangedSubclass extends Changed {
+    }
+
+    @Component
+    public static class Unchanged {
+        public String getName() {
+            return "unchanged";
+        }
+    }
+
+    @Test
+    public void testResetClasses() {
+        for (Class<?> clazz : new Class<?>[]{Changed.class, ChangedSubclass.class, Unchanged.class}) {
+            ReflectionUtils.findMethod(clazz, "getName");
+            BeanUtils.getPropertyDescriptors(clazz);
+            AnnotationUtils.findAnnotation(clazz, Component.class);
+        }
+        assertCached(Changed.class, true);
+        assertCached(ChangedSubclass.class, true);
+        assertCached(Unchanged.class, true);
+
+        ResetSpringStaticCaches.reset(Collections.<Class<?>>singleton(Changed.class));
+
+        assertCached(Changed.class, false);
+        assertCached(ChangedSubclass.class, false);
+        assertCached(Unchanged.class, true);
+    }
+
+    private static void assertCached(Class<?> clazz, boolean cached) {
+        Map<?, ?> declaredMethods = (Map<?, ?>) ReflectionHelper.get(null, ReflectionUtils.class, "declaredMethodsCache");
+        assertPresence(clazz, "ReflectionUtils.declaredMethodsCache", cached, declaredMethods.containsKey(clazz));
+
+        Map<?, ?> strongClassCache = (Map<?, ?>) ReflectionHelper.get(null, CachedIntrospectionResults.class, "strongClassCache");
+        Map<?, ?> softClassCache = (Map<?, ?>) ReflectionHelper.get(null, CachedIntrospectionResults.class, "softClassCache");
+        assertPresence(clazz, "CachedIntrospectionResults", cached,
+                strongClassCache.containsKey(clazz) || softClassCache.containsKey(clazz));
+
+        boolean annotationCached = false;
+        Map<?, ?> findAnnotationCache = (Map<?, ?>) ReflectionHelper.get(null, AnnotationUtils.class, "findAnnotationCache");
+        for (Object key : findAnnotationCache.keySet()) {
+            annotationCached |= ReflectionHelper.get(key, "element") == clazz;
+        }
+        assertPresence(clazz, "AnnotationUtils.findAnnotationCache", cached, annotationCached);
+    }
+
+    private static void assertPresence(Class<?> clazz, String cache, boolean expected, boolean actual) {
+        if (expected) {
+            assertTrue(clazz.getSimpleName() + " expected in " + cache, actual);
+        } else {
+            assertFalse(clazz.getSimpleName() + " expected evicted from " + cache, actual);
+        }
+    }
+}
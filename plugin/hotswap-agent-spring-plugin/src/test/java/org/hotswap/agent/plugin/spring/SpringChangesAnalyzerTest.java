@@ -0,0 +1,91 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.plugin.spring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.hotswap.agent.javassist.ClassPool;
+import org.hotswap.agent.javassist.CtClass;
+import org.hotswap.agent.javassist.CtNewMethod;
+import org.hotswap.agent.javassist.LoaderClassPath;
+import org.junit.Test;
+
+/**
+ * Signature analysis of redefined classes and bounded class pool of the analyzer.
+ */
+public class SpringChangesAnalyzerTest {
+
+    public static class Analyzed {
+        public String hello() {
+            return "hello";
+        }
+    }
+
+    @Test
+    public void testMethodBodyChange() throws Exception {
+        SpringChangesAnalyzer analyzer = new SpringChangesAnalyzer(getClass().getClassLoader());
+        byte[] sameSignature = bytecode(false);
+
+        assertFalse(analyzer.isReloadNeeded(Analyzed.class, sameSignature));
+        assertFalse(analyzer.isReloadNeeded(Analyzed.class, sameSignature));
+    }
+
+    @Test
+    public void testSignatureChangeNotInstalled() throws Exception {
+        SpringChangesAnalyzer analyzer = new SpringChangesAnalyzer(getClass().getClassLoader());
+        byte[] addedMethod = bytecode(true);
+
+        assertTrue(analyzer.isReloadNeeded(Analyzed.class, addedMethod));
+        // the class was not redefined (e.g. the redefinition failed), the loaded class still differs
+        assertTrue(analyzer.isReloadNeeded(Analyzed.class, addedMethod));
+        assertFalse(analyzer.isReloadNeeded(Analyzed.class, bytecode(false)));
+    }
+
+    @Test
+    public void testBoundedClassPool() throws Exception {
+        SpringChangesAnalyzer.BoundedClassPool pool = new SpringChangesAnalyzer.BoundedClassPool(getClass().getClassLoader(), 2);
+        pool.appendClassPath(new LoaderClassPath(getClass().getClassLoader()));
+
+        CtClass first = pool.get(Analyzed.class.getName());
+        CtClass second = pool.get(SpringChangesAnalyzerTest.class.getName());
+        assertSame(first, pool.get(Analyzed.class.getName()));
+        // the least recently used class is evicted
+        pool.get(SpringChangesAnalyzer.class.getName());
+
+        assertEquals(2, pool.getCachedCount());
+        assertSame(first, pool.get(Analyzed.class.getName()));
+        assertNotSame(second, pool.get(SpringChangesAnalyzerTest.class.getName()));
+        assertEquals(2, pool.getCachedCount());
+    }
+
+    private byte[] bytecode(boolean addMethod) throws Exception {
+        ClassPool classPool = new ClassPool();
+        classPool.appendSystemPath();
+        classPool.appendClassPath(new LoaderClassPath(getClass().getClassLoader()));
+        CtClass ctClass = classPool.get(Analyzed.class.getName());
+        if (addMethod) {
+            ctClass.addMethod(CtNewMethod.make("public String added() { return \"added\"; }", ctClass));
+        }
+        return ctClass.toBytecode();
+    }
+}
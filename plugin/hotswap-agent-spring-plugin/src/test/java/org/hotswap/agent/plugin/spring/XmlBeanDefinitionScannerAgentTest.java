@@ -0,0 +1,134 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.plugin.spring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+import org.hotswap.agent.plugin.spring.getbean.DetachableBeanHolder;
+import org.hotswap.agent.plugin.spring.scanner.XmlBeanDefinitionScannerAgent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.xml.XmlBeanDefinitionReader;
+import org.springframework.core.io.FileSystemResource;
+
+/**
+ * Reload of an XML file with plain bean definitions - only changed beans are replaced.
+ */
+public class XmlBeanDefinitionScannerAgentTest {
+
+    private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<beans xmlns=\"http://www.springframework.org/schema/beans\"\n"
+            + "       xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n"
+            + "       xsi:schemaLocation=\"http://www.springframework.org/schema/beans "
+            + "http://www.springframework.org/schema/beans/spring-beans.xsd\">\n";
+
+    private File directory;
+    private File xmlFile;
+
+    @Before
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("xmlDiff").toFile();
+        // classpath like location, the agent is registered by classpath path of the resource
+        xmlFile = new File(directory, "target/test-classes/xmlDiffContext.xml");
+        xmlFile.getParentFile().mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+        xmlFile.delete();
+        xmlFile.getParentFile().delete();
+        xmlFile.getParentFile().getParentFile().delete();
+        directory.delete();
+    }
+
+    @Test
+    public void testReloadChangedBeans() throws Exception {
+        writeXml("<bean id=\"unchanged\" class=\"java.util.ArrayList\"/>\n"
+                + "<bean id=\"changed\" class=\"java.lang.StringBuilder\"><constructor-arg value=\"v1\"/></bean>\n"
+                + "<bean id=\"removed\" class=\"java.util.HashMap\"/>\n");
+
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(beanFactory);
+        FileSystemResource resource = new FileSystemResource(xmlFile);
+        reader.loadBeanDefinitions(resource);
+        XmlBeanDefinitionScannerAgent.registerXmlBeanDefinitionScannerAgent(reader, resource);
+
+        Object unchanged = beanFactory.getBean("unchanged");
+        Object changed = beanFactory.getBean("changed");
+        assertEquals("v1", changed.toString());
+
+        writeXml("<bean id=\"unchanged\" class=\"java.util.ArrayList\"/>\n"
+                + "<bean id=\"changed\" class=\"java.lang.StringBuilder\"><constructor-arg value=\"v2\"/></bean>\n"
+                + "<bean id=\"added\" name=\"addedAlias\" class=\"java.util.HashSet\"/>\n");
+        XmlBeanDefinitionScannerAgent.reloadXml(xmlFile.toURI().toURL());
+
+        assertSame("Unchanged singleton kept", unchanged, beanFactory.getBean("unchanged"));
+        Object reloaded = beanFactory.getBean("changed");
+        assertNotSame(changed, reloaded);
+        assertEquals("v2", reloaded.toString());
+        assertFalse(beanFactory.containsBeanDefinition("removed"));
+        assertTrue(beanFactory.containsBeanDefinition("added"));
+        assertSame(beanFactory.getBean("added"), beanFactory.getBean("addedAlias"));
+    }
+
+    @Test
+    public void testReloadClearsProxiesOfChangedBeans() throws Exception {
+        writeXml("<bean id=\"unchanged\" class=\"java.util.ArrayList\"/>\n"
+                + "<bean id=\"changed\" class=\"java.lang.StringBuilder\"><constructor-arg value=\"v1\"/></bean>\n");
+
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(beanFactory);
+        FileSystemResource resource = new FileSystemResource(xmlFile);
+        reader.loadBeanDefinitions(resource);
+        XmlBeanDefinitionScannerAgent.registerXmlBeanDefinitionScannerAgent(reader, resource);
+
+        DetachableBeanHolder unchanged = byName(beanFactory, new ArrayList<Object>(), "unchanged");
+        DetachableBeanHolder changed = byName(beanFactory, new StringBuilder("v1"), "changed");
+        Object unchangedBean = unchanged.getTarget();
+
+        writeXml("<bean id=\"unchanged\" class=\"java.util.ArrayList\"/>\n"
+                + "<bean id=\"changed\" class=\"java.lang.StringBuilder\"><constructor-arg value=\"v2\"/></bean>\n");
+        XmlBeanDefinitionScannerAgent.reloadXml(xmlFile.toURI().toURL());
+
+        assertNull(changed.getTarget());
+        assertSame("Proxy of unchanged bean kept", unchangedBean, unchanged.getTarget());
+        assertEquals("v2", changed.getBean().toString());
+    }
+
+    private static DetachableBeanHolder byName(Object beanFactory, Object bean, String beanName) {
+        return new DetachableBeanHolder(bean, beanFactory, new Class[]{String.class}, new Object[]{beanName});
+    }
+
+    private void writeXml(String beans) throws IOException {
+        Files.write(xmlFile.toPath(), (HEADER + beans + "</beans>\n").getBytes(StandardCharsets.UTF_8));
+    }
+}
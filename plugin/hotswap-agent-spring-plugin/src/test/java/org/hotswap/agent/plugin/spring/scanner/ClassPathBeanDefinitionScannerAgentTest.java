@@ -0,0 +1,196 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.plugin.spring.scanner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hotswap.agent.javassist.ClassPool;
+import org.hotswap.agent.javassist.CtClass;
+import org.hotswap.agent.javassist.bytecode.AnnotationsAttribute;
+import org.hotswap.agent.javassist.bytecode.ConstPool;
+import org.hotswap.agent.javassist.bytecode.annotation.Annotation;
+import org.hotswap.agent.util.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.ClassPathBeanDefinitionScanner;
+import org.springframework.core.io.Resource;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
+import org.springframework.core.type.filter.AssignableTypeFilter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Refresh of a batch of classes in a plain Spring context. Class definitions are passed as if they were
+ * changed, the scanner agent registers them as one batch.
+ */
+public class ClassPathBeanDefinitionScannerAgentTest {
+
+    // base package is only a key of the scanner agent
+    private static final String BASE_PACKAGE = "org.hotswap.agent.plugin.spring.scanner.batch";
+
+    @Component("first")
+    public static class First {
+    }
+
+    @Component("second")
+    public static class Second {
+    }
+
+    @Component("unchanged")
+    public static class Unchanged {
+    }
+
+    public static class NotComponent {
+    }
+
+    private AnnotationConfigApplicationContext context;
+
+    @Before
+    public void setup() {
+        context = new AnnotationConfigApplicationContext();
+        context.register(First.class, Unchanged.class);
+        context.refresh();
+        ClassPathBeanDefinitionScannerAgent scannerAgent =
+                ClassPathBeanDefinitionScannerAgent.getInstance(new ClassPathBeanDefinitionScanner(context));
+        scannerAgent.basePackages.add(BASE_PACKAGE);
+    }
+
+    @After
+    public void tearDown() {
+        ClassPathBeanDefinitionScannerAgent.getInstance(BASE_PACKAGE).basePackages.remove(BASE_PACKAGE);
+        context.close();
+    }
+
+    @Test
+    public void testRefreshClasses() throws Exception {
+        Object first = context.getBean("first");
+        Object unchanged = context.getBean("unchanged");
+
+        refresh(First.class, Second.class, NotComponent.class);
+
+        assertNotSame("Changed bean recreated", first, context.getBean("first"));
+        assertTrue(context.getBean("second") instanceof Second);
+        assertSame(unchanged, context.getBean("unchanged"));
+        assertEquals(0, context.getBeanNamesForType(NotComponent.class).length);
+    }
+
+    @Test
+    public void testInvalidClassDoesNotBreakBatch() throws Exception {
+        byte[][] classDefinitions = {classDefinition(Second.class), {(byte) 0xCA, (byte) 0xFE}};
+        ClassPathBeanDefinitionScannerAgent.refreshClasses(new String[]{BASE_PACKAGE, BASE_PACKAGE}, classDefinitions);
+
+        assertTrue(context.getBean("second") instanceof Second);
+    }
+
+    @Test
+    public void testRefreshCommandsMergedPerClassLoader() {
+        ClassLoader classLoader = getClass().getClassLoader();
+        ClassPathBeanRefreshCommand first = new ClassPathBeanRefreshCommand(classLoader, BASE_PACKAGE,
+                First.class.getName(), new byte[0]);
+        ClassPathBeanRefreshCommand second = new ClassPathBeanRefreshCommand(classLoader, BASE_PACKAGE,
+                Second.class.getName(), new byte[0]);
+        ClassPathBeanRefreshCommand other = new ClassPathBeanRefreshCommand(new ClassLoader(classLoader) {
+        }, BASE_PACKAGE, First.class.getName(), new byte[0]);
+
+        // the scheduler merges equal commands into one batch
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertNotEquals(first, other);
+    }
+
+    @Test
+    public void testAnnotationPrefilter() throws Exception {
+        final AtomicInteger reads = new AtomicInteger();
+        SimpleMetadataReaderFactory factory = new SimpleMetadataReaderFactory() {
+            @Override
+            public MetadataReader getMetadataReader(Resource resource) throws IOException {
+                reads.incrementAndGet();
+                return super.getMetadataReader(resource);
+            }
+        };
+
+        assertNull("Class without annotations skipped",
+                ClassPathBeanDefinitionScannerAgent.readMetadata(factory, classDefinition(NotComponent.class), true));
+        assertEquals(0, reads.get());
+        assertNotNull(ClassPathBeanDefinitionScannerAgent.readMetadata(factory, classDefinition(First.class), true));
+        assertNotNull(ClassPathBeanDefinitionScannerAgent.readMetadata(factory, classDefinition(NotComponent.class), false));
+        assertEquals(2, reads.get());
+    }
+
+    @Test
+    public void testAnnotationFilterOnly() {
+        assertTrue("Default @Component filter", ClassPathBeanDefinitionScannerAgent.getInstance(BASE_PACKAGE).isAnnotationFilterOnly());
+
+        ClassPathBeanDefinitionScanner scanner = new ClassPathBeanDefinitionScanner(context);
+        scanner.addIncludeFilter(new AssignableTypeFilter(NotComponent.class));
+        assertFalse(ClassPathBeanDefinitionScannerAgent.getInstance(scanner).isAnnotationFilterOnly());
+    }
+
+    @Test
+    public void testParallelBatch() throws Exception {
+        // above the threshold of parallel metadata reading, every other class is a component
+        int count = 40;
+        String[] basePackages = new String[count];
+        byte[][] classDefinitions = new byte[count][];
+        ClassPool pool = new ClassPool(true);
+        for (int i = 0; i < count; i++) {
+            CtClass ctClass = pool.makeClass(BASE_PACKAGE + ".Generated" + i);
+            if (i % 2 == 0) {
+                ConstPool constPool = ctClass.getClassFile().getConstPool();
+                AnnotationsAttribute attribute = new AnnotationsAttribute(constPool, AnnotationsAttribute.visibleTag);
+                attribute.addAnnotation(new Annotation(Component.class.getName(), constPool));
+                ctClass.getClassFile().addAttribute(attribute);
+            }
+            basePackages[i] = BASE_PACKAGE;
+            classDefinitions[i] = ctClass.toBytecode();
+        }
+
+        ClassPathBeanDefinitionScannerAgent.refreshClasses(basePackages, classDefinitions);
+
+        for (int i = 0; i < count; i++) {
+            assertEquals(i % 2 == 0, context.containsBeanDefinition("generated" + i));
+        }
+    }
+
+    private static void refresh(Class<?>... classes) throws Exception {
+        String[] basePackages = new String[classes.length];
+        byte[][] classDefinitions = new byte[classes.length][];
+        for (int i = 0; i < classes.length; i++) {
+            basePackages[i] = BASE_PACKAGE;
+            classDefinitions[i] = classDefinition(classes[i]);
+        }
+        ClassPathBeanDefinitionScannerAgent.refreshClasses(basePackages, classDefinitions);
+    }
+
+    private static byte[] classDefinition(Class<?> clazz) throws Exception {
+        return IOUtils.toByteArray(clazz.getResource("/" + clazz.getName().replace('.', '/') + ".class").toURI());
+    }
+}
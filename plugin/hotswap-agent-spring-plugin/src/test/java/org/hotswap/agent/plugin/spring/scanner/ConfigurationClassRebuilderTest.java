@@ -0,0 +1,131 @@
+/*
+ * Copyright 2013-2019 the HotswapAgent authors.
+ *
+ * This file is part of HotswapAgent.
+ *
+ * HotswapAgent is free software: you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the
+ * Free Software Foundation, either version 2 of the License, or (at your
+ * option) any later version.
+ *
+ * HotswapAgent is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with HotswapAgent. If not, see http://www.gnu.org/licenses/.
+ */
+package org.hotswap.agent.plugin.spring.scanner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.AnnotatedGenericBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ClassPathBeanDefinitionScanner;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * Rebuild of a changed configuration class in a plain Spring context. The changed class is simulated by
+ * another class registered under the same bean name.
+ */
+public class ConfigurationClassRebuilderTest {
+
+    @Configuration
+    @Import(InfraConfig.class)
+    public static class AppConfig {
+        @Bean
+        public String service(StringBuilder dataSource) {
+            return "service " + dataSource;
+        }
+    }
+
+    // changed @Bean method and a new import
+    @Configuration
+    @Import({InfraConfig.class, ExtraConfig.class})
+    public static class ChangedAppConfig {
+        @Bean
+        public String service(StringBuilder dataSource) {
+            return "changed service " + dataSource;
+        }
+    }
+
+    @Configuration
+    public static class InfraConfig {
+        @Bean
+        public StringBuilder dataSource() {
+            return new StringBuilder("dataSource");
+        }
+    }
+
+    @Configuration
+    public static class ExtraConfig {
+        @Bean
+        public Integer extra() {
+            return 42;
+        }
+    }
+
+    public static class Unrelated {
+    }
+
+    @Test
+    public void testIsConfigurationClass() {
+        assertTrue(ConfigurationClassRebuilder.isConfigurationClass(new AnnotatedGenericBeanDefinition(AppConfig.class)));
+        assertFalse(ConfigurationClassRebuilder.isConfigurationClass(new AnnotatedGenericBeanDefinition(Unrelated.class)));
+    }
+
+    @Test
+    public void testRebuild() {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.registerBeanDefinition("appConfig", new AnnotatedGenericBeanDefinition(AppConfig.class));
+        context.registerBeanDefinition("unrelated", new AnnotatedGenericBeanDefinition(Unrelated.class));
+        context.refresh();
+        DefaultListableBeanFactory bf = context.getDefaultListableBeanFactory();
+
+        Object dataSource = context.getBean("dataSource");
+        Object unrelated = context.getBean("unrelated");
+        Object appConfig = context.getBean("appConfig");
+        assertEquals("service dataSource", context.getBean("service"));
+
+        Map<String, BeanDefinition> configurations = Collections.singletonMap("appConfig", bf.getBeanDefinition("appConfig"));
+        assertEquals(Collections.singleton("service"), ConfigurationClassRebuilder.getBeanMethodBeans(bf, configurations));
+
+        // what the scanner agent does for a changed configuration class
+        bf.removeBeanDefinition("service");
+        bf.removeBeanDefinition("appConfig");
+        bf.registerBeanDefinition("appConfig", new AnnotatedGenericBeanDefinition(ChangedAppConfig.class));
+        Set<String> basePackages = new HashSet<>();
+        Set<String> registered = ConfigurationClassRebuilder.rebuild(bf, new ClassPathBeanDefinitionScanner(context),
+                Collections.singleton("appConfig"), basePackages);
+
+        assertTrue(registered.contains("service"));
+        assertTrue(registered.contains("extra"));
+        assertFalse("Existing imported definition kept", registered.contains("dataSource"));
+        assertTrue(basePackages.isEmpty());
+
+        assertEquals("changed service dataSource", context.getBean("service"));
+        assertEquals(42, context.getBean("extra"));
+        assertSame(dataSource, context.getBean("dataSource"));
+        assertSame(unrelated, context.getBean("unrelated"));
+
+        Object changedAppConfig = context.getBean("appConfig");
+        assertNotSame(appConfig, changedAppConfig);
+        assertTrue(changedAppConfig instanceof ChangedAppConfig);
+        assertTrue("Configuration class enhanced", changedAppConfig.getClass() != ChangedAppConfig.class);
+    }
+}
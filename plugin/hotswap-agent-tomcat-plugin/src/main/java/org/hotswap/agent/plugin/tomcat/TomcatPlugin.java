@@ -102,7 +102,7 @@ public class TomcatPlugin {
             URL[] extraClasspath = pluginConfiguration.getExtraClasspath();
             if (extraClasspath.length > 0) {
                 if (majorVersion >= 7)
-                    watchResourcesClassLoader.initExtraPath(extraClasspath);
+                    watchResourcesClassLoader.initExtraPath(extraClasspath, PluginManager.getInstance().getWatcher());
                 else
                     addRepositoriesAtStart(appClassLoader, extraClasspath, false);
 
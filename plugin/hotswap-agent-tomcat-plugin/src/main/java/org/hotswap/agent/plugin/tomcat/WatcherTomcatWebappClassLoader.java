@@ -44,7 +44,7 @@ public class WatcherTomcatWebappClassLoader extends WatchResourcesClassLoader {
         LOGGER.debug("extraClassPath = {}", extraClassPath);
         if (extraClassPath.length > 0) {
             LOGGER.debug("Registering extraClasspath {} to classloader {}", extraClassPath, originalClassLoader);
-            initExtraPath(extraClassPath);
+            initExtraPath(extraClassPath, PluginManager.getInstance().getWatcher());
         }
 
         URL[] watchResources = (URL[]) PluginManagerInvoker.callPluginMethod(TomcatPlugin.class, originalClassLoader,
@@ -23,7 +23,9 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.hotswap.agent.config.PluginManager;
 import org.hotswap.agent.logging.AgentLogger;
+import org.hotswap.agent.util.classloader.ResourceIndex;
 import org.xnio.IoUtils;
 
 import io.undertow.server.handlers.resource.FileResourceManager;
@@ -46,15 +48,36 @@ public class PrefixingResourceManager implements ResourceManager {
     }
 
     public void setExtraResources(List extraResources) {
+        setExtraResources(extraResources, null);
+    }
+
+    /**
+     * Prefix by extra resources directories. Names in the directories are indexed (kept current by watcher
+     * events registered for the application classloader) to skip lookup of resources which do not exist.
+     *
+     * @param extraResources extra resources directories
+     * @param appClassLoader application classloader, null to disable the index
+     */
+    public void setExtraResources(List extraResources, ClassLoader appClassLoader) {
         List<ResourceManager> delegates = new ArrayList<>();
+        List<ResourceIndex> indexes = new ArrayList<>();
         for (Object o: extraResources) {
             File resource = File.class.cast(o);
             try {
-                delegates.add(new FileResourceManager(resource.getCanonicalFile(), 1024, true, false, "/"));
+                File canonicalFile = resource.getCanonicalFile();
+                ResourceManager delegate = new FileResourceManager(canonicalFile, 1024, true, false, "/");
+                if (appClassLoader != null && canonicalFile.isDirectory()) {
+                    ResourceIndex index = new ResourceIndex(canonicalFile.toPath());
+                    index.register(PluginManager.getInstance().getWatcher(), appClassLoader);
+                    indexes.add(index);
+                    delegate = new IndexedResourceManager(delegate, index);
+                }
+                delegates.add(delegate);
             } catch (IOException e) {
                 LOGGER.warning("Unable to create cannonical file from {}. File skipped.", resource.getName(), e);
             }
         }
+        ResourceIndex.build(indexes);
         delegates.addAll(this.delegates);
         this.delegates = delegates;
     }
@@ -99,4 +122,42 @@ public class PrefixingResourceManager implements ResourceManager {
             IoUtils.safeClose(del);
         }
     }
+
+    /**
+     * Skip filesystem lookup of resources missing in the index.
+     */
+    private static class IndexedResourceManager implements ResourceManager {
+        private final ResourceManager delegate;
+        private final ResourceIndex index;
+
+        IndexedResourceManager(ResourceManager delegate, ResourceIndex index) {
+            this.delegate = delegate;
+            this.index = index;
+        }
+
+        @Override
+        public Resource getResource(String path) throws IOException {
+            return index.mayContain(path) ? delegate.getResource(path) : null;
+        }
+
+        @Override
+        public boolean isResourceChangeListenerSupported() {
+            return delegate.isResourceChangeListenerSupported();
+        }
+
+        @Override
+        public void registerResourceChangeListener(ResourceChangeListener listener) {
+            delegate.registerResourceChangeListener(listener);
+        }
+
+        @Override
+        public void removeResourceChangeListener(ResourceChangeListener listener) {
+            delegate.removeResourceChangeListener(listener);
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
 }
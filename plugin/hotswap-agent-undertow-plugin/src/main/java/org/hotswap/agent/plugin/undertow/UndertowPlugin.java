@@ -75,7 +75,8 @@ public class UndertowPlugin {
         addExtraResources(extraResources, pluginConfiguration.getWebappDir());
 
         try {
-            ReflectionHelper.invoke(resourceManager, resourceManager.getClass(), "setExtraResources", new Class[] { List.class }, extraResources);
+            ReflectionHelper.invoke(resourceManager, resourceManager.getClass(), "setExtraResources", new Class[] { List.class, ClassLoader.class },
+                    extraResources, appClassLoader);
         } catch (Exception e) {
             LOGGER.error("init() exception {}.", e.getMessage());
         }